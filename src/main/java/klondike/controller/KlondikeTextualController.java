@@ -3,9 +3,12 @@ package klondike.controller;
 import java.io.IOException;
 import java.util.InputMismatchException;
 import java.util.List;
+import java.util.OptionalInt;
 import java.util.Scanner;
+import java.util.regex.Pattern;
 import klondike.model.hw02.Card;
 import klondike.model.hw02.KlondikeModel;
+import klondike.model.hw04.ExtendedKlondikeModel;
 import klondike.view.KlondikeTextualView;
 
 /**
@@ -13,6 +16,9 @@ import klondike.view.KlondikeTextualView;
  * an Appendable that appends the game's output.
  */
 public class KlondikeTextualController implements KlondikeController {
+  private static final Pattern COMMANDS =
+      Pattern.compile("mpp|md|mpf|mdf|dd|u|r", Pattern.CASE_INSENSITIVE);
+  private static final Pattern NEXT_WORD = Pattern.compile("(?=\\S)");  // skips spaces only
   private final Readable rd;
   private final Appendable ap;
 
@@ -62,6 +68,24 @@ public class KlondikeTextualController implements KlondikeController {
     }
   }
 
+  /**
+   * Reads the next integer from input like {@link #readNextInt(Scanner)}, unless the value was
+   * left out: the current line has no words left, or the next word is another command, which
+   * is left to be read as the next command. Only the rest of the current line is looked at, so
+   * a user who ends a command with enter does not have to type anything more for it to run.
+   *
+   * @param scan the Scanner to read from
+   * @return the integer value, or an empty OptionalInt if the value was left out
+   * @throws QuitException if user enters 'q' or 'Q'
+   * @throws IOException   if output fails
+   */
+  private OptionalInt readOptionalInt(Scanner scan) throws IOException, QuitException {
+    if (scan.findInLine(NEXT_WORD) == null || scan.hasNext(COMMANDS)) {
+      return OptionalInt.empty();
+    }
+    return OptionalInt.of(readNextInt(scan));
+  }
+
   @Override
   public <C extends Card> void playGame(KlondikeModel<C> model, List<C> deck, boolean shuffle,
                                         int numRows, int numDraw)
@@ -126,9 +150,13 @@ public class KlondikeTextualController implements KlondikeController {
    * Commands supported:
    * - mpp: Move cards from pile to pile
    * - md: Move card from draw pile to cascade pile
-   * - mpf: Move card from cascade pile to foundation
-   * - mdf: Move card from draw pile to foundation
+   * - mpf: Move card from cascade pile to foundation, or to the foundation of its suit if no
+   * foundation is given
+   * - mdf: Move card from draw pile to foundation, or to the foundation of its suit if no
+   * foundation is given
    * - dd: Discard the current draw card
+   * - u: Undo the last move
+   * - r: Redo the last undone move
    *
    * @param <C>     the card type
    * @param model   the game model
@@ -157,16 +185,30 @@ public class KlondikeTextualController implements KlondikeController {
         break;
       case "mpf":
         int cascadePileIndex = readNextInt(scan);
-        int foundationPileIndex = readNextInt(scan);
-        executePileToFoundation(model, cascadePileIndex, foundationPileIndex, view);
+        OptionalInt foundationPileIndex = readOptionalInt(scan);
+        if (foundationPileIndex.isPresent()) {
+          executePileToFoundation(model, cascadePileIndex, foundationPileIndex.getAsInt(), view);
+        } else {
+          executePileToSuitFoundation(model, cascadePileIndex, view);
+        }
         break;
       case "mdf":
-        int foundationIndex = readNextInt(scan);
-        executeDrawToFoundation(model, foundationIndex, view);
+        OptionalInt foundationIndex = readOptionalInt(scan);
+        if (foundationIndex.isPresent()) {
+          executeDrawToFoundation(model, foundationIndex.getAsInt(), view);
+        } else {
+          executeDrawToSuitFoundation(model, view);
+        }
         break;
       case "dd":
         executeDiscardDraw(model, view);
         break;
+      case "u":
+        executeUndo(model, view);
+        break;
+      case "r":
+        executeRedo(model, view);
+        break;
       default:
         throw new IllegalArgumentException("Unknown command.");
     }
@@ -271,6 +313,55 @@ public class KlondikeTextualController implements KlondikeController {
     renderGameState(model, view);
   }
 
+  /**
+   * Executes the undo command.
+   * Undoes the last move and renders the updated game state.
+   *
+   * @param <C>   the card type
+   * @param model the game model
+   * @param view  the textual view for rendering
+   * @throws IOException              if rendering fails
+   * @throws IllegalArgumentException if the model does not support undo
+   */
+  private <C extends Card> void executeUndo(KlondikeModel<C> model,
+                                            KlondikeTextualView view)
+      throws IOException {
+    asExtendedModel(model).undo();
+    renderGameState(model, view);
+  }
+
+  /**
+   * Executes the redo command.
+   * Redoes the last undone move and renders the updated game state.
+   *
+   * @param <C>   the card type
+   * @param model the game model
+   * @param view  the textual view for rendering
+   * @throws IOException              if rendering fails
+   * @throws IllegalArgumentException if the model does not support redo
+   */
+  private <C extends Card> void executeRedo(KlondikeModel<C> model,
+                                            KlondikeTextualView view)
+      throws IOException {
+    asExtendedModel(model).redo();
+    renderGameState(model, view);
+  }
+
+  /**
+   * Gets the extended interface of a model, for commands that the basic interface lacks.
+   *
+   * @param <C>   the card type
+   * @param model the game model
+   * @return the model as an ExtendedKlondikeModel
+   * @throws IllegalArgumentException if the model does not implement ExtendedKlondikeModel
+   */
+  private <C extends Card> ExtendedKlondikeModel<C> asExtendedModel(KlondikeModel<C> model) {
+    if (!(model instanceof ExtendedKlondikeModel<C> extended)) {
+      throw new IllegalArgumentException("Command not supported by this game.");
+    }
+    return extended;
+  }
+
   /**
    * Executes a move from the draw pile to a foundation pile.
    * Moves the top draw card to the specified foundation pile (1-indexed from user).
@@ -289,6 +380,40 @@ public class KlondikeTextualController implements KlondikeController {
     renderGameState(model, view);
   }
 
+  /**
+   * Executes a move from the draw pile to the foundation pile of its suit.
+   *
+   * @param <C>   the card type
+   * @param model the game model
+   * @param view  the textual view for rendering
+   * @throws IOException              if rendering fails
+   * @throws IllegalArgumentException if the model cannot find foundations by suit
+   */
+  private <C extends Card> void executeDrawToSuitFoundation(KlondikeModel<C> model,
+                                                            KlondikeTextualView view)
+      throws IOException {
+    asExtendedModel(model).moveDrawToSuitFoundation();
+    renderGameState(model, view);
+  }
+
+  /**
+   * Executes a move from a cascade pile to the foundation pile of its suit.
+   *
+   * @param <C>              the card type
+   * @param model            the game model
+   * @param cascadePileIndex the source cascade pile index (1-indexed from user input)
+   * @param view             the textual view for rendering
+   * @throws IOException              if rendering fails
+   * @throws IllegalArgumentException if the model cannot find foundations by suit
+   */
+  private <C extends Card> void executePileToSuitFoundation(KlondikeModel<C> model,
+                                                            int cascadePileIndex,
+                                                            KlondikeTextualView view)
+      throws IOException {
+    asExtendedModel(model).moveToSuitFoundation(cascadePileIndex - 1);
+    renderGameState(model, view);
+  }
+
   /**
    * Executes a move from a cascade pile to a foundation pile.
    * Moves the top card of the specified cascade pile to the specified foundation pile.
@@ -19,6 +19,11 @@ public class BasicKlondike extends AbstractKlondike {
     this.gameStarted = false;
   }
 
+  @Override
+  protected AbstractKlondike createEmptyGame() {
+    return new BasicKlondike();
+  }
+
   @Override
   protected boolean shouldCardBeVisible(int row, int pile) {
     return row == pile; // last card in each pile is visible
@@ -1,28 +1,63 @@
 package klondike.model.hw02;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.BiPredicate;
 
 /**
  * A class representing a cascade pile in the Klondike game.
  * Manages cards and if visible in the cascade pile.
+ *
+ * <p>The face-down cards of a cascade pile always come before its face-up cards, so the
+ * visibility of the whole pile is kept as the index of its first face-up card. The cards are
+ * kept in an array that grows by doubling, so that a run of cards can be moved between piles
+ * with one array copy.
+ *
+ * <p>Next to each card, the pile keeps the length of the movable run that ends with it: the
+ * number of face-up cards above and including it in which every card continues the run of the
+ * card before it, under the rule the pile was created with. A card only changes the runs below
+ * it, so the runs are updated in constant time as cards are added and removed, and the run at
+ * the bottom of the pile is always known.
  */
 public class CascadePile implements Pile {
-  private final List<Card> cards;
-  private final List<Boolean> isVisible;
+  private final BiPredicate<Card, Card> continuesRun;
+  private Card[] cards;
+  private int[] runs;  // length of the movable run ending at each card, 0 if face-down
+  private int size;
+  private int firstVisible;  // index of the first face-up card, or size if there is none
+  private final PileView cardsView = new PileView(() -> size, index -> cards[index]);
+  private final PileView visibleView =
+      new PileView(() -> size - firstVisible, index -> cards[firstVisible + index]);
 
   /**
-   * Creates an empty cascade pile.
+   * Creates an empty cascade pile in which no two cards form a run, so that only the bottom
+   * card can be moved.
    */
   public CascadePile() {
-    this.cards = new ArrayList<>();
-    this.isVisible = new ArrayList<>();
+    this((prev, next) -> false);
   }
 
   /**
-   * Adds a card to the bottom of the cascade pile.
-   * Adds whether the card is visible or not to a visibility array that is parallel
-   * to the cascade pile.
+   * Creates an empty cascade pile whose movable runs follow the given rule.
+   *
+   * @param continuesRun the rule telling if a card, the second argument, can be moved together
+   *                     with the card right above it, the first argument
+   * @throws IllegalArgumentException if the rule is null
+   */
+  public CascadePile(BiPredicate<Card, Card> continuesRun) throws IllegalArgumentException {
+    if (continuesRun == null) {
+      throw new IllegalArgumentException("Run rule cannot be null");
+    }
+    this.continuesRun = continuesRun;
+    this.cards = new Card[8];
+    this.runs = new int[8];
+    this.size = 0;
+    this.firstVisible = 0;
+  }
+
+  /**
+   * Adds a card to the bottom of the cascade pile, face-up.
    *
    * @param card the card that is added to the cascade pile
    */
@@ -36,17 +71,34 @@ public class CascadePile implements Pile {
 
   /**
    * Adds a card to the cascade pile with specified visibility.
+   * A face-down card can only be added while every card of the pile is face-down.
    *
    * @param card    the card to add
    * @param visible true if the card should be face-up, false if face-down
    * @throws IllegalArgumentException if the card is null
+   * @throws IllegalStateException    if a face-down card is added below a face-up card
    */
-  public void addCard(Card card, boolean visible) throws IllegalArgumentException {
+  public void addCard(Card card, boolean visible)
+      throws IllegalArgumentException, IllegalStateException {
     if (card == null) {
       throw new IllegalArgumentException("Card cannot be null");
     }
-    cards.add(card);
-    isVisible.add(visible);
+    if (!visible) {
+      if (firstVisible < size) {
+        throw new IllegalStateException("Cannot add a face-down card below a face-up card");
+      }
+      firstVisible++;
+    }
+    ensureCapacity(size + 1);
+    if (!visible) {
+      runs[size] = 0;
+    } else if (size > firstVisible && continuesRun.test(cards[size - 1], card)) {
+      runs[size] = runs[size - 1] + 1;
+    } else {
+      runs[size] = 1;
+    }
+    cards[size++] = card;
+    changed();
   }
 
   /**
@@ -61,13 +113,10 @@ public class CascadePile implements Pile {
     if (isEmpty()) {
       throw new IllegalStateException("Cannot remove from empty pile");
     }
-    Card removed = cards.removeLast();
-    isVisible.removeLast();
-
-    if (!isEmpty() && !hasVisibleCards()) {
-      isVisible.set(isVisible.size() - 1, true);
-    }
-
+    Card removed = cards[--size];
+    cards[size] = null;
+    flipIfNoneVisible();
+    changed();
     return removed;
   }
 
@@ -87,19 +136,109 @@ public class CascadePile implements Pile {
           + " cards from pile with only " + size() + " cards");
     }
 
-    List<Card> removed = new ArrayList<>();
-    for (int i = 0; i < numCards; i++) {
-      removed.addFirst(removeCard());
-    }
+    List<Card> removed = new ArrayList<>(Arrays.asList(cards).subList(size - numCards, size));
+    Arrays.fill(cards, size - numCards, size, null);
+    size -= numCards;
+    flipIfNoneVisible();
+    changed();
     return removed;
   }
 
+  /**
+   * Moves the specified number of cards from the bottom of this pile to the bottom of another
+   * pile in one array copy, keeping their order. The cards must all be face-up, and stay
+   * face-up. Flips the new bottom card of this pile, if exists, if all visible cards are moved.
+   *
+   * @param dest     the pile to move the cards to
+   * @param numCards the number of cards to move
+   * @throws IllegalArgumentException if the destination is null or this pile, or the number of
+   *                                  cards is not positive, exceeds the pile size or includes a
+   *                                  face-down card
+   */
+  public void transferTo(CascadePile dest, int numCards) throws IllegalArgumentException {
+    if (dest == null || dest == this) {
+      throw new IllegalArgumentException("Destination must be another pile");
+    }
+    if (numCards <= 0 || numCards > size) {
+      throw new IllegalArgumentException("Cannot move " + numCards
+          + " cards from pile with " + size + " cards");
+    }
+    int start = size - numCards;
+    if (start < firstVisible) {
+      throw new IllegalArgumentException("All cards to move must be visible");
+    }
+    dest.ensureCapacity(dest.size + numCards);
+    System.arraycopy(cards, start, dest.cards, dest.size, numCards);
+    // the first card joins the run of the destination, and the others keep their links
+    int first = dest.size;
+    dest.runs[first] = first > dest.firstVisible
+        && dest.continuesRun.test(dest.cards[first - 1], cards[start])
+        ? dest.runs[first - 1] + 1 : 1;
+    for (int i = 1; i < numCards; i++) {
+      dest.runs[first + i] = runs[start + i] == runs[start + i - 1] + 1
+          ? dest.runs[first + i - 1] + 1 : 1;
+    }
+    dest.size += numCards;
+    Arrays.fill(cards, start, size, null);
+    size = start;
+    flipIfNoneVisible();
+    changed();
+    dest.changed();
+  }
+
+  /**
+   * Records that the pile changed, so that iterators over its views fail.
+   */
+  private void changed() {
+    cardsView.changed();
+    visibleView.changed();
+  }
+
+  /**
+   * Updates the first visible card after cards were removed from the bottom of the pile: if no
+   * visible card is left and the pile is not empty, the new bottom card is turned face-up.
+   */
+  private void flipIfNoneVisible() {
+    firstVisible = Math.min(firstVisible, size);
+    if (size > 0 && firstVisible == size) {
+      firstVisible--;  // no visible cards left, so flip the new bottom card
+      runs[firstVisible] = 1;
+    }
+  }
+
+  /**
+   * Grows the array of cards, if needed, so that it can hold the given number of cards.
+   *
+   * @param capacity the number of cards to hold
+   */
+  private void ensureCapacity(int capacity) {
+    if (capacity > cards.length) {
+      cards = Arrays.copyOf(cards, Math.max(capacity, cards.length * 2));
+      runs = Arrays.copyOf(runs, cards.length);
+    }
+  }
+
+  /**
+   * Turns the bottom card of the pile face-down again. This reverses the flip that
+   * {@link #removeCard()} makes when it removes the last visible card.
+   *
+   * @throws IllegalStateException if the bottom card is not the only visible card
+   */
+  public void turnBottomCardFaceDown() throws IllegalStateException {
+    if (firstVisible != size - 1) {
+      throw new IllegalStateException("Only a lone visible card can be turned face-down");
+    }
+    runs[firstVisible] = 0;
+    firstVisible++;
+    changed();
+  }
+
   @Override
   public Card getCardAt(int index) throws IllegalArgumentException {
-    if (index < 0 || index >= cards.size()) {
+    if (index < 0 || index >= size) {
       throw new IllegalArgumentException("Invalid index: " + index);
     }
-    return cards.get(index);
+    return cards[index];
   }
 
   /**
@@ -110,69 +249,68 @@ public class CascadePile implements Pile {
    * @throws IllegalArgumentException if the index is invalid
    */
   public boolean isCardVisible(int index) throws IllegalArgumentException {
-    if (index < 0 || index >= isVisible.size()) {
+    if (index < 0 || index >= size) {
       throw new IllegalArgumentException("Invalid index: " + index);
     }
-    return isVisible.get(index);
+    return index >= firstVisible;
   }
 
   /**
-   * Gets the bottommost visible card in the pile.
+   * Gets the index of the first visible card in the pile, which is also the number of
+   * face-down cards in the pile.
    *
-   * @return the bottommost visible card
-   * @throws IllegalStateException if there are no visible cards
+   * @return the index of the first visible card, or the size of the pile if none is visible
    */
-  public Card getBottomVisibleCard() throws IllegalStateException {
-    for (int i = cards.size() - 1; i >= 0; i--) {
-      if (isVisible.get(i)) {
-        return cards.get(i);
-      }
-    }
-    throw new IllegalStateException("No visible cards in pile");
+  public int getFirstVisibleIndex() {
+    return firstVisible;
   }
 
   /**
-   * Checks if the pile has any visible cards.
+   * Gets the number of cards at the bottom of the pile that can be moved together: the length
+   * of the movable run that ends with the bottom card.
    *
-   * @return true if there are visible cards, false otherwise
+   * @return the length of the run, or 0 if there are no visible cards
    */
-  private boolean hasVisibleCards() {
-    for (Boolean isVisible : isVisible) {
-      if (isVisible) {
-        return true;
-      }
+  public int getRunLength() {
+    return size == 0 ? 0 : runs[size - 1];
+  }
+
+  /**
+   * Gets the bottommost visible card in the pile.
+   *
+   * @return the bottommost visible card
+   * @throws IllegalStateException if there are no visible cards
+   */
+  public Card getBottomVisibleCard() throws IllegalStateException {
+    if (firstVisible == size) {
+      throw new IllegalStateException("No visible cards in pile");
     }
-    return false;
+    return cards[size - 1];
   }
 
   /**
-   * Gets a list of visible cards in the pile.
+   * Gets a read-only view of the visible cards in the pile, which is live like the view
+   * returned by {@link #getCards()}.
    *
-   * @return a list of visible cards
+   * @return a view of the visible cards
    */
   public List<Card> getVisibleCards() {
-    List<Card> visibleCards = new ArrayList<>();
-    for (int i = 0; i < cards.size(); i++) {
-      if (isVisible.get(i)) {
-        visibleCards.add(cards.get(i));
-      }
-    }
-    return visibleCards;
+    return visibleView;
   }
 
   @Override
   public int size() {
-    return cards.size();
+    return size;
   }
 
   @Override
   public boolean isEmpty() {
-    return cards.isEmpty();
+    return size == 0;
   }
 
   @Override
   public List<Card> getCards() {
-    return new ArrayList<>(cards);
+    return cardsView;
   }
 }
 
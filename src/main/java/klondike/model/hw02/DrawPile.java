@@ -1,15 +1,21 @@
 package klondike.model.hw02;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * A class representing a draw pile in the Klondike game.
  * The draw pile holds cards that can be drawn and moved to cascade or foundation piles.
+ *
+ * <p>The cards are kept in a circular buffer, so drawing the top card, discarding it to the
+ * bottom and undoing either of those take constant time.
  */
 public class DrawPile implements Pile {
-  private final List<Card> cards;
+  private Card[] cards;  // circular buffer, the top card is at index head
+  private int head;
+  private int size;
   private final int numDraw;  // max cards visible
+  private final PileView cardsView = new PileView(() -> size, index -> cards[slot(index)]);
+  private final PileView visibleView;
 
   /**
    * Creates an empty draw pile with specified draw count.
@@ -21,8 +27,11 @@ public class DrawPile implements Pile {
     if (numDraw <= 0) {
       throw new IllegalArgumentException("Number of draw cards must be positive");
     }
-    this.cards = new ArrayList<>();
+    this.cards = new Card[16];
+    this.head = 0;
+    this.size = 0;
     this.numDraw = numDraw;
+    this.visibleView = new PileView(() -> Math.min(numDraw, size), index -> cards[slot(index)]);
   }
 
   @Override
@@ -30,7 +39,10 @@ public class DrawPile implements Pile {
     if (card == null) {
       throw new IllegalArgumentException("Card cannot be null");
     }
-    cards.add(card);
+    ensureRoomForCard();
+    cards[slot(size)] = card;
+    size++;
+    changed();
   }
 
   /**
@@ -59,7 +71,12 @@ public class DrawPile implements Pile {
     if (isEmpty()) {
       throw new IllegalStateException("Cannot remove from empty draw pile");
     }
-    return cards.removeFirst();  // Remove from top of draw pile
+    Card top = cards[head];  // Remove from top of draw pile
+    cards[head] = null;
+    head = slot(1);
+    size--;
+    changed();
+    return top;
   }
 
   /**
@@ -71,16 +88,90 @@ public class DrawPile implements Pile {
     if (isEmpty()) {
       throw new IllegalStateException("Cannot discard from empty draw pile");
     }
-    Card topCard = cards.removeFirst();
-    cards.add(topCard);
+    int bottom = slot(size);  // the free slot after the bottom card
+    if (bottom != head) {
+      cards[bottom] = cards[head];
+      cards[head] = null;
+    }
+    head = slot(1);
+    changed();
+  }
+
+  /**
+   * Puts a card back on top of the draw pile, reversing {@link #removeCard()}.
+   *
+   * @param card the card to put back
+   * @throws IllegalArgumentException if the card is null
+   */
+  public void addTopCard(Card card) throws IllegalArgumentException {
+    if (card == null) {
+      throw new IllegalArgumentException("Card cannot be null");
+    }
+    ensureRoomForCard();
+    head = slot(cards.length - 1);
+    cards[head] = card;
+    size++;
+    changed();
+  }
+
+  /**
+   * Moves the bottom card of the draw pile back to the top, reversing
+   * {@link #discardTopCard()}.
+   *
+   * @throws IllegalStateException if the pile is empty
+   */
+  public void undoDiscard() throws IllegalStateException {
+    if (isEmpty()) {
+      throw new IllegalStateException("Cannot undo a discard of an empty draw pile");
+    }
+    int bottom = slot(size - 1);
+    head = slot(cards.length - 1);
+    if (bottom != head) {
+      cards[head] = cards[bottom];
+      cards[bottom] = null;
+    }
+    changed();
+  }
+
+  /**
+   * Records that the pile changed, so that iterators over its views fail.
+   */
+  private void changed() {
+    cardsView.changed();
+    visibleView.changed();
+  }
+
+  /**
+   * Gets the index in the circular buffer of the card at a position of the draw pile.
+   *
+   * @param index the position in the draw pile, counting from the top card
+   * @return the index in the buffer
+   */
+  private int slot(int index) {
+    int slot = head + index;
+    return slot < cards.length ? slot : slot - cards.length;
+  }
+
+  /**
+   * Doubles the circular buffer if it is full, moving the top card to index 0.
+   */
+  private void ensureRoomForCard() {
+    if (size == cards.length) {
+      Card[] grown = new Card[cards.length * 2];
+      int firstPart = cards.length - head;
+      System.arraycopy(cards, head, grown, 0, firstPart);
+      System.arraycopy(cards, 0, grown, firstPart, head);
+      cards = grown;
+      head = 0;
+    }
   }
 
   @Override
   public Card getCardAt(int index) throws IllegalArgumentException {
-    if (index < 0 || index >= cards.size()) {
+    if (index < 0 || index >= size) {
       throw new IllegalArgumentException("Invalid index: " + index);
     }
-    return cards.get(index);
+    return cards[slot(index)];
   }
 
   /**
@@ -93,37 +184,33 @@ public class DrawPile implements Pile {
     if (isEmpty()) {
       throw new IllegalStateException("Draw pile is empty");
     }
-    return cards.getFirst();
+    return cards[head];
   }
 
   /**
-   * Gets the currently visible draw cards.
+   * Gets a read-only view of the currently visible draw cards, which is live like the view
+   * returned by {@link #getCards()}.
    * The number of visible cards is limited by numDraw.
    *
-   * @return a list of visible draw cards
+   * @return a view of the visible draw cards
    */
   public List<Card> getVisibleCards() {
-    List<Card> visible = new ArrayList<>();
-    int count = Math.min(numDraw, cards.size());
-    for (int i = 0; i < count; i++) {
-      visible.add(cards.get(i));
-    }
-    return visible;
+    return visibleView;
   }
 
   @Override
   public int size() {
-    return cards.size();
+    return size;
   }
 
   @Override
   public boolean isEmpty() {
-    return cards.isEmpty();
+    return size == 0;
   }
 
   @Override
   public List<Card> getCards() {
-    return new ArrayList<>(cards);
+    return cardsView;
   }
 
   /**
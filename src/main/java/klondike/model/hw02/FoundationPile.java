@@ -1,22 +1,27 @@
 package klondike.model.hw02;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * A class representing a foundation pile in Klondike Solitaire.
  * Foundation piles accept cards starting with Ace and building up to King in the same suit.
+ *
+ * <p>Since a foundation pile always holds a run from the Ace up, its whole state is its suit
+ * and the value of its top card. The cards themselves are created on demand from those.
  */
 public class FoundationPile implements Pile {
-  private final List<Card> cards;
   private Suit suit;
+  private int topValue;  // 0 when the pile is empty, which is also the number of cards
+  // the view uses the private cardAt, since calling getCardAt from here would let a subclass
+  // see the pile before it is constructed
+  private final PileView cardsView = new PileView(() -> topValue, this::cardAt);
 
   /**
    * Creates an empty foundation pile.
    */
   public FoundationPile() {
-    this.cards = new ArrayList<>();
     this.suit = null;
+    this.topValue = 0;
   }
 
   /**
@@ -47,18 +52,17 @@ public class FoundationPile implements Pile {
       this.suit = playingCard.getSuitEnum();
     } else {
 
-      PlayingCard topCard = (PlayingCard) cards.getLast();
-
       if (playingCard.getSuitEnum() != this.suit) {
         throw new IllegalStateException("Card must be same suit as foundation pile");
       }
 
-      if (playingCard.getValue() != topCard.getValue() + 1) {
+      if (playingCard.getValue() != topValue + 1) {
         throw new IllegalStateException("Card must be one value higher than top card");
       }
     }
 
-    cards.add(card);
+    topValue++;
+    cardsView.changed();
   }
 
   @Override
@@ -67,7 +71,9 @@ public class FoundationPile implements Pile {
       throw new IllegalStateException("Cannot remove from empty foundation pile");
     }
 
-    Card removed = cards.removeLast();
+    Card removed = getTopCard();
+    topValue--;
+    cardsView.changed();
 
     // if pile empty, reset the suit
     if (isEmpty()) {
@@ -79,10 +85,20 @@ public class FoundationPile implements Pile {
 
   @Override
   public Card getCardAt(int index) throws IllegalArgumentException {
-    if (index < 0 || index >= cards.size()) {
+    if (index < 0 || index >= topValue) {
       throw new IllegalArgumentException("Invalid index: " + index);
     }
-    return cards.get(index);
+    return cardAt(index);
+  }
+
+  /**
+   * Creates the card at an index of the pile, which must be in bounds.
+   *
+   * @param index the index of the card, which is one less than its value
+   * @return the card
+   */
+  private Card cardAt(int index) {
+    return PlayingCard.of(suit.ordinal() * 13 + index);  // the card at index i has value i + 1
   }
 
   /**
@@ -94,22 +110,31 @@ public class FoundationPile implements Pile {
     if (isEmpty()) {
       return null;
     }
-    return cards.getLast();
+    return getCardAt(topValue - 1);
+  }
+
+  /**
+   * Gets the value of the top card of the foundation pile without creating the card.
+   *
+   * @return the value of the top card, or 0 if the pile is empty
+   */
+  public int getTopValue() {
+    return topValue;
   }
 
   @Override
   public int size() {
-    return cards.size();
+    return topValue;
   }
 
   @Override
   public boolean isEmpty() {
-    return cards.isEmpty();
+    return topValue == 0;
   }
 
   @Override
   public List<Card> getCards() {
-    return new ArrayList<>(cards);
+    return cardsView;
   }
 
   /**
@@ -132,12 +157,7 @@ public class FoundationPile implements Pile {
       return false;
     }
 
-    if (isEmpty()) {
-      return playingCard.getValueEnum() == Value.ACE;
-    }
-
-    PlayingCard topCard = (PlayingCard) getTopCard();
-    return playingCard.getSuitEnum() == this.suit
-        && playingCard.getValue() == topCard.getValue() + 1;
+    return playingCard.getValue() == topValue + 1
+        && (topValue == 0 || playingCard.getSuitEnum() == this.suit);
   }
 }
\ No newline at end of file
@@ -24,4 +24,24 @@ public interface KlondikeCard extends Card {
    * @return true if the card is black, false otherwise
    */
   boolean isBlack();
+
+  /**
+   * Returns a number from 0 to 51 that identifies the value and suit of the card, so that
+   * tables about cards can be plain arrays indexed by card. Suits are numbered in the order
+   * ♣, ♢, ♡, ♠, and the ordinal is the suit number times 13 plus the value minus 1.
+   *
+   * <p>By default the ordinal is worked out from {@link #getSuit()} and {@link #getValue()}
+   * on every call, so existing cards keep working; {@link PlayingCard} computes it once.
+   *
+   * @return the ordinal of the card
+   * @throws IllegalStateException if the suit of the card is not one of the four suits
+   */
+  default int ordinal() throws IllegalStateException {
+    for (Suit suit : Suit.values()) {
+      if (suit.getSymbol().equals(getSuit())) {
+        return suit.ordinal() * 13 + getValue() - 1;
+      }
+    }
+    throw new IllegalStateException("Unknown suit: " + getSuit());
+  }
 }
@@ -47,9 +47,12 @@ public interface Pile {
   boolean isEmpty();
 
   /**
-   * Gets a list of all cards in the pile.
+   * Gets a read-only view of all cards in the pile. The view is live: it always shows the pile
+   * as it is now, and an iterator over it throws a ConcurrentModificationException if the pile
+   * changes while it is in use. Reading the view does not copy the cards, so callers that need
+   * the cards as they were at some point must copy it.
    *
-   * @return a list of cards in the pile
+   * @return a view of the cards in the pile
    */
   List<Card> getCards();
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package klondike.model.hw02;
+
+import java.util.AbstractList;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+/**
+ * A read-only list that shows the cards of a pile without copying them. A pile creates its
+ * views once and returns the same view on every call, so reading a pile allocates nothing.
+ *
+ * <p>A view is live: it always shows the pile as it is now, not as it was when the view was
+ * returned. Any attempt to modify the view throws an UnsupportedOperationException. The pile
+ * reports each change it goes through, so an iterator over the view throws a
+ * ConcurrentModificationException if the pile changes while it is in use. Callers that need
+ * the cards as they were at some point must copy the view.
+ */
+final class PileView extends AbstractList<Card> implements RandomAccess {
+  private final IntSupplier size;
+  private final IntFunction<Card> cardAt;
+
+  /**
+   * Creates a view of a pile.
+   *
+   * @param size   gives the number of cards shown by the view
+   * @param cardAt gives the card at an index of the view, which is always in bounds
+   */
+  PileView(IntSupplier size, IntFunction<Card> cardAt) {
+    this.size = size;
+    this.cardAt = cardAt;
+  }
+
+  @Override
+  public Card get(int index) {
+    return cardAt.apply(Objects.checkIndex(index, size.getAsInt()));
+  }
+
+  @Override
+  public int size() {
+    return size.getAsInt();
+  }
+
+  /**
+   * Records that the pile changed, so that iterators in use fail.
+   */
+  void changed() {
+    modCount++;
+  }
+}
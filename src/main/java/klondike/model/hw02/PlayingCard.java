@@ -1,14 +1,30 @@
 package klondike.model.hw02;
 
-import java.util.Objects;
-
 /**
  * A class representing a standard playing card. A card consists of a value (A, 2-10, J, Q, K)
  * and a suit (♣, ♢, ♡, ♠).
+ *
+ * <p>Cards are immutable, so the 52 distinct cards are interned in a shared table and
+ * {@link #of(Value, Suit)} returns the same instance for the same value and suit. Each card
+ * computes its ordinal, color and display string once, when it is created.
  */
 public class PlayingCard implements KlondikeCard {
+  private static final PlayingCard[] CARDS = new PlayingCard[52];
+
+  static {
+    for (Suit suit : Suit.values()) {
+      for (Value value : Value.values()) {
+        PlayingCard card = new PlayingCard(value, suit);
+        CARDS[card.ordinal] = card;
+      }
+    }
+  }
+
   private final Value value;
   private final Suit suit;
+  private final int ordinal;
+  private final boolean black;
+  private final String display;
 
   /**
    * Constructs a playing card with the given value and suit.
@@ -26,6 +42,41 @@ public class PlayingCard implements KlondikeCard {
     }
     this.value = value;
     this.suit = suit;
+    this.ordinal = suit.ordinal() * 13 + value.ordinal();
+    this.black = suit.isBlack();
+    this.display = value.getDisplay() + suit.getSymbol();
+  }
+
+  /**
+   * Gets the shared playing card with the given value and suit.
+   *
+   * @param value the value of the card (A, 2-10, J, Q, or K)
+   * @param suit  the suit of the card (♣, ♢, ♡, ♠)
+   * @return the interned card
+   * @throws IllegalArgumentException if value or suit is null
+   */
+  public static PlayingCard of(Value value, Suit suit) {
+    if (value == null) {
+      throw new IllegalArgumentException("Card value cannot be null");
+    }
+    if (suit == null) {
+      throw new IllegalArgumentException("Card suit cannot be null");
+    }
+    return CARDS[suit.ordinal() * 13 + value.ordinal()];
+  }
+
+  /**
+   * Gets the shared playing card with the given ordinal.
+   *
+   * @param ordinal the ordinal of the card, from 0 to 51
+   * @return the interned card
+   * @throws IllegalArgumentException if the ordinal is out of range
+   */
+  public static PlayingCard of(int ordinal) {
+    if (ordinal < 0 || ordinal >= CARDS.length) {
+      throw new IllegalArgumentException("Invalid card ordinal: " + ordinal);
+    }
+    return CARDS[ordinal];
   }
 
   /**
@@ -43,18 +94,17 @@ public class PlayingCard implements KlondikeCard {
     if (!(o instanceof PlayingCard)) {
       return false;
     }
-    PlayingCard that = (PlayingCard) o;
-    return this.value == that.value && this.suit == that.suit;
+    return this.ordinal == ((PlayingCard) o).ordinal;
   }
 
   /**
-   * Returns a hash code value for this card.
+   * Returns a hash code value for this card, which is its ordinal.
    *
    * @return a hash code for this card
    */
   @Override
   public int hashCode() {
-    return Objects.hash(value, suit);
+    return ordinal;
   }
 
   /**
@@ -64,7 +114,7 @@ public class PlayingCard implements KlondikeCard {
    */
   @Override
   public String toString() {
-    return value.getDisplay() + suit.getSymbol();
+    return display;
   }
 
   @Override
@@ -79,7 +129,12 @@ public class PlayingCard implements KlondikeCard {
 
   @Override
   public boolean isBlack() {
-    return suit.isBlack();
+    return black;
+  }
+
+  @Override
+  public int ordinal() {
+    return ordinal;
   }
 
   /**
@@ -1,14 +1,17 @@
 package klondike.model.hw04;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
 import klondike.model.hw02.Card;
 import klondike.model.hw02.CascadePile;
 import klondike.model.hw02.DrawPile;
 import klondike.model.hw02.FoundationPile;
 import klondike.model.hw02.KlondikeCard;
-import klondike.model.hw02.KlondikeModel;
 import klondike.model.hw02.PlayingCard;
 import klondike.model.hw02.Suit;
 import klondike.model.hw02.Value;
@@ -16,12 +19,28 @@ import klondike.model.hw02.Value;
 /**
  * An abstract class representing a basic version of Klondike.
  * Allows modification to rules for how cards are stacked on piles.
+ *
+ * <p>The stacking rules of a variant are asked once per variant class about every pair of
+ * cards, and then looked up by card ordinal in {@link VariantRules} tables, so they must only
+ * depend on the cards they are given.
  */
-public abstract class AbstractKlondike implements KlondikeModel<Card> {
+public abstract class AbstractKlondike
+    implements ExtendedKlondikeModel<Card>, UncheckedBoard<Card> {
   protected List<CascadePile> cascadePiles;
   protected List<FoundationPile> foundationPiles;
   protected DrawPile drawPile;
   protected boolean gameStarted;
+  private long stateHash;
+  private StockHash stockHash = new StockHash();
+  private int score;
+  private Card[] cardsById;
+  private VariantRules rules;
+  private final MoveJournal journal = new MoveJournal();
+  private final MobilityTracker mobility = new MobilityTracker();
+  private final CardLocator locator = new CardLocator();
+  private final SuitFoundations suitFoundations = new SuitFoundations();
+  private final HeightHistogram heightCounts = new HeightHistogram();
+  private final DrawView drawView = new DrawView();
 
   /**
    * Determines whether a card at a specific position should be visible when dealing.
@@ -62,7 +81,7 @@ public abstract class AbstractKlondike implements KlondikeModel<Card> {
     List<Card> deck = new ArrayList<>();
     for (Suit suit : Suit.values()) {
       for (Value value : Value.values()) {
-        deck.add(new PlayingCard(value, suit));
+        deck.add(PlayingCard.of(value, suit));
       }
     }
     return deck;
@@ -84,22 +103,34 @@ public abstract class AbstractKlondike implements KlondikeModel<Card> {
       throw new IllegalArgumentException("Not enough cards to deal");
     }
 
-    List<Card> checkedDeck = new ArrayList<>(deck);
+    List<Card> undealt = new ArrayList<>(deck);
     if (shuffle) {
-      Collections.shuffle(checkedDeck);
+      Collections.shuffle(undealt);
     }
-    this.cascadePiles = new ArrayList<>();
+    this.cascadePiles = new ArrayList<>(numPiles);
     this.foundationPiles = new ArrayList<>();
     this.drawPile = new DrawPile(numDraw);
+    this.rules = VariantRules.of(this);
 
-    dealCascadePiles(checkedDeck, numPiles);
+    dealCascadePiles(undealt, numPiles);
     setupFoundationPiles(deck);
 
     // adds remaining cards to draw pile
-    for (Card card : checkedDeck) {
+    for (Card card : undealt) {
       drawPile.addCard(card);
     }
 
+    this.cardsById = new Card[52];
+    for (Card card : deck) {
+      cardsById[cardId(card)] = card;
+    }
+    this.stateHash = computeStateHash();
+    this.stockHash = hashDrawPile();
+    this.score = 0;
+    resetMobility();
+    resetLocator();
+    resetHeights();
+    drawView.changed();
     this.gameStarted = true;
   }
 
@@ -111,7 +142,7 @@ public abstract class AbstractKlondike implements KlondikeModel<Card> {
    * @param numPiles the number of cascade piles
    * @param numDraw  the maximum number of draw cards available at a time
    */
-  private void validParameters(List<Card> deck, int numPiles, int numDraw) {
+  static void validParameters(List<Card> deck, int numPiles, int numDraw) {
     if (deck == null) {
       throw new IllegalArgumentException("Deck cannot be null");
     }
@@ -127,64 +158,51 @@ public abstract class AbstractKlondike implements KlondikeModel<Card> {
   }
 
   /**
-   * Checks if a deck is valid by organizing cards into their suits.
-   * Calls checkAllSuits for further validation.
+   * Checks if a deck is valid by counting how many times each card appears, in a single pass
+   * over the deck. Every card must be a playing card, every suit in the deck must have the same
+   * number of cards, and the cards of each suit must form runs from the Ace up.
    * Returns true if valid, false otherwise
    *
    * @param deck the deck of cards to be dealt
    * @return true if the deck is valid, false otherwise
    */
-  private boolean isValidDeck(List<Card> deck) {
+  static boolean isValidDeck(List<Card> deck) {
+    int[][] valueCounts = new int[Suit.values().length][14];  // index 0 unused, 1-13 for values
+    int[] suitSizes = new int[Suit.values().length];
     for (Card card : deck) {
-      if (card == null) {
-        return false;  // if card is null, return false
+      if (!(card instanceof PlayingCard pc)) {
+        return false;  // if card is null or cannot be grouped into a suit, return false
       }
+      int suit = pc.getSuitEnum().ordinal();
+      valueCounts[suit][pc.getValue()]++;
+      suitSizes[suit]++;
     }
-    // group cards by suit
-    List<List<Card>> suitGroups = new ArrayList<>();
-    for (Suit suit : Suit.values()) {
-      List<Card> suitCards = new ArrayList<>();
-      for (Card card : deck) {
-        if (card instanceof PlayingCard pc && pc.getSuitEnum() == suit) {
-          suitCards.add(card);
-        }
-      }
-      if (!suitCards.isEmpty()) {
-        suitGroups.add(suitCards);
+    int expectedSize = 0;
+    for (int suit = 0; suit < suitSizes.length; suit++) {
+      if (suitSizes[suit] == 0) {
+        continue;  // suits missing from the deck are not checked
       }
-    }
-    if (suitGroups.isEmpty()) {
-      return false;
-    }
-    // all suits have same number of cards
-    int expectedSize = suitGroups.getFirst().size();
-    for (List<Card> suitCards : suitGroups) {
-      if (suitCards.size() != expectedSize) {
-        return false;
+      if (expectedSize == 0) {
+        expectedSize = suitSizes[suit];
       }
-      if (!hasValidRunsForSuit(suitCards)) {
+      // all suits have same number of cards
+      if (suitSizes[suit] != expectedSize || !hasValidRunsForSuit(valueCounts[suit])) {
         return false;
       }
     }
-    return true;
+    return expectedSize > 0;
   }
 
   /**
-   * Checks if cards of the same suit have a valid run. Confirms that every list of cards has
-   * an ace, discovers how long the run ends, and if there are any gaps in the run. Returns
-   * false if there is no ace in the run, not all values are appear the same amount of times,
-   * or if there are gaps in the run. Returns true if all criteria met.
+   * Checks if cards of the same suit have a valid run. Confirms that the suit has an ace,
+   * discovers how long the run ends, and if there are any gaps in the run. Returns false if
+   * there is no ace in the run, not all values are appear the same amount of times, or if
+   * there are gaps in the run. Returns true if all criteria met.
    *
-   * @param suitCards a list of cards of the same suit
+   * @param valueCounts the number of cards of each value in the suit, indexed by value
    * @return true if the run is valid, false otherwise
    */
-  private boolean hasValidRunsForSuit(List<Card> suitCards) {
-    // count number of each value we have
-    int[] valueCounts = new int[14];  // index 0 unused, 1-13 for card values
-    for (Card card : suitCards) {
-      int value = ((KlondikeCard) card).getValue();
-      valueCounts[value]++;
-    }
+  private static boolean hasValidRunsForSuit(int[] valueCounts) {
     // should have at least one ace
     if (valueCounts[1] == 0) {
       return false;
@@ -215,34 +233,30 @@ public abstract class AbstractKlondike implements KlondikeModel<Card> {
    * Deals the cascade piles by creating the number of piles specified as an argument.
    * Creates triangle formation by ensuring each pile gets cards equal to its position
    * (pile 1 gets 1 card, pile 2 gets 2...). Only the bottom card of each pile is face-up.
+   * The cards are taken from the front of the deck in order, and the dealt cards are then
+   * removed from the deck all at once, leaving the cards for the draw pile.
    *
    * @param deck     the deck to be dealt in cascade piles
    * @param numPiles the number of cascade piles
    */
   protected void dealCascadePiles(List<Card> deck, int numPiles) {
     for (int i = 0; i < numPiles; i++) {
-      cascadePiles.add(new CascadePile());
+      cascadePiles.add(newCascadePile());
     }
 
-    int cardIndex = 0;
-
+    Iterator<Card> cards = deck.iterator();
+    int dealt = 0;
     // row determines where to put cards horizontally
     for (int row = 0; row < numPiles; row++) { // which row we are dealing
-      for (int pile = row; pile < numPiles; pile++) { // which piles get cards this row
-        if (cardIndex >= deck.size()) {
-          break;
-        }
-        Card card = deck.get(cardIndex);
+      for (int pile = row; pile < numPiles && cards.hasNext(); pile++) { // piles of this row
         boolean visible = shouldCardBeVisible(row, pile);
-        cascadePiles.get(pile).addCard(card, visible);
-        cardIndex++;
+        cascadePiles.get(pile).addCard(cards.next(), visible);
+        dealt++;
       }
     }
 
-    // remove cards dealt from deck
-    for (int i = 0; i < cardIndex; i++) {
-      deck.removeFirst();
-    }
+    // remove cards dealt from deck, shifting the rest only once
+    deck.subList(0, dealt).clear();
   }
 
   /**
@@ -277,38 +291,91 @@ public abstract class AbstractKlondike implements KlondikeModel<Card> {
     if (srcPile == destPile) {
       throw new IllegalArgumentException("Source pile cannot be the same as destination pile");
     }
+    if (numCards <= 0) {
+      throw new IllegalArgumentException("Number of cards to move must be positive");
+    }
     CascadePile source = cascadePiles.get(srcPile);
     if (source.size() < numCards) {
       throw new IllegalArgumentException("Source pile does not have enough cards to move");
     }
-    int startPos = source.size() - numCards;
-    for (int i = startPos; i < source.size(); i++) {
-      if (!source.isCardVisible(i)) {
-        throw new IllegalArgumentException("All cards to move must be visible");
-      }
-    }
-    List<Card> cardsToCheck = new ArrayList<>();
-    for (int i = startPos; i < source.size(); i++) {
-      cardsToCheck.add(source.getCardAt(i));
+    if (!isVisibleRun(source, numCards)) {
+      throw new IllegalArgumentException("All cards to move must be visible");
     }
-    if (!isValidCardSequence(cardsToCheck)) {
+    if (!isValidRun(source, numCards)) {
       throw new IllegalStateException("Cards do not form a valid sequence for this game variant");
     }
 
     // validate move
     CascadePile dest = cascadePiles.get(destPile);
+    int startPos = source.size() - numCards;
     Card topCardToMove = source.getCardAt(startPos);
     validateCascadeMove(topCardToMove, dest);
 
     // Perform move
-    List<Card> cardsToMove = new ArrayList<>();
-    for (int i = 0; i < numCards; i++) {
-      cardsToMove.addFirst(source.removeCard());
-    }
+    boolean flips = revealsCard(source, numCards);
+    transferCascade(srcPile, numCards, destPile);
+    updateMobility(srcPile, destPile);
+    journal.record(KlondikeMove.pileToPile(srcPile, numCards, destPile), flips);
+  }
+
+  /**
+   * Checks if removing cards from the bottom of a cascade pile will turn the card above them
+   * face-up.
+   *
+   * @param source   the cascade pile
+   * @param numCards the number of cards to be removed
+   * @return true if a face-down card will be revealed, false otherwise
+   */
+  private boolean revealsCard(CascadePile source, int numCards) {
+    return numCards < source.size() && source.getFirstVisibleIndex() == source.size() - numCards;
+  }
 
-    for (Card card : cardsToMove) {
-      dest.addCard(card, true);
+  @Override
+  public boolean canMovePile(int srcPile, int numCards, int destPile) {
+    if (!gameStarted || !isCascadePileIndex(srcPile) || !isCascadePileIndex(destPile)
+        || srcPile == destPile || numCards <= 0) {
+      return false;
+    }
+    CascadePile source = cascadePiles.get(srcPile);
+    if (source.size() < numCards
+        || !isVisibleRun(source, numCards) || !isValidRun(source, numCards)) {
+      return false;
     }
+    Card topCardToMove = source.getCardAt(source.size() - numCards);
+    return canPlaceOnCascade(topCardToMove, cascadePiles.get(destPile));
+  }
+
+  /**
+   * Checks if the bottom cards of a cascade pile are all face-up.
+   *
+   * @param source   the cascade pile to check
+   * @param numCards the number of cards at the bottom of the pile to check
+   * @return true if all of those cards are visible, false otherwise
+   */
+  private boolean isVisibleRun(CascadePile source, int numCards) {
+    return source.size() - numCards >= source.getFirstVisibleIndex();
+  }
+
+  /**
+   * Checks if the bottom cards of a cascade pile form a sequence that can be moved together,
+   * which the pile knows from the length of the movable run it keeps.
+   *
+   * @param source   the cascade pile to check
+   * @param numCards the number of cards at the bottom of the pile to check
+   * @return true if those cards form a valid sequence for this game variant, false otherwise
+   */
+  private boolean isValidRun(CascadePile source, int numCards) {
+    return numCards <= source.getRunLength();
+  }
+
+  /**
+   * Creates an empty cascade pile that keeps its movable run by looking up each pair of
+   * neighbouring cards in the sequence table of the variant.
+   *
+   * @return the new pile
+   */
+  private CascadePile newCascadePile() {
+    return new CascadePile((prev, next) -> rules.continuesRun(cardId(prev), cardId(next)));
   }
 
   /**
@@ -317,23 +384,39 @@ public abstract class AbstractKlondike implements KlondikeModel<Card> {
    * Empty cascade piles can only accept Kings.
    */
   protected void validateCascadeMove(Card cardToMove, CascadePile dest) {
-    if (!(cardToMove instanceof PlayingCard movingCard)) {
+    if (canPlaceOnCascade(cardToMove, dest)) {
+      return;
+    }
+    if (!(cardToMove instanceof PlayingCard)) {
       throw new IllegalStateException("Invalid card type");
     }
+    if (dest.isEmpty()) {
+      throw new IllegalStateException("This card cannot be placed on empty pile");
+    }
+    if (!(dest.getBottomVisibleCard() instanceof PlayingCard)) {
+      throw new IllegalStateException("Invalid card type");
+    }
+    throw new IllegalStateException("This card cannot be placed here");
+  }
 
+  /**
+   * Checks if a card can be placed at the bottom of a cascade pile, without throwing.
+   * Shares the rules of {@link #validateCascadeMove(Card, CascadePile)}, looked up by card
+   * ordinal in the rule tables of the variant, which are filled from
+   * {@link #canPlaceOnEmptyPile(Card)} and {@link #canStackCards(Card, Card)}.
+   *
+   * @param cardToMove the card to be placed
+   * @param dest       the destination cascade pile
+   * @return true if the card can be placed on the pile, false otherwise
+   */
+  protected boolean canPlaceOnCascade(Card cardToMove, CascadePile dest) {
+    if (!(cardToMove instanceof KlondikeCard)) {
+      return false;
+    }
     if (dest.isEmpty()) {
-      if (!canPlaceOnEmptyPile(movingCard)) {
-        throw new IllegalStateException("This card cannot be placed on empty pile");
-      }
-    } else {
-      Card destBottom = dest.getBottomVisibleCard();
-      if (!(destBottom instanceof PlayingCard destCard)) {
-        throw new IllegalStateException("Invalid card type");
-      }
-      if (!canStackCards(destBottom, movingCard)) {
-        throw new IllegalStateException("This card cannot be placed here");
-      }
+      return rules.canPlaceOnEmpty(cardId(cardToMove));
     }
+    return rules.canStack(cardId(dest.getBottomVisibleCard()), cardId(cardToMove));
   }
 
   @Override
@@ -350,8 +433,18 @@ public abstract class AbstractKlondike implements KlondikeModel<Card> {
 
     validateCascadeMove(drawCard, dest);
 
-    drawPile.removeCard();
-    dest.addCard(drawCard, true);
+    takeDrawTop();
+    pushCascade(destPile, drawCard, true);
+    updateMobility(destPile);
+    journal.record(KlondikeMove.drawToPile(destPile), false);
+  }
+
+  @Override
+  public boolean canMoveDraw(int destPile) {
+    if (!gameStarted || !isCascadePileIndex(destPile) || drawPile.isEmpty()) {
+      return false;
+    }
+    return canPlaceOnCascade(drawPile.getTopCard(), cascadePiles.get(destPile));
   }
 
   @Override
@@ -380,8 +473,23 @@ public abstract class AbstractKlondike implements KlondikeModel<Card> {
       }
     }
 
-    pile.removeCard();
-    foundation.addCard(bottomCard);
+    boolean flips = revealsCard(pile, 1);
+    popCascade(srcPile);
+    pushFoundation(foundationPile, bottomCard);
+    updateMobility(srcPile);
+    journal.record(KlondikeMove.pileToFoundation(srcPile, foundationPile), flips);
+  }
+
+  @Override
+  public boolean canMoveToFoundation(int srcPile, int foundationPile) {
+    if (!gameStarted || !isCascadePileIndex(srcPile) || !isFoundationPileIndex(foundationPile)) {
+      return false;
+    }
+    CascadePile pile = cascadePiles.get(srcPile);
+    if (pile.isEmpty() || !pile.isCardVisible(pile.size() - 1)) {
+      return false;
+    }
+    return foundationPiles.get(foundationPile).canAddCard(pile.getCardAt(pile.size() - 1));
   }
 
   @Override
@@ -402,8 +510,58 @@ public abstract class AbstractKlondike implements KlondikeModel<Card> {
       }
     }
 
-    drawPile.removeCard();
-    foundation.addCard(drawCard);
+    takeDrawTop();
+    pushFoundation(foundationPile, drawCard);
+    journal.record(KlondikeMove.drawToFoundation(foundationPile), false);
+  }
+
+  @Override
+  public boolean canMoveDrawToFoundation(int foundationPile) {
+    if (!gameStarted || !isFoundationPileIndex(foundationPile) || drawPile.isEmpty()) {
+      return false;
+    }
+    return foundationPiles.get(foundationPile).canAddCard(drawPile.getTopCard());
+  }
+
+  @Override
+  public void moveToSuitFoundation(int srcPile)
+      throws IllegalArgumentException, IllegalStateException {
+    isGameNotStarted();
+    if (srcPile < 0 || srcPile >= cascadePiles.size()) {
+      throw new IllegalArgumentException("Source pile out of bounds");
+    }
+    CascadePile pile = cascadePiles.get(srcPile);
+    if (pile.isEmpty()) {
+      throw new IllegalStateException("Source pile is empty");
+    }
+    if (!pile.isCardVisible(pile.size() - 1)) {
+      throw new IllegalStateException("No visible cards in source pile");
+    }
+    moveToFoundation(srcPile, findSuitFoundation(pile.getCardAt(pile.size() - 1)));
+  }
+
+  @Override
+  public void moveDrawToSuitFoundation() throws IllegalStateException {
+    isGameNotStarted();
+    if (drawPile.isEmpty()) {
+      throw new IllegalStateException("Draw pile is empty");
+    }
+    moveDrawToFoundation(findSuitFoundation(drawPile.getTopCard()));
+  }
+
+  /**
+   * Finds the foundation pile a card belongs on from the suit of the card.
+   *
+   * @param card the card to place
+   * @return the index of a foundation pile that accepts the card
+   * @throws IllegalStateException if no foundation pile accepts the card
+   */
+  private int findSuitFoundation(Card card) throws IllegalStateException {
+    int foundationPile = suitFoundations.find(cardId(card));
+    if (foundationPile < 0) {
+      throw new IllegalStateException("No foundation pile accepts the card");
+    }
+    return foundationPile;
   }
 
   @Override
@@ -412,124 +570,662 @@ public abstract class AbstractKlondike implements KlondikeModel<Card> {
     if (drawPile.isEmpty()) {
       throw new IllegalStateException("No draw cards to discard");
     }
-    drawPile.discardTopCard();
+    rotateDraw(true);
+    journal.record(KlondikeMove.discardDraw(), false);
   }
 
   @Override
-  public int getNumRows() throws IllegalStateException {
+  public boolean canUndo() {
+    return gameStarted && journal.canUndo();
+  }
+
+  @Override
+  public void undo() throws IllegalStateException {
     isGameNotStarted();
-    int maxHeight = 0;
-    for (CascadePile pile : cascadePiles) {
-      maxHeight = Math.max(maxHeight, pile.size());
+    long entry = journal.popUndo();
+    int move = MoveJournal.move(entry);
+    boolean flipped = MoveJournal.flipped(entry);
+    switch (KlondikeMove.type(move)) {
+      case KlondikeMove.PILE_TO_PILE:
+        if (flipped) {
+          hideRevealedCard(KlondikeMove.source(move));
+        }
+        transferCascade(KlondikeMove.destination(move), KlondikeMove.numCards(move),
+            KlondikeMove.source(move));
+        updateMobility(KlondikeMove.source(move), KlondikeMove.destination(move));
+        break;
+      case KlondikeMove.DRAW_TO_PILE:
+        putDrawTop(popCascade(KlondikeMove.destination(move)));
+        updateMobility(KlondikeMove.destination(move));
+        break;
+      case KlondikeMove.PILE_TO_FOUNDATION:
+        Card card = popFoundation(KlondikeMove.destination(move));
+        if (flipped) {
+          hideRevealedCard(KlondikeMove.source(move));
+        }
+        pushCascade(KlondikeMove.source(move), card, true);
+        updateMobility(KlondikeMove.source(move));
+        break;
+      case KlondikeMove.DRAW_TO_FOUNDATION:
+        putDrawTop(popFoundation(KlondikeMove.destination(move)));
+        break;
+      default:
+        rotateDraw(false);
+        break;
+    }
+  }
+
+  /**
+   * Turns the bottom card of a cascade pile face-down again, before an undo puts back the cards
+   * whose move had revealed it.
+   *
+   * @param pileNum the cascade pile the cards came from
+   */
+  private void hideRevealedCard(int pileNum) {
+    CascadePile pile = cascadePiles.get(pileNum);
+    int depth = pile.size() - 1;
+    Card hidden = pile.getCardAt(depth);
+    pile.turnBottomCardFaceDown();
+    stateHash ^= ZobristKeys.cascade(cardId(hidden), pileNum, depth, true)
+        ^ ZobristKeys.cascade(cardId(hidden), pileNum, depth, false);
+  }
+
+  /**
+   * Moves a run of face-up cards from the bottom of one cascade pile to the bottom of another
+   * with {@link CascadePile#transferTo(CascadePile, int)}, turning the card above them face-up
+   * if it was the last visible card. Moves between cascade piles go through this method so
+   * that the state hash and card locations stay up to date.
+   *
+   * @param srcPile  the cascade pile to move the cards from
+   * @param numCards the number of cards to move
+   * @param destPile the cascade pile to move the cards to
+   */
+  private void transferCascade(int srcPile, int numCards, int destPile) {
+    CascadePile source = cascadePiles.get(srcPile);
+    CascadePile dest = cascadePiles.get(destPile);
+    int start = source.size() - numCards;
+    int firstVisible = source.getFirstVisibleIndex();
+    for (int i = 0; i < numCards; i++) {
+      int id = cardId(source.getCardAt(start + i));
+      stateHash ^= ZobristKeys.cascade(id, srcPile, start + i, true)
+          ^ ZobristKeys.cascade(id, destPile, dest.size() + i, true);
+      locator.remove(id, CardLocation.Area.CASCADE, srcPile, start + i);
+      locator.add(id, CardLocation.Area.CASCADE, destPile, dest.size() + i);
+    }
+    heightCounts.change(source.size(), start);
+    heightCounts.change(dest.size(), dest.size() + numCards);
+    source.transferTo(dest, numCards);
+    if (source.getFirstVisibleIndex() < Math.min(firstVisible, start)) {
+      Card revealed = source.getCardAt(start - 1);
+      stateHash ^= ZobristKeys.cascade(cardId(revealed), srcPile, start - 1, false)
+          ^ ZobristKeys.cascade(cardId(revealed), srcPile, start - 1, true);
+    }
+  }
+
+  /**
+   * Removes the bottom card of a cascade pile, turning the card above it face-up if it was the
+   * last visible card. Every move removes single cascade cards through this method so that the
+   * state hash and the pile heights stay up to date.
+   *
+   * @param pileNum the cascade pile
+   * @return the removed card
+   */
+  private Card popCascade(int pileNum) {
+    CascadePile pile = cascadePiles.get(pileNum);
+    int depth = pile.size() - 1;
+    int firstVisible = pile.getFirstVisibleIndex();
+    Card card = pile.removeCard();
+    heightCounts.change(depth + 1, depth);
+    stateHash ^= ZobristKeys.cascade(cardId(card), pileNum, depth, depth >= firstVisible);
+    locator.remove(cardId(card), CardLocation.Area.CASCADE, pileNum, depth);
+    if (pile.getFirstVisibleIndex() < firstVisible && pile.getFirstVisibleIndex() < depth) {
+      Card revealed = pile.getCardAt(depth - 1);
+      stateHash ^= ZobristKeys.cascade(cardId(revealed), pileNum, depth - 1, false)
+          ^ ZobristKeys.cascade(cardId(revealed), pileNum, depth - 1, true);
+    }
+    return card;
+  }
+
+  /**
+   * Adds a card to the bottom of a cascade pile. Every move adds single cascade cards through
+   * this method so that the state hash and the pile heights stay up to date.
+   *
+   * @param pileNum the cascade pile
+   * @param card    the card to add
+   * @param visible true if the card is face-up, false otherwise
+   */
+  private void pushCascade(int pileNum, Card card, boolean visible) {
+    CascadePile pile = cascadePiles.get(pileNum);
+    stateHash ^= ZobristKeys.cascade(cardId(card), pileNum, pile.size(), visible);
+    locator.add(cardId(card), CardLocation.Area.CASCADE, pileNum, pile.size());
+    heightCounts.change(pile.size(), pile.size() + 1);
+    pile.addCard(card, visible);
+  }
+
+  /**
+   * Removes the top card of a foundation pile, updating the state hash and the score.
+   *
+   * @param foundationPile the foundation pile
+   * @return the removed card
+   */
+  private Card popFoundation(int foundationPile) {
+    FoundationPile foundation = foundationPiles.get(foundationPile);
+    Card card = foundation.removeCard();
+    stateHash ^= ZobristKeys.foundation(cardId(card), foundationPile);
+    locator.remove(cardId(card), CardLocation.Area.FOUNDATION, foundationPile,
+        foundation.size());
+    suitFoundations.pop(foundationPile, cardId(card));
+    int newTopId = -1;
+    if (!foundation.isEmpty()) {
+      stateHash ^= ZobristKeys.foundation(cardId(foundation.getTopCard()), foundationPile);
+      newTopId = cardId(foundation.getTopCard());
+    }
+    mobility.foundationChanged(cardId(card), newTopId);
+    score--;
+    return card;
+  }
+
+  /**
+   * Adds a card to the top of a foundation pile, updating the state hash and the score.
+   *
+   * @param foundationPile the foundation pile
+   * @param card           the card to add
+   */
+  private void pushFoundation(int foundationPile, Card card) {
+    FoundationPile foundation = foundationPiles.get(foundationPile);
+    int oldTopId = -1;
+    if (!foundation.isEmpty()) {
+      stateHash ^= ZobristKeys.foundation(cardId(foundation.getTopCard()), foundationPile);
+      oldTopId = cardId(foundation.getTopCard());
+    }
+    locator.add(cardId(card), CardLocation.Area.FOUNDATION, foundationPile, foundation.size());
+    suitFoundations.push(foundationPile, cardId(card));
+    foundation.addCard(card);
+    stateHash ^= ZobristKeys.foundation(cardId(card), foundationPile);
+    mobility.foundationChanged(oldTopId, cardId(card));
+    score++;
+  }
+
+  /**
+   * Removes the top card of the draw pile, updating the state hash.
+   *
+   * @return the removed card
+   */
+  private Card takeDrawTop() {
+    int top = cardId(drawPile.getTopCard());
+    stateHash ^= stockHash.value();
+    stockHash.takeTop(top);
+    stateHash ^= stockHash.value();
+    locator.takeStockTop(top);
+    drawView.changed();
+    return drawPile.removeCard();
+  }
+
+  /**
+   * Puts a card back on top of the draw pile, updating the state hash.
+   *
+   * @param card the card to put back
+   */
+  private void putDrawTop(Card card) {
+    int id = cardId(card);
+    stateHash ^= stockHash.value();
+    stockHash.putTop(id);
+    stateHash ^= stockHash.value();
+    locator.putStockTop(id);
+    drawView.changed();
+    drawPile.addTopCard(card);
+  }
+
+  /**
+   * Rotates the draw pile by one card, updating the state hash.
+   *
+   * @param forward true to discard the top card, false to undo a discard
+   */
+  private void rotateDraw(boolean forward) {
+    stateHash ^= stockHash.value();
+    if (forward) {
+      int top = cardId(drawPile.getTopCard());
+      stockHash.rotateForward(top);
+      locator.rotateStock(top, true);
+      drawPile.discardTopCard();
+    } else {
+      int bottom = cardId(drawPile.getCardAt(drawPile.size() - 1));
+      stockHash.rotateBack(bottom);
+      locator.rotateStock(bottom, false);
+      drawPile.undoDiscard();
     }
-    return maxHeight;
+    stateHash ^= stockHash.value();
+    drawView.changed();
+  }
+
+  /**
+   * Gets a number from 0 to 51 identifying the value and suit of a card, which is its
+   * {@link KlondikeCard#ordinal()}. Every card of a started game has an id, since the deck may
+   * only hold PlayingCards.
+   *
+   * @param card the card
+   * @return the id of the card
+   */
+  static int cardId(Card card) {
+    return ((KlondikeCard) card).ordinal();
   }
 
   @Override
-  public int getNumPiles() throws IllegalStateException {
+  public KlondikeSnapshot snapshot() throws IllegalStateException {
     isGameNotStarted();
-    return cascadePiles.size();
+    int numPiles = cascadePiles.size();
+    int[] pileHeights = new int[numPiles];
+    int[] faceDownCounts = new int[numPiles];
+    int totalHeight = 0;
+    for (int pileNum = 0; pileNum < numPiles; pileNum++) {
+      totalHeight += cascadePiles.get(pileNum).size();
+    }
+    byte[] cascadeCards = new byte[totalHeight];
+    int next = 0;
+    for (int pileNum = 0; pileNum < numPiles; pileNum++) {
+      CascadePile pile = cascadePiles.get(pileNum);
+      pileHeights[pileNum] = pile.size();
+      faceDownCounts[pileNum] = pile.getFirstVisibleIndex();
+      for (int depth = 0; depth < pile.size(); depth++) {
+        cascadeCards[next++] = (byte) cardId(pile.getCardAt(depth));
+      }
+    }
+    byte[] foundationTops = new byte[foundationPiles.size()];
+    for (int f = 0; f < foundationTops.length; f++) {
+      FoundationPile foundation = foundationPiles.get(f);
+      foundationTops[f] = (byte) (foundation.isEmpty() ? -1 : cardId(foundation.getTopCard()));
+    }
+    byte[] drawCards = new byte[drawPile.size()];
+    for (int i = 0; i < drawCards.length; i++) {
+      drawCards[i] = (byte) cardId(drawPile.getCardAt(i));
+    }
+    return new KlondikeSnapshot(getClass(), cardsById, drawPile.getNumDraw(), pileHeights,
+        faceDownCounts, cascadeCards, foundationTops, drawCards, stateHash);
   }
 
   @Override
-  public int getNumDraw() throws IllegalStateException {
+  public void restore(KlondikeSnapshot snapshot) throws IllegalArgumentException {
+    if (snapshot == null) {
+      throw new IllegalArgumentException("Snapshot cannot be null");
+    }
+    if (snapshot.variant != getClass()) {
+      throw new IllegalArgumentException("Snapshot was taken from a different game variant");
+    }
+    this.rules = VariantRules.of(this);
+    List<CascadePile> cascades = new ArrayList<>(snapshot.pileHeights.length);
+    int next = 0;
+    for (int pileNum = 0; pileNum < snapshot.pileHeights.length; pileNum++) {
+      CascadePile pile = newCascadePile();
+      for (int depth = 0; depth < snapshot.pileHeights[pileNum]; depth++) {
+        pile.addCard(snapshot.cardsById[snapshot.cascadeCards[next++]],
+            depth >= snapshot.faceDownCounts[pileNum]);
+      }
+      cascades.add(pile);
+    }
+    List<FoundationPile> foundations = new ArrayList<>(snapshot.foundationTops.length);
+    int foundationCards = 0;
+    for (byte top : snapshot.foundationTops) {
+      FoundationPile foundation = new FoundationPile();
+      for (int id = top - top % 13; top >= 0 && id <= top; id++) {
+        foundation.addCard(snapshot.cardsById[id]); // the run from the Ace up to the top
+      }
+      foundations.add(foundation);
+      foundationCards += foundation.size();
+    }
+    DrawPile draw = new DrawPile(snapshot.numDraw);
+    for (byte id : snapshot.drawCards) {
+      draw.addCard(snapshot.cardsById[id]);
+    }
+
+    this.cascadePiles = cascades;
+    this.foundationPiles = foundations;
+    this.drawPile = draw;
+    this.cardsById = snapshot.cardsById;
+    this.stateHash = snapshot.stateHash;
+    this.stockHash = hashDrawPile();
+    this.score = foundationCards;
+    this.journal.clear();
+    resetMobility();
+    resetLocator();
+    resetHeights();
+    drawView.changed();
+    this.gameStarted = true;
+  }
+
+  @Override
+  public AbstractKlondike copy() throws IllegalStateException {
+    AbstractKlondike copy = createEmptyGame();
+    copy.restore(snapshot());
+    return copy;
+  }
+
+  /**
+   * Creates a new game of the same variant as this one, in an unstarted state.
+   *
+   * @return the new game
+   */
+  protected abstract AbstractKlondike createEmptyGame();
+
+  @Override
+  public long stateHash() throws IllegalStateException {
     isGameNotStarted();
-    return drawPile.getNumDraw();
+    return stateHash;
+  }
+
+  /**
+   * Computes the state hash of the game from scratch, in time linear in the number of cards.
+   * The hash kept up to date by the moves must always equal this value.
+   *
+   * @return the hash of the current state
+   */
+  long computeStateHash() {
+    long hash = 0;
+    for (int pileNum = 0; pileNum < cascadePiles.size(); pileNum++) {
+      CascadePile pile = cascadePiles.get(pileNum);
+      for (int depth = 0; depth < pile.size(); depth++) {
+        hash ^= ZobristKeys.cascade(cardId(pile.getCardAt(depth)), pileNum, depth,
+            pile.isCardVisible(depth));
+      }
+    }
+    for (int f = 0; f < foundationPiles.size(); f++) {
+      if (!foundationPiles.get(f).isEmpty()) {
+        hash ^= ZobristKeys.foundation(cardId(foundationPiles.get(f).getTopCard()), f);
+      }
+    }
+    return hash ^ hashDrawPile().value();
+  }
+
+  /**
+   * Hashes the order of the cards in the draw pile from scratch.
+   *
+   * @return the hash of the draw pile
+   */
+  private StockHash hashDrawPile() {
+    StockHash hash = new StockHash();
+    for (int index = drawPile.size() - 1; index >= 0; index--) {
+      hash.putTop(cardId(drawPile.getCardAt(index)));
+    }
+    return hash;
   }
 
   @Override
-  public boolean isGameOver() throws IllegalStateException {
+  public boolean canRedo() {
+    return gameStarted && journal.canRedo();
+  }
+
+  @Override
+  public void redo() throws IllegalStateException {
     isGameNotStarted();
-    if (!drawPile.isEmpty()) {
-      return false;
+    applyMove(journal.peekRedo());
+  }
+
+  @Override
+  public int getLegalMoves(int[] moves) throws IllegalArgumentException, IllegalStateException {
+    if (moves == null) {
+      throw new IllegalArgumentException("Move buffer cannot be null");
     }
-    for (int cascadePile = 0; cascadePile < cascadePiles.size(); cascadePile++) {
-      if (canMoveToAnyFoundation(cascadePile)) {
-        return false;
+    isGameNotStarted();
+    int count = 0;
+    for (int src = 0; src < cascadePiles.size(); src++) {
+      for (int f = 0; f < foundationPiles.size(); f++) {
+        if (canMoveToFoundation(src, f)) {
+          count = addMove(moves, count, KlondikeMove.pileToFoundation(src, f));
+        }
       }
     }
-    for (int cascadePile = 0; cascadePile < cascadePiles.size(); cascadePile++) {
-      if (canMoveBetweenCascades(cascadePile)) {
-        return false;
+    for (int f = 0; f < foundationPiles.size(); f++) {
+      if (canMoveDrawToFoundation(f)) {
+        count = addMove(moves, count, KlondikeMove.drawToFoundation(f));
       }
     }
-    return true;
+    for (int src = 0; src < cascadePiles.size(); src++) {
+      CascadePile source = cascadePiles.get(src);
+      // every part of the movable run recorded for the pile can be moved
+      for (int numCards = 1; numCards <= mobility.getRunLength(src); numCards++) {
+        Card topCardToMove = source.getCardAt(source.size() - numCards);
+        for (int dest = 0; dest < cascadePiles.size(); dest++) {
+          if (dest != src && canPlaceOnCascade(topCardToMove, cascadePiles.get(dest))) {
+            count = addMove(moves, count, KlondikeMove.pileToPile(src, numCards, dest));
+          }
+        }
+      }
+    }
+    for (int dest = 0; dest < cascadePiles.size(); dest++) {
+      if (canMoveDraw(dest)) {
+        count = addMove(moves, count, KlondikeMove.drawToPile(dest));
+      }
+    }
+    if (!drawPile.isEmpty()) {
+      count = addMove(moves, count, KlondikeMove.discardDraw());
+    }
+    return count;
   }
 
   /**
-   * Checks if the bottom card of a cascade pile can move to any foundation.
+   * Writes a move into a move buffer if there is room for it.
    *
-   * @param pileNum the index of the cascade pile to check
-   * @return true if the pile's bottom card can move to a foundation, false otherwise
+   * @param moves the buffer of encoded moves
+   * @param count the number of moves found so far
+   * @param move  the encoded move to add
+   * @return the number of moves found including this one
    */
-  private boolean canMoveToAnyFoundation(int pileNum) {
-    CascadePile pile = cascadePiles.get(pileNum);
-    if (pile.isEmpty()) {
-      return false;
+  private static int addMove(int[] moves, int count, int move) {
+    if (count < moves.length) {
+      moves[count] = move;
     }
+    return count + 1;
+  }
 
-    // check if bottom card is visible
-    int lastIndex = pile.size() - 1;
-    if (!pile.isCardVisible(lastIndex)) {
-      return false;
+  @Override
+  public void applyMove(int move) throws IllegalArgumentException, IllegalStateException {
+    switch (KlondikeMove.type(move)) {
+      case KlondikeMove.PILE_TO_PILE:
+        movePile(KlondikeMove.source(move), KlondikeMove.numCards(move),
+            KlondikeMove.destination(move));
+        break;
+      case KlondikeMove.DRAW_TO_PILE:
+        moveDraw(KlondikeMove.destination(move));
+        break;
+      case KlondikeMove.PILE_TO_FOUNDATION:
+        moveToFoundation(KlondikeMove.source(move), KlondikeMove.destination(move));
+        break;
+      case KlondikeMove.DRAW_TO_FOUNDATION:
+        moveDrawToFoundation(KlondikeMove.destination(move));
+        break;
+      case KlondikeMove.DISCARD_DRAW:
+        discardDraw();
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown move type: " + KlondikeMove.type(move));
     }
+  }
+
+  @Override
+  public int getNumRows() throws IllegalStateException {
+    isGameNotStarted();
+    return heightCounts.getMaxHeight();  // kept up to date by every move of cascade cards
+  }
+
+  @Override
+  public int getNumPiles() throws IllegalStateException {
+    isGameNotStarted();
+    return cascadePiles.size();
+  }
+
+  @Override
+  public int getNumDraw() throws IllegalStateException {
+    isGameNotStarted();
+    return drawPile.getNumDraw();
+  }
 
-    Card bottomCard = pile.getCardAt(lastIndex);
+  @Override
+  public boolean isGameOver() throws IllegalStateException {
+    isGameNotStarted();
+    return drawPile.isEmpty() && !mobility.hasMoves();
+  }
 
-    // for every foundation...
+  /**
+   * Finds every copy of a card in the game, wherever it is: in a cascade pile, face-up or
+   * face-down, in a foundation pile, or anywhere in the draw pile. The locations are kept up to
+   * date by the moves, so finding a card takes constant time for each copy of it.
+   *
+   * @param card the card to find
+   * @return the locations of the copies of the card, in no particular order, or an empty list
+   *         if the game does not hold the card
+   * @throws IllegalArgumentException if the card is null or is not a playing card
+   * @throws IllegalStateException    if the game has not started
+   */
+  public List<CardLocation> locateCard(Card card)
+      throws IllegalArgumentException, IllegalStateException {
+    isGameNotStarted();
+    if (!(card instanceof KlondikeCard)) {
+      throw new IllegalArgumentException("Card must be a playing card");
+    }
+    return locator.locate(cardId(card));
+  }
+
+  /**
+   * Recounts the heights of the cascade piles, after the whole state of the game was replaced.
+   */
+  private void resetHeights() {
+    heightCounts.clear();
+    for (CascadePile pile : cascadePiles) {
+      heightCounts.add(pile.size());
+    }
+  }
+
+  /**
+   * Rebuilds the locations of every card and the foundation piles of every suit, after the
+   * whole state of the game was replaced.
+   */
+  private void resetLocator() {
+    int[] copies = new int[52];
+    int mostCopies = 0;
+    for (CascadePile pile : cascadePiles) {
+      for (int depth = 0; depth < pile.size(); depth++) {
+        mostCopies = Math.max(mostCopies, ++copies[cardId(pile.getCardAt(depth))]);
+      }
+    }
     for (FoundationPile foundation : foundationPiles) {
-      if (foundation.canAddCard(bottomCard)) {
-        return true;
+      for (int index = 0; index < foundation.size(); index++) {
+        mostCopies = Math.max(mostCopies, ++copies[cardId(foundation.getCardAt(index))]);
       }
     }
+    for (int index = 0; index < drawPile.size(); index++) {
+      mostCopies = Math.max(mostCopies, ++copies[cardId(drawPile.getCardAt(index))]);
+    }
 
-    return false;
+    locator.reset(mostCopies);
+    for (int pileNum = 0; pileNum < cascadePiles.size(); pileNum++) {
+      CascadePile pile = cascadePiles.get(pileNum);
+      for (int depth = 0; depth < pile.size(); depth++) {
+        locator.add(cardId(pile.getCardAt(depth)), CardLocation.Area.CASCADE, pileNum, depth);
+      }
+    }
+    suitFoundations.reset(foundationPiles.size());
+    for (int f = 0; f < foundationPiles.size(); f++) {
+      FoundationPile foundation = foundationPiles.get(f);
+      for (int index = 0; index < foundation.size(); index++) {
+        locator.add(cardId(foundation.getCardAt(index)), CardLocation.Area.FOUNDATION, f, index);
+        suitFoundations.push(f, cardId(foundation.getCardAt(index)));
+      }
+    }
+    for (int index = 0; index < drawPile.size(); index++) {
+      locator.addStockBottom(cardId(drawPile.getCardAt(index)));
+    }
   }
 
   /**
-   * Checks if any visible cards from a cascade pile can move to another cascade pile.
-   *
-   * @param pileNum the index of a source cascade pile to check
-   * @return true if any cards can move to another cascade pile, false otherwise
+   * Rebuilds the tracked moves of every pile, after the whole state of the game was replaced.
    */
-  private boolean canMoveBetweenCascades(int pileNum) {
-    CascadePile source = cascadePiles.get(pileNum);
-    if (source.isEmpty()) {
-      return false;
+  private void resetMobility() {
+    mobility.reset(cascadePiles.size(), foundationPiles.size());
+    for (FoundationPile foundation : foundationPiles) {
+      if (!foundation.isEmpty()) {
+        mobility.foundationChanged(-1, cardId(foundation.getTopCard()));
+      }
     }
-    int firstVisible = -1;
-    for (int i = 0; i < source.size(); i++) {
-      if (source.isCardVisible(i)) {
-        firstVisible = i; // finds first visible card in the source cascade pile
-        break;
+    for (int pileNum = 0; pileNum < cascadePiles.size(); pileNum++) {
+      recordBottom(pileNum);
+    }
+    for (int src = 0; src < cascadePiles.size(); src++) {
+      for (int dest = 0; dest < cascadePiles.size(); dest++) {
+        mobility.setPairMovable(src, dest, src != dest && canMoveRunOnto(src, dest));
       }
     }
-    if (firstVisible == -1) {
-      return false; // no visible cards in the pile
-    } // check each possible group of cards that could be moved
-    for (int startPos = firstVisible; startPos < source.size(); startPos++) {
-      Card topCard = source.getCardAt(startPos);  // get top card of the group desired to move
-      if (!(topCard instanceof PlayingCard card)) {
-        continue;
+  }
+
+  /**
+   * Updates the tracked moves after a cascade pile changed: the moves to foundations from the
+   * pile, and the moves between the pile and every other cascade pile in both directions.
+   * Moves that change a pile call this once the move is complete.
+   *
+   * @param pileNum the cascade pile that changed
+   */
+  private void updateMobility(int pileNum) {
+    recordBottom(pileNum);
+    updatePairs(pileNum);
+  }
+
+  /**
+   * Updates the tracked moves after two cascade piles changed together. Both piles are
+   * recorded before any pair of piles is checked, since checking a pair uses the recorded run
+   * of its source pile.
+   *
+   * @param pileNum   a cascade pile that changed
+   * @param otherPile the other cascade pile that changed
+   */
+  private void updateMobility(int pileNum, int otherPile) {
+    recordBottom(pileNum);
+    recordBottom(otherPile);
+    updatePairs(pileNum);
+    updatePairs(otherPile);
+  }
+
+  /**
+   * Updates the tracked moves between a cascade pile and every other cascade pile, in both
+   * directions.
+   *
+   * @param pileNum the cascade pile
+   */
+  private void updatePairs(int pileNum) {
+    for (int other = 0; other < cascadePiles.size(); other++) {
+      if (other != pileNum) {
+        mobility.setPairMovable(pileNum, other, canMoveRunOnto(pileNum, other));
+        mobility.setPairMovable(other, pileNum, canMoveRunOnto(other, pileNum));
       }
-      for (int dest = 0; dest < cascadePiles.size(); dest++) {
-        if (pileNum == dest) {  // cannot move cards to same pile
-          continue;
-        } // check for every cascade pile as a potential destination
-        CascadePile destPile = cascadePiles.get(dest);
-        if (destPile.isEmpty()) { // case 1: destination pile is empty
-          return canPlaceOnEmptyPile(card);
-        } else {  // case 2: destination pile has cards
-          int destLastIndex = destPile.size() - 1; // gets bottom card of destination pile
-          Card destBottom = destPile.getCardAt(destLastIndex);
-          // cards must be opposite colors, source card must be one value lower than destination
-          if (destBottom instanceof PlayingCard destCard) {
-            // Cards must alternate colors and be one value lower
-            if (canStackCards(destCard, card)) {
-              return true;
-            }
-          }
-        }
+    }
+  }
+
+  /**
+   * Records the bottom card of a cascade pile and the length of its movable run in the
+   * tracked moves.
+   *
+   * @param pileNum the cascade pile
+   */
+  private void recordBottom(int pileNum) {
+    CascadePile pile = cascadePiles.get(pileNum);
+    if (pile.getFirstVisibleIndex() == pile.size()) {
+      mobility.setBottom(pileNum, -1, 0);
+      return;
+    }
+    mobility.setBottom(pileNum, cardId(pile.getCardAt(pile.size() - 1)), pile.getRunLength());
+  }
+
+  /**
+   * Checks if any part of the movable run of one cascade pile can be placed on another, using
+   * the run length last recorded for the source pile.
+   *
+   * @param srcPile  the source cascade pile
+   * @param destPile the destination cascade pile
+   * @return true if some cards can be moved between the piles, false otherwise
+   */
+  private boolean canMoveRunOnto(int srcPile, int destPile) {
+    CascadePile source = cascadePiles.get(srcPile);
+    CascadePile dest = cascadePiles.get(destPile);
+    for (int numCards = 1; numCards <= mobility.getRunLength(srcPile); numCards++) {
+      if (canPlaceOnCascade(source.getCardAt(source.size() - numCards), dest)) {
+        return true;
       }
     }
     return false;
@@ -538,14 +1234,7 @@ public abstract class AbstractKlondike implements KlondikeModel<Card> {
   @Override
   public int getScore() throws IllegalStateException {
     isGameNotStarted();
-    int score = 0;
-    for (FoundationPile foundation : foundationPiles) {
-      Card topCard = foundation.getTopCard();
-      if (topCard instanceof PlayingCard pc) {
-        score += pc.getValue();
-      }
-    }
-    return score;
+    return score;  // kept up to date by every move to or from a foundation
   }
 
   @Override
@@ -591,10 +1280,30 @@ public abstract class AbstractKlondike implements KlondikeModel<Card> {
     return pile.isCardVisible(card);
   }
 
+  @Override
+  public int getPileHeightUnchecked(int pileNum) {
+    return cascadePiles.get(pileNum).size();
+  }
+
+  @Override
+  public Card getCardAtUnchecked(int pileNum, int card) {
+    CascadePile pile = cascadePiles.get(pileNum);
+    return pile.isCardVisible(card) ? pile.getCardAt(card) : null;
+  }
+
+  /**
+   * Returns a read-only view of the currently available draw cards. The game returns the same
+   * view on every call. The view always shows the draw pile as it is now, also after the
+   * game is restored, and an iterator over it throws a ConcurrentModificationException if a
+   * move changes the draw pile while it is in use.
+   *
+   * @return a view of the available draw cards, first the one to be drawn
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
   @Override
   public List<Card> getDrawCards() throws IllegalStateException {
     isGameNotStarted();
-    return drawPile.getVisibleCards();
+    return drawView;
   }
 
   @Override
@@ -621,11 +1330,21 @@ public abstract class AbstractKlondike implements KlondikeModel<Card> {
    * @throws IllegalArgumentException if the cascade pile index is out of bounds
    */
   private void validateCascadePileIndex(int pileNum) throws IllegalArgumentException {
-    if (pileNum < 0 || pileNum >= cascadePiles.size()) {
+    if (!isCascadePileIndex(pileNum)) {
       throw new IllegalArgumentException("Invalid pile number: " + pileNum);
     }
   }
 
+  /**
+   * Checks if a cascade pile index is within bounds.
+   *
+   * @param pileNum the cascade pile index to check
+   * @return true if the index names a cascade pile, false otherwise
+   */
+  private boolean isCascadePileIndex(int pileNum) {
+    return pileNum >= 0 && pileNum < cascadePiles.size();
+  }
+
   /**
    * Validates that a foundation pile index is within bounds.
    *
@@ -633,9 +1352,41 @@ public abstract class AbstractKlondike implements KlondikeModel<Card> {
    * @throws IllegalArgumentException if the foundation pile index is out of bounds
    */
   private void validateFoundationPileIndex(int foundationPile) throws IllegalArgumentException {
-    if (foundationPile < 0 || foundationPile >= foundationPiles.size()) {
+    if (!isFoundationPileIndex(foundationPile)) {
       throw new IllegalArgumentException("Foundation pile out of bounds");
     }
   }
 
+  /**
+   * Checks if a foundation pile index is within bounds.
+   *
+   * @param foundationPile the foundation pile index to check
+   * @return true if the index names a foundation pile, false otherwise
+   */
+  private boolean isFoundationPileIndex(int foundationPile) {
+    return foundationPile >= 0 && foundationPile < foundationPiles.size();
+  }
+
+  /**
+   * A read-only list of the visible draw cards that reads the draw pile of the game each time
+   * it is used, so that it keeps following the game when the game replaces its draw pile.
+   */
+  private final class DrawView extends AbstractList<Card> implements RandomAccess {
+    @Override
+    public Card get(int index) {
+      return drawPile.getCardAt(Objects.checkIndex(index, size()));
+    }
+
+    @Override
+    public int size() {
+      return Math.min(drawPile.getNumDraw(), drawPile.size());
+    }
+
+    /**
+     * Records that the draw pile changed, so that iterators in use fail.
+     */
+    private void changed() {
+      modCount++;
+    }
+  }
 }
@@ -0,0 +1,87 @@
+package klondike.model.hw04;
+
+import java.util.Objects;
+
+/**
+ * Where a card sits in a game: in which area, in which pile of that area, and at which index
+ * of that pile. Locations are immutable and describe the game only at the moment they were
+ * looked up.
+ */
+public final class CardLocation {
+  /**
+   * Defines the areas of the board that hold cards.
+   */
+  public enum Area {
+    CASCADE, FOUNDATION, DRAW
+  }
+
+  private final Area area;
+  private final int pile;
+  private final int index;
+
+  /**
+   * Creates a location.
+   *
+   * @param area  the area holding the card
+   * @param pile  the 0-based index of the pile holding the card, 0 for the draw pile
+   * @param index the 0-based index of the card in its pile
+   */
+  public CardLocation(Area area, int pile, int index) {
+    if (area == null) {
+      throw new IllegalArgumentException("Area cannot be null");
+    }
+    this.area = area;
+    this.pile = pile;
+    this.index = index;
+  }
+
+  /**
+   * Gets the area holding the card.
+   *
+   * @return the area
+   */
+  public Area getArea() {
+    return area;
+  }
+
+  /**
+   * Gets the index of the pile holding the card. The draw pile is pile 0 of its area.
+   *
+   * @return the 0-based index of the pile
+   */
+  public int getPile() {
+    return pile;
+  }
+
+  /**
+   * Gets the index of the card in its pile: from the top of the pile for cascade piles, from
+   * the Ace for foundation piles, and from the top card for the draw pile.
+   *
+   * @return the 0-based index of the card
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CardLocation)) {
+      return false;
+    }
+    CardLocation that = (CardLocation) o;
+    return area == that.area && pile == that.pile && index == that.index;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(area, pile, index);
+  }
+
+  @Override
+  public String toString() {
+    return area + " " + pile + " " + index;
+  }
+}
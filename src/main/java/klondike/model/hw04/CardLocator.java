@@ -0,0 +1,175 @@
+package klondike.model.hw04;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An index from card ids to the places where the copies of each card sit, kept up to date by
+ * the game as cards move so that finding a card takes constant time per copy.
+ *
+ * <p>Each copy of a card is stored as a place, which is an area and a pile, and a position in
+ * that pile. Cascade and foundation positions are indexes in the pile. Positions in the draw
+ * pile are sequence numbers instead: the cards of the draw pile always hold consecutive
+ * numbers from the top card down, so taking, returning or rotating a card only renumbers that
+ * card, and the index of a card is its number minus the number of the top card.
+ */
+final class CardLocator {
+  private static final CardLocation.Area[] AREAS = CardLocation.Area.values();
+  private static final int AREA_SHIFT = 16;
+
+  private final int[] counts = new int[52];
+  private int copies;
+  private int[] places = new int[0];
+  private int[] positions = new int[0];
+  private int stockTop;
+  private int stockSize;
+
+  /**
+   * Forgets every card and prepares to index a game holding at most the given number of
+   * copies of each card.
+   *
+   * @param copies the largest number of copies of a card
+   */
+  void reset(int copies) {
+    this.copies = copies;
+    if (places.length < 52 * copies) {
+      this.places = new int[52 * copies];
+      this.positions = new int[52 * copies];
+    }
+    Arrays.fill(counts, 0);
+    this.stockTop = 0;
+    this.stockSize = 0;
+  }
+
+  /**
+   * Records that a card was added to a cascade or foundation pile.
+   *
+   * @param cardId   the id of the card
+   * @param area     the area of the pile
+   * @param pile     the pile
+   * @param position the index of the card in the pile
+   */
+  void add(int cardId, CardLocation.Area area, int pile, int position) {
+    int entry = cardId * copies + counts[cardId]++;
+    places[entry] = place(area, pile);
+    positions[entry] = position;
+  }
+
+  /**
+   * Records that a card was removed from a cascade or foundation pile.
+   *
+   * @param cardId   the id of the card
+   * @param area     the area of the pile
+   * @param pile     the pile
+   * @param position the index the card had in the pile
+   */
+  void remove(int cardId, CardLocation.Area area, int pile, int position) {
+    removeEntry(cardId, place(area, pile), position);
+  }
+
+  /**
+   * Records that a card was added to the bottom of the draw pile while dealing.
+   *
+   * @param cardId the id of the card
+   */
+  void addStockBottom(int cardId) {
+    addStock(cardId, stockTop + stockSize);
+  }
+
+  /**
+   * Records that the top card of the draw pile was taken.
+   *
+   * @param cardId the id of the card
+   */
+  void takeStockTop(int cardId) {
+    removeEntry(cardId, place(CardLocation.Area.DRAW, 0), stockTop);
+    stockTop++;
+    stockSize--;
+  }
+
+  /**
+   * Records that a card was put back on top of the draw pile.
+   *
+   * @param cardId the id of the card
+   */
+  void putStockTop(int cardId) {
+    addStock(cardId, stockTop - 1);
+    stockTop--;
+  }
+
+  /**
+   * Records that the draw pile was rotated by one card.
+   *
+   * @param cardId  the id of the card that moved: the top card when discarding, or the
+   *                bottom card when undoing a discard
+   * @param forward true for a discard, false for undoing one
+   */
+  void rotateStock(int cardId, boolean forward) {
+    int drawPlace = place(CardLocation.Area.DRAW, 0);
+    if (forward) {
+      removeEntry(cardId, drawPlace, stockTop);
+      stockSize--;
+      addStock(cardId, stockTop + stockSize + 1);
+      stockTop++;
+    } else {
+      removeEntry(cardId, drawPlace, stockTop + stockSize - 1);
+      stockSize--;
+      addStock(cardId, stockTop - 1);
+      stockTop--;
+    }
+  }
+
+  /**
+   * Gets the locations of every copy of a card.
+   *
+   * @param cardId the id of the card
+   * @return the locations, in no particular order
+   */
+  List<CardLocation> locate(int cardId) {
+    List<CardLocation> found = new ArrayList<>(counts[cardId]);
+    for (int entry = cardId * copies; entry < cardId * copies + counts[cardId]; entry++) {
+      CardLocation.Area area = AREAS[places[entry] >>> AREA_SHIFT];
+      int pile = places[entry] & ((1 << AREA_SHIFT) - 1);
+      int index = positions[entry];
+      if (area == CardLocation.Area.DRAW) {
+        index -= stockTop;
+      }
+      found.add(new CardLocation(area, pile, index));
+    }
+    return found;
+  }
+
+  /**
+   * Adds a copy of a card to the draw pile with the given sequence number.
+   */
+  private void addStock(int cardId, int sequence) {
+    int entry = cardId * copies + counts[cardId]++;
+    places[entry] = place(CardLocation.Area.DRAW, 0);
+    positions[entry] = sequence;
+    stockSize++;
+  }
+
+  /**
+   * Removes the copy of a card at the given place and position, moving the last copy of the
+   * card into its entry.
+   */
+  private void removeEntry(int cardId, int place, int position) {
+    int first = cardId * copies;
+    int last = first + --counts[cardId];
+    for (int entry = first; entry < last; entry++) {
+      if (places[entry] == place && positions[entry] == position) {
+        places[entry] = places[last];
+        positions[entry] = positions[last];
+        return;
+      }
+    }
+  }
+
+  /**
+   * Packs an area and a pile into one number.
+   */
+  private static int place(CardLocation.Area area, int pile) {
+    return area.ordinal() << AREA_SHIFT | pile;
+  }
+}
@@ -0,0 +1,170 @@
+package klondike.model.hw04;
+
+import klondike.model.hw02.Card;
+import klondike.model.hw02.KlondikeModel;
+
+/**
+ * An interface extending the KlondikeModel to provide new behaviors for programs that drive a
+ * game directly, such as bots, hints and solvers.
+ *
+ * <p>Unlike the moves of {@link KlondikeModel}, the queries in this interface never throw when a
+ * move is illegal. They answer false instead, so a caller can probe many candidate moves cheaply.
+ *
+ * @param <C> the type of card for the implementation
+ */
+public interface ExtendedKlondikeModel<C extends Card> extends KlondikeModel<C> {
+  /**
+   * Checks whether {@link #movePile(int, int, int)} would succeed with the given arguments.
+   *
+   * @param srcPile  the 0-based index of the source pile
+   * @param numCards the number of cards to be moved
+   * @param destPile the 0-based index of the destination pile
+   * @return true if the move is legal, false otherwise (including if the game has not started)
+   */
+  boolean canMovePile(int srcPile, int numCards, int destPile);
+
+  /**
+   * Checks whether {@link #moveDraw(int)} would succeed with the given argument.
+   *
+   * @param destPile the 0-based index of the destination pile
+   * @return true if the move is legal, false otherwise (including if the game has not started)
+   */
+  boolean canMoveDraw(int destPile);
+
+  /**
+   * Checks whether {@link #moveToFoundation(int, int)} would succeed with the given arguments.
+   *
+   * @param srcPile        the 0-based index of the source pile
+   * @param foundationPile the 0-based index of the foundation pile
+   * @return true if the move is legal, false otherwise (including if the game has not started)
+   */
+  boolean canMoveToFoundation(int srcPile, int foundationPile);
+
+  /**
+   * Checks whether {@link #moveDrawToFoundation(int)} would succeed with the given argument.
+   *
+   * @param foundationPile the 0-based index of the foundation pile
+   * @return true if the move is legal, false otherwise (including if the game has not started)
+   */
+  boolean canMoveDrawToFoundation(int foundationPile);
+
+  /**
+   * Moves the bottom card of a cascade pile to the foundation pile it belongs on: an empty
+   * foundation for an Ace, otherwise a foundation of its suit whose top card is one value
+   * lower. The foundation is found from the suit of the card without trying every foundation,
+   * and the move is then made and undone like {@link #moveToFoundation(int, int)}.
+   *
+   * @param srcPile the 0-based index of the source pile
+   * @throws IllegalArgumentException if the source pile is invalid
+   * @throws IllegalStateException    if the source pile has no visible card, no foundation
+   *                                  pile accepts its bottom card, or the game has not started
+   */
+  void moveToSuitFoundation(int srcPile) throws IllegalArgumentException, IllegalStateException;
+
+  /**
+   * Moves the top draw card to the foundation pile it belongs on, found as
+   * {@link #moveToSuitFoundation(int)} finds it. The move is then made and undone like
+   * {@link #moveDrawToFoundation(int)}.
+   *
+   * @throws IllegalStateException if the draw pile is empty, no foundation pile accepts the
+   *                               card, or the game has not started
+   */
+  void moveDrawToSuitFoundation() throws IllegalStateException;
+
+  /**
+   * Writes every legal move of the current game into the given buffer, encoded as described
+   * by {@link KlondikeMove}. Moves are listed by type: cascade to foundation, draw to
+   * foundation, cascade to cascade, draw to cascade and finally the discard.
+   *
+   * <p>If there are more legal moves than the buffer can hold, only the first
+   * {@code moves.length} moves are written, but the total is still returned so the caller can
+   * retry with a larger buffer. The buffer is never resized or replaced.
+   *
+   * @param moves the buffer to fill with encoded moves
+   * @return the number of legal moves
+   * @throws IllegalArgumentException if the buffer is null
+   * @throws IllegalStateException    if the game has not started
+   */
+  int getLegalMoves(int[] moves) throws IllegalArgumentException, IllegalStateException;
+
+  /**
+   * Performs a move encoded as described by {@link KlondikeMove}.
+   *
+   * @param move the encoded move
+   * @throws IllegalArgumentException if the move is illegal for the reasons the matching move
+   *                                  method gives, or has an unknown type
+   * @throws IllegalStateException    if the move is illegal for the reasons the matching move
+   *                                  method gives, or the game has not started
+   */
+  void applyMove(int move) throws IllegalArgumentException, IllegalStateException;
+
+  /**
+   * Checks if there is a move that can be undone.
+   *
+   * @return true if a move can be undone, false otherwise (including if the game has not
+   *         started)
+   */
+  boolean canUndo();
+
+  /**
+   * Undoes the most recent move, restoring the game to the state before it, including any
+   * card that the move turned face-up. The move can then be redone.
+   *
+   * @throws IllegalStateException if there is no move to undo or the game has not started
+   */
+  void undo() throws IllegalStateException;
+
+  /**
+   * Checks if there is an undone move that can be redone.
+   *
+   * @return true if a move can be redone, false otherwise (including if the game has not
+   *         started)
+   */
+  boolean canRedo();
+
+  /**
+   * Redoes the most recently undone move. Making any other move discards the moves that could
+   * be redone.
+   *
+   * @throws IllegalStateException if there is no move to redo or the game has not started
+   */
+  void redo() throws IllegalStateException;
+
+  /**
+   * Gets a 64-bit hash of the whole state of the game: the cards of every cascade pile with
+   * their visibility, the top card of every foundation pile, and the order of the draw pile
+   * including its current rotation. Equal states always have equal hashes, so the hash can key
+   * transposition tables and detect repeated positions. The hash is kept up to date by every
+   * move, so this method takes constant time.
+   *
+   * @return the hash of the current state
+   * @throws IllegalStateException if the game has not started
+   */
+  long stateHash() throws IllegalStateException;
+
+  /**
+   * Takes a snapshot of the current state of the game. Later moves do not affect the snapshot.
+   *
+   * @return the snapshot
+   * @throws IllegalStateException if the game has not started
+   */
+  KlondikeSnapshot snapshot() throws IllegalStateException;
+
+  /**
+   * Returns the game to the state of a snapshot, starting the game if it has not started. The
+   * history of moves is discarded, so there is nothing to undo or redo afterwards.
+   *
+   * @param snapshot a snapshot taken from a game of the same variant
+   * @throws IllegalArgumentException if the snapshot is null or from a different variant
+   */
+  void restore(KlondikeSnapshot snapshot) throws IllegalArgumentException;
+
+  /**
+   * Creates an independent copy of the game in its current state, without its history of
+   * moves. Moves made on either game do not affect the other.
+   *
+   * @return the copy
+   * @throws IllegalStateException if the game has not started
+   */
+  ExtendedKlondikeModel<C> copy() throws IllegalStateException;
+}
@@ -0,0 +1,58 @@
+package klondike.model.hw04;
+
+import java.util.Arrays;
+
+/**
+ * Counts how many cascade piles have each height, so that the height of the tallest pile is
+ * always known. A pile changing height only moves one count, and the tallest height then
+ * drops by at most as many cards as the pile lost, so keeping it up to date costs no more than
+ * the move itself.
+ */
+final class HeightHistogram {
+  private int[] counts = new int[32];  // the number of piles of each height
+  private int maxHeight;
+
+  /**
+   * Forgets every pile.
+   */
+  void clear() {
+    Arrays.fill(counts, 0);
+    this.maxHeight = 0;
+  }
+
+  /**
+   * Records a pile of the given height.
+   *
+   * @param height the height of the pile
+   */
+  void add(int height) {
+    if (height >= counts.length) {
+      counts = Arrays.copyOf(counts, Math.max(height + 1, counts.length * 2));
+    }
+    counts[height]++;
+    maxHeight = Math.max(maxHeight, height);
+  }
+
+  /**
+   * Records that a pile changed height.
+   *
+   * @param oldHeight the height the pile had
+   * @param newHeight the height the pile has now
+   */
+  void change(int oldHeight, int newHeight) {
+    counts[oldHeight]--;
+    add(newHeight);
+    while (maxHeight > 0 && counts[maxHeight] == 0) {
+      maxHeight--;
+    }
+  }
+
+  /**
+   * Gets the height of the tallest pile.
+   *
+   * @return the largest height, or 0 if every pile is empty
+   */
+  int getMaxHeight() {
+    return maxHeight;
+  }
+}
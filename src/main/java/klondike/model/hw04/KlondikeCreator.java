@@ -16,6 +16,14 @@ public class KlondikeCreator {
     BASIC, WHITEHEAD
   }
 
+  /**
+   * Defines the engines that can run a game. OBJECT games keep piles of card objects, while
+   * PACKED games keep flat arrays of card ids and are meant for solvers and simulations.
+   */
+  public enum Engine {
+    OBJECT, PACKED
+  }
+
   /**
    * Creates an instance of a KlondikeModel.
    *
@@ -29,4 +37,20 @@ public class KlondikeCreator {
       default: throw new IllegalArgumentException("Unknown game type: " + type);
     }
   }
+
+  /**
+   * Creates an instance of a KlondikeModel running on the given engine. Both engines play
+   * every game type by the same rules.
+   *
+   * @param type   the game type desired by the user
+   * @param engine the engine that runs the game
+   * @return an instance of KlondikeModel for the game type and engine
+   */
+  public static KlondikeModel<Card> create(GameType type, Engine engine) {
+    switch (engine) {
+      case OBJECT: return create(type);
+      case PACKED: return new PackedKlondike(type);
+      default: throw new IllegalArgumentException("Unknown engine: " + engine);
+    }
+  }
 }
@@ -0,0 +1,188 @@
+package klondike.model.hw04;
+
+/**
+ * Utility methods for moves encoded as a single int, so that move lists can be stored in
+ * reusable int arrays instead of objects.
+ *
+ * <p>The low 3 bits of an encoded move hold its type, the next 10 bits hold its source pile,
+ * the next 9 bits hold the number of cards moved, and the high 10 bits hold its destination
+ * pile. Unused fields are 0. All pile indices are 0-based, like those of the model.
+ */
+public final class KlondikeMove {
+  /**
+   * Moves cards from one cascade pile to another.
+   */
+  public static final int PILE_TO_PILE = 0;
+
+  /**
+   * Moves the top draw card to a cascade pile.
+   */
+  public static final int DRAW_TO_PILE = 1;
+
+  /**
+   * Moves the bottom card of a cascade pile to a foundation pile.
+   */
+  public static final int PILE_TO_FOUNDATION = 2;
+
+  /**
+   * Moves the top draw card to a foundation pile.
+   */
+  public static final int DRAW_TO_FOUNDATION = 3;
+
+  /**
+   * Discards the top draw card.
+   */
+  public static final int DISCARD_DRAW = 4;
+
+  private static final int TYPE_BITS = 3;
+  private static final int PILE_BITS = 10;
+  private static final int COUNT_BITS = 9;
+  private static final int SOURCE_SHIFT = TYPE_BITS;
+  private static final int COUNT_SHIFT = SOURCE_SHIFT + PILE_BITS;
+  private static final int DEST_SHIFT = COUNT_SHIFT + COUNT_BITS;
+  private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+  private static final int PILE_MASK = (1 << PILE_BITS) - 1;
+  private static final int COUNT_MASK = (1 << COUNT_BITS) - 1;
+
+  private KlondikeMove() {
+  }
+
+  /**
+   * Encodes a move of cards between two cascade piles.
+   *
+   * @param srcPile  the source cascade pile
+   * @param numCards the number of cards to move
+   * @param destPile the destination cascade pile
+   * @return the encoded move
+   * @throws IllegalArgumentException if a field does not fit in the encoding
+   */
+  public static int pileToPile(int srcPile, int numCards, int destPile) {
+    return encode(PILE_TO_PILE, srcPile, numCards, destPile);
+  }
+
+  /**
+   * Encodes a move of the top draw card to a cascade pile.
+   *
+   * @param destPile the destination cascade pile
+   * @return the encoded move
+   * @throws IllegalArgumentException if a field does not fit in the encoding
+   */
+  public static int drawToPile(int destPile) {
+    return encode(DRAW_TO_PILE, 0, 1, destPile);
+  }
+
+  /**
+   * Encodes a move of the bottom card of a cascade pile to a foundation pile.
+   *
+   * @param srcPile        the source cascade pile
+   * @param foundationPile the destination foundation pile
+   * @return the encoded move
+   * @throws IllegalArgumentException if a field does not fit in the encoding
+   */
+  public static int pileToFoundation(int srcPile, int foundationPile) {
+    return encode(PILE_TO_FOUNDATION, srcPile, 1, foundationPile);
+  }
+
+  /**
+   * Encodes a move of the top draw card to a foundation pile.
+   *
+   * @param foundationPile the destination foundation pile
+   * @return the encoded move
+   * @throws IllegalArgumentException if a field does not fit in the encoding
+   */
+  public static int drawToFoundation(int foundationPile) {
+    return encode(DRAW_TO_FOUNDATION, 0, 1, foundationPile);
+  }
+
+  /**
+   * Encodes a discard of the top draw card.
+   *
+   * @return the encoded move
+   */
+  public static int discardDraw() {
+    return DISCARD_DRAW;
+  }
+
+  /**
+   * Gets the type of an encoded move, one of the type constants of this class.
+   *
+   * @param move the encoded move
+   * @return the type of the move
+   */
+  public static int type(int move) {
+    return move & TYPE_MASK;
+  }
+
+  /**
+   * Gets the source cascade pile of an encoded move, or 0 if the move starts at the draw pile.
+   *
+   * @param move the encoded move
+   * @return the source pile of the move
+   */
+  public static int source(int move) {
+    return (move >>> SOURCE_SHIFT) & PILE_MASK;
+  }
+
+  /**
+   * Gets the number of cards moved by an encoded move, or 0 for a discard.
+   *
+   * @param move the encoded move
+   * @return the number of cards moved
+   */
+  public static int numCards(int move) {
+    return (move >>> COUNT_SHIFT) & COUNT_MASK;
+  }
+
+  /**
+   * Gets the destination pile of an encoded move. This is a cascade pile or a foundation pile
+   * depending on the type of the move, or 0 for a discard.
+   *
+   * @param move the encoded move
+   * @return the destination pile of the move
+   */
+  public static int destination(int move) {
+    return (move >>> DEST_SHIFT) & PILE_MASK;
+  }
+
+  /**
+   * Renders an encoded move as the controller command that performs it, using the 1-based pile
+   * numbers the controller expects. For example, moving 2 cards from pile 0 to pile 3 is
+   * rendered as {@code "mpp 1 2 4"}.
+   *
+   * @param move the encoded move
+   * @return the move as a controller command
+   * @throws IllegalArgumentException if the move has an unknown type
+   */
+  public static String toString(int move) {
+    switch (type(move)) {
+      case PILE_TO_PILE:
+        return "mpp " + (source(move) + 1) + " " + numCards(move) + " " + (destination(move) + 1);
+      case DRAW_TO_PILE:
+        return "md " + (destination(move) + 1);
+      case PILE_TO_FOUNDATION:
+        return "mpf " + (source(move) + 1) + " " + (destination(move) + 1);
+      case DRAW_TO_FOUNDATION:
+        return "mdf " + (destination(move) + 1);
+      case DISCARD_DRAW:
+        return "dd";
+      default:
+        throw new IllegalArgumentException("Unknown move type: " + type(move));
+    }
+  }
+
+  /**
+   * Packs the fields of a move into an int.
+   *
+   * @throws IllegalArgumentException if a field does not fit in the encoding
+   */
+  private static int encode(int type, int srcPile, int numCards, int destPile) {
+    if (srcPile < 0 || srcPile > PILE_MASK || destPile < 0 || destPile > PILE_MASK) {
+      throw new IllegalArgumentException("Pile index cannot be encoded in a move");
+    }
+    if (numCards < 0 || numCards > COUNT_MASK) {
+      throw new IllegalArgumentException("Number of cards cannot be encoded in a move");
+    }
+    return type | (srcPile << SOURCE_SHIFT) | (numCards << COUNT_SHIFT)
+        | (destPile << DEST_SHIFT);
+  }
+}
@@ -0,0 +1,62 @@
+package klondike.model.hw04;
+
+import klondike.model.hw02.Card;
+
+/**
+ * An immutable copy of the state of a running game, stored as flat arrays of card ids so that
+ * it is cheap to take and to restore. A snapshot can only be restored into a game of the same
+ * variant as the game it was taken from.
+ *
+ * <p>Cards are stored by id, a number from 0 to 51 given by their suit and value. Cascade
+ * piles are stored one after another, each as its cards from top to bottom. Since the
+ * face-down cards of a cascade pile always come before its face-up cards, the visibility of a
+ * pile is stored as its number of face-down cards. Foundation piles are stored as the id of
+ * their top card, since they always hold a run from the Ace up to that card.
+ */
+public final class KlondikeSnapshot {
+  final Class<?> variant;
+  final Card[] cardsById;
+  final int numDraw;
+  final int[] pileHeights;
+  final int[] faceDownCounts;
+  final byte[] cascadeCards;
+  final byte[] foundationTops;
+  final byte[] drawCards;
+  final long stateHash;
+
+  /**
+   * Creates a snapshot from arrays that the snapshot takes ownership of.
+   *
+   * @param variant        the class of the game the snapshot was taken from
+   * @param cardsById      the card objects of the game, indexed by card id
+   * @param numDraw        the number of visible draw cards
+   * @param pileHeights    the number of cards in each cascade pile
+   * @param faceDownCounts the number of face-down cards in each cascade pile
+   * @param cascadeCards   the ids of the cascade cards, pile after pile
+   * @param foundationTops the id of the top card of each foundation pile, or -1 if empty
+   * @param drawCards      the ids of the draw cards, from the top of the draw pile
+   * @param stateHash      the state hash of the game
+   */
+  KlondikeSnapshot(Class<?> variant, Card[] cardsById, int numDraw, int[] pileHeights,
+                   int[] faceDownCounts, byte[] cascadeCards, byte[] foundationTops,
+                   byte[] drawCards, long stateHash) {
+    this.variant = variant;
+    this.cardsById = cardsById;
+    this.numDraw = numDraw;
+    this.pileHeights = pileHeights;
+    this.faceDownCounts = faceDownCounts;
+    this.cascadeCards = cascadeCards;
+    this.foundationTops = foundationTops;
+    this.drawCards = drawCards;
+    this.stateHash = stateHash;
+  }
+
+  /**
+   * Gets the state hash of the game when the snapshot was taken.
+   *
+   * @return the state hash
+   */
+  public long getStateHash() {
+    return stateHash;
+  }
+}
@@ -0,0 +1,146 @@
+package klondike.model.hw04;
+
+import java.util.Arrays;
+
+/**
+ * The moves between cascade piles and from cascade piles to foundation piles that are
+ * currently available in a game, kept up to date as piles change so that asking whether any
+ * such move exists takes constant time.
+ *
+ * <p>Moves to foundations are counted through two tables indexed by card id: how many
+ * foundation piles would accept each card next, and how many cascade piles end in each card.
+ * A foundation move exists for a pile exactly when the foundations accept its bottom card, so
+ * a change to a foundation only touches the counts of the few cards it stops or starts
+ * accepting. Moves between cascade piles are kept as one flag per ordered pair of piles, which
+ * the game recomputes for the row and column of a pile whenever that pile changes.
+ */
+final class MobilityTracker {
+  private final int[] acceptingFoundations = new int[52];
+  private final int[] bottomCounts = new int[52];
+  private int[] bottomIds;
+  private int[] runLengths;
+  private boolean[] pairMovable;
+  private int numPiles;
+  private int foundationMoves;
+  private int pileMoves;
+
+  /**
+   * Forgets every tracked move and prepares to track a game with the given number of cascade
+   * piles and foundation piles, all of which start out empty.
+   *
+   * @param numPiles       the number of cascade piles
+   * @param numFoundations the number of foundation piles
+   */
+  void reset(int numPiles, int numFoundations) {
+    this.numPiles = numPiles;
+    this.bottomIds = new int[numPiles];
+    this.runLengths = new int[numPiles];
+    this.pairMovable = new boolean[numPiles * numPiles];
+    Arrays.fill(bottomIds, -1);
+    Arrays.fill(acceptingFoundations, 0);
+    Arrays.fill(bottomCounts, 0);
+    this.foundationMoves = 0;
+    this.pileMoves = 0;
+    for (int f = 0; f < numFoundations; f++) {
+      accept(-1, 1);
+    }
+  }
+
+  /**
+   * Checks if any move between cascade piles or from a cascade pile to a foundation pile is
+   * available.
+   *
+   * @return true if such a move exists, false otherwise
+   */
+  boolean hasMoves() {
+    return foundationMoves > 0 || pileMoves > 0;
+  }
+
+  /**
+   * Records the card at the bottom of a cascade pile and the length of the run of cards at
+   * the bottom of the pile that can be moved together.
+   *
+   * @param pileNum   the cascade pile
+   * @param bottomId  the id of the bottom card, or -1 if the pile has no visible bottom card
+   * @param runLength the number of cards that can be moved together
+   */
+  void setBottom(int pileNum, int bottomId, int runLength) {
+    int oldId = bottomIds[pileNum];
+    if (oldId >= 0) {
+      bottomCounts[oldId]--;
+      if (acceptingFoundations[oldId] > 0) {
+        foundationMoves--;
+      }
+    }
+    if (bottomId >= 0) {
+      bottomCounts[bottomId]++;
+      if (acceptingFoundations[bottomId] > 0) {
+        foundationMoves++;
+      }
+    }
+    bottomIds[pileNum] = bottomId;
+    runLengths[pileNum] = runLength;
+  }
+
+  /**
+   * Gets the length of the movable run last recorded for a cascade pile.
+   *
+   * @param pileNum the cascade pile
+   * @return the number of cards at the bottom of the pile that can be moved together
+   */
+  int getRunLength(int pileNum) {
+    return runLengths[pileNum];
+  }
+
+  /**
+   * Records whether some cards of one cascade pile can be moved onto another.
+   *
+   * @param srcPile  the source cascade pile
+   * @param destPile the destination cascade pile
+   * @param movable  true if a move between the piles exists, false otherwise
+   */
+  void setPairMovable(int srcPile, int destPile, boolean movable) {
+    int index = srcPile * numPiles + destPile;
+    if (pairMovable[index] != movable) {
+      pairMovable[index] = movable;
+      pileMoves += movable ? 1 : -1;
+    }
+  }
+
+  /**
+   * Records that the top card of a foundation pile changed.
+   *
+   * @param oldTopId the id of the previous top card, or -1 if the pile was empty
+   * @param newTopId the id of the new top card, or -1 if the pile is now empty
+   */
+  void foundationChanged(int oldTopId, int newTopId) {
+    accept(oldTopId, -1);
+    accept(newTopId, 1);
+  }
+
+  /**
+   * Changes the number of foundation piles accepting the cards that may follow a top card.
+   * An empty foundation pile accepts any Ace, and a King accepts nothing.
+   */
+  private void accept(int topId, int delta) {
+    if (topId < 0) {
+      for (int suit = 0; suit < 4; suit++) {
+        changeAccepting(suit * 13, delta);
+      }
+    } else if (topId % 13 != 12) {
+      changeAccepting(topId + 1, delta);
+    }
+  }
+
+  /**
+   * Changes the number of foundation piles accepting a card, updating the count of foundation
+   * moves when the card becomes accepted or stops being accepted.
+   */
+  private void changeAccepting(int cardId, int delta) {
+    boolean wasAccepted = acceptingFoundations[cardId] > 0;
+    acceptingFoundations[cardId] += delta;
+    if (wasAccepted != acceptingFoundations[cardId] > 0) {
+      foundationMoves += wasAccepted ? -bottomCounts[cardId] : bottomCounts[cardId];
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package klondike.model.hw04;
+
+import java.util.Arrays;
+
+/**
+ * A history of the moves applied to a game, kept as two stacks of primitive records so that
+ * moves can be undone and redone without copying the game.
+ *
+ * <p>Each undo record is a long whose low 32 bits hold the move encoded by
+ * {@link KlondikeMove}, and whose next bit is set if the move turned a face-down card of its
+ * source pile face-up. Redo records are just the encoded moves.
+ */
+final class MoveJournal {
+  private static final long FLIPPED_BIT = 1L << 32;
+
+  private long[] undoStack;
+  private int undoSize;
+  private int[] redoStack;
+  private int redoSize;
+
+  /**
+   * Creates an empty journal.
+   */
+  MoveJournal() {
+    this.undoStack = new long[64];
+    this.redoStack = new int[64];
+  }
+
+  /**
+   * Records a move that was just applied. If the move is the next one to redo, it stays in
+   * the redo history, otherwise the redo history is discarded.
+   *
+   * @param move    the encoded move
+   * @param flipped true if the move turned a card of its source pile face-up
+   */
+  void record(int move, boolean flipped) {
+    if (redoSize > 0 && redoStack[redoSize - 1] == move) {
+      redoSize--;
+    } else {
+      redoSize = 0;
+    }
+    if (undoSize == undoStack.length) {
+      undoStack = Arrays.copyOf(undoStack, undoSize * 2);
+    }
+    undoStack[undoSize++] = (move & 0xFFFFFFFFL) | (flipped ? FLIPPED_BIT : 0);
+  }
+
+  /**
+   * Removes the most recent record and makes its move the next one to redo.
+   *
+   * @return the removed record
+   * @throws IllegalStateException if there is nothing to undo
+   */
+  long popUndo() throws IllegalStateException {
+    if (undoSize == 0) {
+      throw new IllegalStateException("Nothing to undo");
+    }
+    long entry = undoStack[--undoSize];
+    if (redoSize == redoStack.length) {
+      redoStack = Arrays.copyOf(redoStack, redoSize * 2);
+    }
+    redoStack[redoSize++] = move(entry);
+    return entry;
+  }
+
+  /**
+   * Gets the next move to redo without removing it. The move leaves the redo history when it
+   * is recorded again.
+   *
+   * @return the encoded move
+   * @throws IllegalStateException if there is nothing to redo
+   */
+  int peekRedo() throws IllegalStateException {
+    if (redoSize == 0) {
+      throw new IllegalStateException("Nothing to redo");
+    }
+    return redoStack[redoSize - 1];
+  }
+
+  /**
+   * Checks if there is a move to undo.
+   *
+   * @return true if a move can be undone, false otherwise
+   */
+  boolean canUndo() {
+    return undoSize > 0;
+  }
+
+  /**
+   * Checks if there is a move to redo.
+   *
+   * @return true if a move can be redone, false otherwise
+   */
+  boolean canRedo() {
+    return redoSize > 0;
+  }
+
+  /**
+   * Discards the whole history.
+   */
+  void clear() {
+    undoSize = 0;
+    redoSize = 0;
+  }
+
+  /**
+   * Gets the encoded move of an undo record.
+   *
+   * @param entry the undo record
+   * @return the encoded move
+   */
+  static int move(long entry) {
+    return (int) entry;
+  }
+
+  /**
+   * Checks if the move of an undo record turned a card of its source pile face-up.
+   *
+   * @param entry the undo record
+   * @return true if a card was turned face-up, false otherwise
+   */
+  static boolean flipped(long entry) {
+    return (entry & FLIPPED_BIT) != 0;
+  }
+}
@@ -0,0 +1,1240 @@
+package klondike.model.hw04;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import klondike.model.hw02.Card;
+import klondike.model.hw02.KlondikeCard;
+
+/**
+ * A Klondike game that keeps its whole state in flat primitive arrays of card ids, for
+ * solvers and simulations that play many moves. It plays exactly like the
+ * {@link AbstractKlondike} variant it is created for, and its snapshots can be restored into
+ * games of either engine.
+ *
+ * <p>Each cascade pile is a byte array of card ids from top to bottom plus its number of
+ * face-down cards, each foundation pile is a suit and the value of its top card, and the draw
+ * pile is a ring of card ids. The stacking rules of the variant are looked up in
+ * {@link VariantRules} tables. Card objects are only needed to answer queries, and are taken
+ * from the deck the game was started with.
+ */
+public class PackedKlondike implements ExtendedKlondikeModel<Card>, UncheckedBoard<Card> {
+  private final AbstractKlondike variant;
+  private final VariantRules rules;
+  private final MoveJournal journal = new MoveJournal();
+  private final MobilityTracker mobility = new MobilityTracker();
+  private final SuitFoundations suitFoundations = new SuitFoundations();
+  private final DrawView drawView = new DrawView();
+  private final HeightHistogram heightCounts = new HeightHistogram();
+  private boolean gameStarted;
+  private Card[] cardsById;
+  private byte[][] cascades;
+  private int[][] runLengths;  // the length of the movable run ending at each visible card
+  private int[] heights;
+  private int[] faceDownCounts;
+  private byte[] foundationSuits;  // the suit of each non-empty foundation pile
+  private byte[] foundationValues;  // the value of the top card of each foundation, 0 if empty
+  private byte[] stock;  // ring buffer whose length is a power of two
+  private int stockHead;
+  private int stockSize;
+  private int numDraw;
+  private long stateHash;
+  private StockHash stockHash = new StockHash();
+  private int score;
+
+  /**
+   * Constructs a new game with the rules of the given variant, in an unstarted state.
+   *
+   * @param type the variant of Klondike to play
+   * @throws IllegalArgumentException if the type is null
+   */
+  public PackedKlondike(KlondikeCreator.GameType type) {
+    if (type == null) {
+      throw new IllegalArgumentException("Game type cannot be null");
+    }
+    this.variant = (AbstractKlondike) KlondikeCreator.create(type);
+    this.rules = VariantRules.of(variant);
+  }
+
+  /**
+   * Constructs a new unstarted game of the same variant as another game.
+   *
+   * @param variant an unstarted game of the variant, which is only asked about its rules
+   * @param rules   the tabulated rules of the variant
+   */
+  private PackedKlondike(AbstractKlondike variant, VariantRules rules) {
+    this.variant = variant;
+    this.rules = rules;
+  }
+
+  @Override
+  public List<Card> createNewDeck() {
+    return variant.createNewDeck();
+  }
+
+  @Override
+  public void startGame(List<Card> deck, boolean shuffle, int numPiles, int numDraw)
+      throws IllegalArgumentException, IllegalStateException {
+    if (gameStarted) {
+      throw new IllegalStateException("Game has already started");
+    }
+    AbstractKlondike.validParameters(deck, numPiles, numDraw);
+    if (!AbstractKlondike.isValidDeck(deck)) {
+      throw new IllegalArgumentException("Runs are not valid, so the deck is invalid");
+    }
+    int cardsNeeded = (numPiles * (numPiles + 1)) / 2;
+    if (deck.size() < cardsNeeded) {
+      throw new IllegalArgumentException("Not enough cards to deal");
+    }
+
+    List<Card> dealOrder = deck;
+    if (shuffle) {
+      dealOrder = new ArrayList<>(deck);
+      Collections.shuffle(dealOrder);
+    }
+    this.cascades = new byte[numPiles][];
+    this.heights = new int[numPiles];
+    this.faceDownCounts = new int[numPiles];
+    for (int pile = 0; pile < numPiles; pile++) {
+      cascades[pile] = new byte[pile + 14];  // room for a run of 13 cards on the dealt ones
+    }
+    // deal row by row, as AbstractKlondike does
+    Iterator<Card> cards = dealOrder.iterator();
+    for (int row = 0; row < numPiles; row++) {
+      for (int pile = row; pile < numPiles; pile++) {
+        byte id = (byte) cardId(cards.next());
+        cascades[pile][row] = id;
+        heights[pile]++;
+        if (!variant.shouldCardBeVisible(row, pile)) {
+          faceDownCounts[pile]++;
+        }
+      }
+    }
+
+    int numAces = 0;
+    this.cardsById = new Card[52];
+    for (Card card : deck) {
+      int id = cardId(card);
+      cardsById[id] = card;
+      if (id % 13 == 0) {
+        numAces++;
+      }
+    }
+    this.foundationSuits = new byte[numAces];
+    this.foundationValues = new byte[numAces];
+
+    this.stockSize = dealOrder.size() - cardsNeeded;
+    this.stock = new byte[Integer.highestOneBit(Math.max(1, stockSize) * 2 - 1)];
+    this.stockHead = 0;
+    for (int i = 0; i < stockSize; i++) {
+      stock[i] = (byte) cardId(cards.next());
+    }
+    this.numDraw = numDraw;
+    this.stateHash = computeStateHash();
+    this.stockHash = hashStock();
+    this.score = 0;
+    resetRunLengths();
+    resetMobility();
+    resetSuitFoundations();
+    resetHeightCounts();
+    drawView.changed();
+    this.gameStarted = true;
+  }
+
+  @Override
+  public void movePile(int srcPile, int numCards, int destPile)
+      throws IllegalArgumentException, IllegalStateException {
+    isGameNotStarted();
+    if (!isCascadePileIndex(srcPile)) {
+      throw new IllegalArgumentException("Source pile out of bounds");
+    }
+    if (!isCascadePileIndex(destPile)) {
+      throw new IllegalArgumentException("Destination pile out of bounds");
+    }
+    if (srcPile == destPile) {
+      throw new IllegalArgumentException("Source pile cannot be the same as destination pile");
+    }
+    if (numCards <= 0) {
+      throw new IllegalArgumentException("Number of cards to move must be positive");
+    }
+    if (heights[srcPile] < numCards) {
+      throw new IllegalArgumentException("Source pile does not have enough cards to move");
+    }
+    if (heights[srcPile] - numCards < faceDownCounts[srcPile]) {
+      throw new IllegalArgumentException("All cards to move must be visible");
+    }
+    if (!isValidRun(srcPile, numCards)) {
+      throw new IllegalStateException("Cards do not form a valid sequence for this game variant");
+    }
+    if (!canPlaceOnCascade(cascades[srcPile][heights[srcPile] - numCards], destPile)) {
+      throw new IllegalStateException(heights[destPile] == 0
+          ? "This card cannot be placed on empty pile" : "This card cannot be placed here");
+    }
+
+    boolean flips = revealsCard(srcPile, numCards);
+    moveRun(srcPile, numCards, destPile);
+    updateMobility(srcPile, destPile);
+    journal.record(KlondikeMove.pileToPile(srcPile, numCards, destPile), flips);
+  }
+
+  @Override
+  public boolean canMovePile(int srcPile, int numCards, int destPile) {
+    if (!gameStarted || !isCascadePileIndex(srcPile) || !isCascadePileIndex(destPile)
+        || srcPile == destPile || numCards <= 0) {
+      return false;
+    }
+    if (heights[srcPile] < numCards || heights[srcPile] - numCards < faceDownCounts[srcPile]
+        || !isValidRun(srcPile, numCards)) {
+      return false;
+    }
+    return canPlaceOnCascade(cascades[srcPile][heights[srcPile] - numCards], destPile);
+  }
+
+  @Override
+  public void moveDraw(int destPile) throws IllegalArgumentException, IllegalStateException {
+    isGameNotStarted();
+    if (!isCascadePileIndex(destPile)) {
+      throw new IllegalArgumentException("Destination pile out of bounds");
+    }
+    if (stockSize == 0) {
+      throw new IllegalStateException("Draw pile is empty");
+    }
+    if (!canPlaceOnCascade(stockAt(0), destPile)) {
+      throw new IllegalStateException(heights[destPile] == 0
+          ? "This card cannot be placed on empty pile" : "This card cannot be placed here");
+    }
+
+    pushCascade(destPile, takeDrawTop(), true);
+    updateMobility(destPile);
+    journal.record(KlondikeMove.drawToPile(destPile), false);
+  }
+
+  @Override
+  public boolean canMoveDraw(int destPile) {
+    if (!gameStarted || !isCascadePileIndex(destPile) || stockSize == 0) {
+      return false;
+    }
+    return canPlaceOnCascade(stockAt(0), destPile);
+  }
+
+  @Override
+  public void moveToFoundation(int srcPile, int foundationPile)
+      throws IllegalArgumentException, IllegalStateException {
+    isGameNotStarted();
+    if (!isCascadePileIndex(srcPile)) {
+      throw new IllegalArgumentException("Source pile out of bounds");
+    }
+    validateFoundationPileIndex(foundationPile);
+    int height = heights[srcPile];
+    if (height == 0) {
+      throw new IllegalStateException("Source pile is empty");
+    }
+    if (faceDownCounts[srcPile] == height) {
+      throw new IllegalStateException("No visible cards in source pile");
+    }
+    validateFoundationMove(cascades[srcPile][height - 1], foundationPile);
+
+    boolean flips = revealsCard(srcPile, 1);
+    pushFoundation(foundationPile, popCascade(srcPile));
+    updateMobility(srcPile);
+    journal.record(KlondikeMove.pileToFoundation(srcPile, foundationPile), flips);
+  }
+
+  @Override
+  public boolean canMoveToFoundation(int srcPile, int foundationPile) {
+    if (!gameStarted || !isCascadePileIndex(srcPile) || !isFoundationPileIndex(foundationPile)) {
+      return false;
+    }
+    int height = heights[srcPile];
+    return height > faceDownCounts[srcPile]
+        && canAddToFoundation(cascades[srcPile][height - 1], foundationPile);
+  }
+
+  @Override
+  public void moveDrawToFoundation(int foundationPile)
+      throws IllegalArgumentException, IllegalStateException {
+    isGameNotStarted();
+    validateFoundationPileIndex(foundationPile);
+    if (stockSize == 0) {
+      throw new IllegalStateException("Draw pile is empty");
+    }
+    validateFoundationMove(stockAt(0), foundationPile);
+
+    pushFoundation(foundationPile, takeDrawTop());
+    journal.record(KlondikeMove.drawToFoundation(foundationPile), false);
+  }
+
+  @Override
+  public boolean canMoveDrawToFoundation(int foundationPile) {
+    if (!gameStarted || !isFoundationPileIndex(foundationPile) || stockSize == 0) {
+      return false;
+    }
+    return canAddToFoundation(stockAt(0), foundationPile);
+  }
+
+  @Override
+  public void moveToSuitFoundation(int srcPile)
+      throws IllegalArgumentException, IllegalStateException {
+    isGameNotStarted();
+    if (!isCascadePileIndex(srcPile)) {
+      throw new IllegalArgumentException("Source pile out of bounds");
+    }
+    int height = heights[srcPile];
+    if (height == 0) {
+      throw new IllegalStateException("Source pile is empty");
+    }
+    if (faceDownCounts[srcPile] == height) {
+      throw new IllegalStateException("No visible cards in source pile");
+    }
+    moveToFoundation(srcPile, findSuitFoundation(cascades[srcPile][height - 1]));
+  }
+
+  @Override
+  public void moveDrawToSuitFoundation() throws IllegalStateException {
+    isGameNotStarted();
+    if (stockSize == 0) {
+      throw new IllegalStateException("Draw pile is empty");
+    }
+    moveDrawToFoundation(findSuitFoundation(stockAt(0)));
+  }
+
+  /**
+   * Finds the foundation pile a card belongs on from the suit of the card.
+   *
+   * @param cardId the id of the card to place
+   * @return the index of a foundation pile that accepts the card
+   * @throws IllegalStateException if no foundation pile accepts the card
+   */
+  private int findSuitFoundation(int cardId) throws IllegalStateException {
+    int foundationPile = suitFoundations.find(cardId);
+    if (foundationPile < 0) {
+      throw new IllegalStateException("No foundation pile accepts the card");
+    }
+    return foundationPile;
+  }
+
+  @Override
+  public void discardDraw() throws IllegalStateException {
+    isGameNotStarted();
+    if (stockSize == 0) {
+      throw new IllegalStateException("No draw cards to discard");
+    }
+    rotateDraw(true);
+    journal.record(KlondikeMove.discardDraw(), false);
+  }
+
+  @Override
+  public int getLegalMoves(int[] moves) throws IllegalArgumentException, IllegalStateException {
+    if (moves == null) {
+      throw new IllegalArgumentException("Move buffer cannot be null");
+    }
+    isGameNotStarted();
+    int count = 0;
+    for (int src = 0; src < heights.length; src++) {
+      for (int f = 0; f < foundationValues.length; f++) {
+        if (canMoveToFoundation(src, f)) {
+          count = addMove(moves, count, KlondikeMove.pileToFoundation(src, f));
+        }
+      }
+    }
+    for (int f = 0; f < foundationValues.length; f++) {
+      if (canMoveDrawToFoundation(f)) {
+        count = addMove(moves, count, KlondikeMove.drawToFoundation(f));
+      }
+    }
+    for (int src = 0; src < heights.length; src++) {
+      int runLength = mobility.getRunLength(src);
+      for (int numCards = 1; numCards <= runLength; numCards++) {
+        int cardId = cascades[src][heights[src] - numCards];
+        for (int dest = 0; dest < heights.length; dest++) {
+          if (dest != src && canPlaceOnCascade(cardId, dest)) {
+            count = addMove(moves, count, KlondikeMove.pileToPile(src, numCards, dest));
+          }
+        }
+      }
+    }
+    for (int dest = 0; dest < heights.length; dest++) {
+      if (canMoveDraw(dest)) {
+        count = addMove(moves, count, KlondikeMove.drawToPile(dest));
+      }
+    }
+    if (stockSize > 0) {
+      count = addMove(moves, count, KlondikeMove.discardDraw());
+    }
+    return count;
+  }
+
+  /**
+   * Writes a move into a move buffer if there is room for it.
+   *
+   * @param moves the buffer of encoded moves
+   * @param count the number of moves found so far
+   * @param move  the encoded move to add
+   * @return the number of moves found including this one
+   */
+  private static int addMove(int[] moves, int count, int move) {
+    if (count < moves.length) {
+      moves[count] = move;
+    }
+    return count + 1;
+  }
+
+  @Override
+  public void applyMove(int move) throws IllegalArgumentException, IllegalStateException {
+    switch (KlondikeMove.type(move)) {
+      case KlondikeMove.PILE_TO_PILE:
+        movePile(KlondikeMove.source(move), KlondikeMove.numCards(move),
+            KlondikeMove.destination(move));
+        break;
+      case KlondikeMove.DRAW_TO_PILE:
+        moveDraw(KlondikeMove.destination(move));
+        break;
+      case KlondikeMove.PILE_TO_FOUNDATION:
+        moveToFoundation(KlondikeMove.source(move), KlondikeMove.destination(move));
+        break;
+      case KlondikeMove.DRAW_TO_FOUNDATION:
+        moveDrawToFoundation(KlondikeMove.destination(move));
+        break;
+      case KlondikeMove.DISCARD_DRAW:
+        discardDraw();
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown move type: " + KlondikeMove.type(move));
+    }
+  }
+
+  @Override
+  public boolean canUndo() {
+    return gameStarted && journal.canUndo();
+  }
+
+  @Override
+  public void undo() throws IllegalStateException {
+    isGameNotStarted();
+    long entry = journal.popUndo();
+    int move = MoveJournal.move(entry);
+    boolean flipped = MoveJournal.flipped(entry);
+    int src = KlondikeMove.source(move);
+    int dest = KlondikeMove.destination(move);
+    switch (KlondikeMove.type(move)) {
+      case KlondikeMove.PILE_TO_PILE:
+        if (flipped) {
+          turnBottomCardFaceDown(src);
+        }
+        moveRun(dest, KlondikeMove.numCards(move), src);
+        updateMobility(src, dest);
+        break;
+      case KlondikeMove.DRAW_TO_PILE:
+        putDrawTop(popCascade(dest));
+        updateMobility(dest);
+        break;
+      case KlondikeMove.PILE_TO_FOUNDATION:
+        int cardId = popFoundation(dest);
+        if (flipped) {
+          turnBottomCardFaceDown(src);
+        }
+        pushCascade(src, cardId, true);
+        updateMobility(src);
+        break;
+      case KlondikeMove.DRAW_TO_FOUNDATION:
+        putDrawTop(popFoundation(dest));
+        break;
+      default:
+        rotateDraw(false);
+        break;
+    }
+  }
+
+  @Override
+  public boolean canRedo() {
+    return gameStarted && journal.canRedo();
+  }
+
+  @Override
+  public void redo() throws IllegalStateException {
+    isGameNotStarted();
+    applyMove(journal.peekRedo());
+  }
+
+  @Override
+  public long stateHash() throws IllegalStateException {
+    isGameNotStarted();
+    return stateHash;
+  }
+
+  /**
+   * Computes the state hash of the game from scratch. It uses the same keys as
+   * {@link AbstractKlondike}, so both engines give equal hashes to equal states.
+   *
+   * @return the hash of the current state
+   */
+  long computeStateHash() {
+    long hash = 0;
+    for (int pile = 0; pile < heights.length; pile++) {
+      for (int depth = 0; depth < heights[pile]; depth++) {
+        hash ^= ZobristKeys.cascade(cascades[pile][depth], pile, depth,
+            depth >= faceDownCounts[pile]);
+      }
+    }
+    for (int f = 0; f < foundationValues.length; f++) {
+      if (foundationValues[f] > 0) {
+        hash ^= ZobristKeys.foundation(foundationTopId(f), f);
+      }
+    }
+    return hash ^ hashStock().value();
+  }
+
+  /**
+   * Hashes the order of the cards in the draw pile from scratch.
+   *
+   * @return the hash of the draw pile
+   */
+  private StockHash hashStock() {
+    StockHash hash = new StockHash();
+    for (int i = stockSize - 1; i >= 0; i--) {
+      hash.putTop(stockAt(i));
+    }
+    return hash;
+  }
+
+  @Override
+  public KlondikeSnapshot snapshot() throws IllegalStateException {
+    isGameNotStarted();
+    int totalHeight = 0;
+    for (int height : heights) {
+      totalHeight += height;
+    }
+    byte[] cascadeCards = new byte[totalHeight];
+    int next = 0;
+    for (int pile = 0; pile < heights.length; pile++) {
+      System.arraycopy(cascades[pile], 0, cascadeCards, next, heights[pile]);
+      next += heights[pile];
+    }
+    byte[] foundationTops = new byte[foundationValues.length];
+    for (int f = 0; f < foundationTops.length; f++) {
+      foundationTops[f] = (byte) (foundationValues[f] == 0 ? -1 : foundationTopId(f));
+    }
+    byte[] drawCards = new byte[stockSize];
+    for (int i = 0; i < stockSize; i++) {
+      drawCards[i] = (byte) stockAt(i);
+    }
+    return new KlondikeSnapshot(variant.getClass(), cardsById, numDraw,
+        heights.clone(), faceDownCounts.clone(), cascadeCards, foundationTops, drawCards,
+        stateHash);
+  }
+
+  /**
+   * Replaces the state of this game with a snapshot, starting the game if needed. The
+   * snapshot may come from a game of either engine, as long as it plays the same variant.
+   *
+   * @param snapshot the snapshot to restore
+   * @throws IllegalArgumentException if the snapshot is null or from a different variant
+   */
+  @Override
+  public void restore(KlondikeSnapshot snapshot) throws IllegalArgumentException {
+    if (snapshot == null) {
+      throw new IllegalArgumentException("Snapshot cannot be null");
+    }
+    if (snapshot.variant != variant.getClass()) {
+      throw new IllegalArgumentException("Snapshot was taken from a different game variant");
+    }
+    int numPiles = snapshot.pileHeights.length;
+    this.cascades = new byte[numPiles][];
+    int next = 0;
+    for (int pile = 0; pile < numPiles; pile++) {
+      int height = snapshot.pileHeights[pile];
+      cascades[pile] = Arrays.copyOfRange(snapshot.cascadeCards, next, next + height + 13);
+      Arrays.fill(cascades[pile], height, height + 13, (byte) 0);
+      next += height;
+    }
+    this.heights = snapshot.pileHeights.clone();
+    this.faceDownCounts = snapshot.faceDownCounts.clone();
+    int numFoundations = snapshot.foundationTops.length;
+    this.foundationSuits = new byte[numFoundations];
+    this.foundationValues = new byte[numFoundations];
+    this.score = 0;
+    for (int f = 0; f < numFoundations; f++) {
+      int top = snapshot.foundationTops[f];
+      if (top >= 0) {
+        foundationSuits[f] = (byte) (top / 13);
+        foundationValues[f] = (byte) (top % 13 + 1);
+        score += top % 13 + 1;
+      }
+    }
+    this.stockSize = snapshot.drawCards.length;
+    this.stock = new byte[Integer.highestOneBit(Math.max(1, stockSize) * 2 - 1)];
+    System.arraycopy(snapshot.drawCards, 0, stock, 0, stockSize);
+    this.stockHead = 0;
+    this.numDraw = snapshot.numDraw;
+    this.cardsById = snapshot.cardsById;
+    this.stateHash = snapshot.stateHash;
+    this.stockHash = hashStock();
+    journal.clear();
+    resetRunLengths();
+    resetMobility();
+    resetSuitFoundations();
+    resetHeightCounts();
+    drawView.changed();
+    this.gameStarted = true;
+  }
+
+  /**
+   * Creates an independent copy of this game by copying its arrays. The copy shares the rule
+   * tables and card objects of this game, which are never modified, and starts with an empty
+   * move history.
+   *
+   * @return the copy
+   * @throws IllegalStateException if the game has not started
+   */
+  @Override
+  public PackedKlondike copy() throws IllegalStateException {
+    isGameNotStarted();
+    PackedKlondike copy = new PackedKlondike(variant, rules);
+    copy.cascades = new byte[cascades.length][];
+    for (int pile = 0; pile < cascades.length; pile++) {
+      copy.cascades[pile] = cascades[pile].clone();
+    }
+    copy.runLengths = new int[runLengths.length][];
+    for (int pile = 0; pile < runLengths.length; pile++) {
+      copy.runLengths[pile] = runLengths[pile].clone();
+    }
+    copy.heights = heights.clone();
+    copy.faceDownCounts = faceDownCounts.clone();
+    copy.foundationSuits = foundationSuits.clone();
+    copy.foundationValues = foundationValues.clone();
+    copy.stock = stock.clone();
+    copy.stockHead = stockHead;
+    copy.stockSize = stockSize;
+    copy.numDraw = numDraw;
+    copy.cardsById = cardsById;
+    copy.stateHash = stateHash;
+    copy.stockHash.copyFrom(stockHash);
+    copy.score = score;
+    copy.resetMobility();
+    copy.resetSuitFoundations();
+    copy.resetHeightCounts();
+    copy.gameStarted = true;
+    return copy;
+  }
+
+  @Override
+  public int getNumRows() throws IllegalStateException {
+    isGameNotStarted();
+    return heightCounts.getMaxHeight();
+  }
+
+  @Override
+  public int getNumPiles() throws IllegalStateException {
+    isGameNotStarted();
+    return heights.length;
+  }
+
+  @Override
+  public int getNumDraw() throws IllegalStateException {
+    isGameNotStarted();
+    return numDraw;
+  }
+
+  @Override
+  public boolean isGameOver() throws IllegalStateException {
+    isGameNotStarted();
+    return stockSize == 0 && !mobility.hasMoves();
+  }
+
+  @Override
+  public int getScore() throws IllegalStateException {
+    isGameNotStarted();
+    return score;
+  }
+
+  @Override
+  public int getPileHeight(int pileNum) throws IllegalArgumentException, IllegalStateException {
+    isGameNotStarted();
+    validateCascadePileIndex(pileNum);
+    return heights[pileNum];
+  }
+
+  @Override
+  public Card getCardAt(int pileNum, int card)
+      throws IllegalArgumentException, IllegalStateException {
+    isGameNotStarted();
+    validateCascadePileIndex(pileNum);
+    if (card < 0 || card >= heights[pileNum]) {
+      throw new IllegalArgumentException("Invalid card index: " + card);
+    }
+    if (card < faceDownCounts[pileNum]) {
+      throw new IllegalArgumentException("Card at position " + card + " is not visible");
+    }
+    return cardsById[cascades[pileNum][card]];
+  }
+
+  @Override
+  public Card getCardAt(int foundationPile) throws IllegalArgumentException, IllegalStateException {
+    isGameNotStarted();
+    validateFoundationPileIndex(foundationPile);
+    if (foundationValues[foundationPile] == 0) {
+      return null;
+    }
+    return cardsById[foundationTopId(foundationPile)];
+  }
+
+  @Override
+  public boolean isCardVisible(int pileNum, int card)
+      throws IllegalArgumentException, IllegalStateException {
+    isGameNotStarted();
+    validateCascadePileIndex(pileNum);
+    if (card < 0 || card >= heights[pileNum]) {
+      throw new IllegalArgumentException("Invalid card index: " + card);
+    }
+    return card >= faceDownCounts[pileNum];
+  }
+
+  @Override
+  public int getPileHeightUnchecked(int pileNum) {
+    return heights[pileNum];
+  }
+
+  @Override
+  public Card getCardAtUnchecked(int pileNum, int card) {
+    return card >= faceDownCounts[pileNum] ? cardsById[cascades[pileNum][card]] : null;
+  }
+
+  /**
+   * Returns a read-only view of the currently available draw cards. The game returns the same
+   * view on every call. The view always shows the draw pile as it is now, also after the
+   * game is restored, and an iterator over it throws a ConcurrentModificationException if a
+   * move changes the draw pile while it is in use.
+   *
+   * @return a view of the available draw cards, first the one to be drawn
+   * @throws IllegalStateException if the game hasn't been started yet
+   */
+  @Override
+  public List<Card> getDrawCards() throws IllegalStateException {
+    isGameNotStarted();
+    return drawView;
+  }
+
+  @Override
+  public int getNumFoundations() throws IllegalStateException {
+    isGameNotStarted();
+    return foundationValues.length;
+  }
+
+  /**
+   * Checks if the bottom cards of a cascade pile form a sequence that can be moved together.
+   * The caller has already checked that the pile holds that many visible cards.
+   *
+   * @param pileNum  the cascade pile
+   * @param numCards the number of cards at the bottom of the pile to check
+   * @return true if those cards form a valid sequence for this game variant, false otherwise
+   */
+  private boolean isValidRun(int pileNum, int numCards) {
+    return numCards <= mobility.getRunLength(pileNum);
+  }
+
+  /**
+   * Checks if a card can be placed at the bottom of a cascade pile.
+   *
+   * @param cardId   the id of the card
+   * @param destPile the destination cascade pile
+   * @return true if the card can be placed on the pile, false otherwise
+   */
+  private boolean canPlaceOnCascade(int cardId, int destPile) {
+    int height = heights[destPile];
+    if (height == 0) {
+      return rules.canPlaceOnEmpty(cardId);
+    }
+    return rules.canStack(cascades[destPile][height - 1], cardId);
+  }
+
+  /**
+   * Checks if a card can be added to a foundation pile: it must be an Ace if the pile is
+   * empty, and otherwise the next value of the suit of the pile.
+   *
+   * @param cardId         the id of the card
+   * @param foundationPile the foundation pile
+   * @return true if the card can be added, false otherwise
+   */
+  private boolean canAddToFoundation(int cardId, int foundationPile) {
+    int value = foundationValues[foundationPile];
+    return cardId % 13 == value && (value == 0 || cardId / 13 == foundationSuits[foundationPile]);
+  }
+
+  /**
+   * Throws the same exceptions as {@link AbstractKlondike} if a card cannot be added to a
+   * foundation pile.
+   *
+   * @param cardId         the id of the card
+   * @param foundationPile the foundation pile
+   * @throws IllegalStateException if the card cannot be added
+   */
+  private void validateFoundationMove(int cardId, int foundationPile)
+      throws IllegalStateException {
+    if (!canAddToFoundation(cardId, foundationPile)) {
+      if (foundationValues[foundationPile] == 0) {
+        throw new IllegalStateException("Only Aces can be placed on empty foundations");
+      } else {
+        throw new IllegalStateException("Card must be same suit and one value higher");
+      }
+    }
+  }
+
+  /**
+   * Checks if removing cards from the bottom of a cascade pile will turn the card above them
+   * face-up.
+   *
+   * @param pileNum  the cascade pile
+   * @param numCards the number of cards to be removed
+   * @return true if a face-down card will be revealed, false otherwise
+   */
+  private boolean revealsCard(int pileNum, int numCards) {
+    return numCards < heights[pileNum] && faceDownCounts[pileNum] == heights[pileNum] - numCards;
+  }
+
+  /**
+   * Moves visible cards from the bottom of one cascade pile to the bottom of another, turning
+   * the card above them face-up if they were the last visible cards, and updating the state
+   * hash.
+   *
+   * @param srcPile  the source cascade pile
+   * @param numCards the number of cards to move
+   * @param destPile the destination cascade pile
+   */
+  private void moveRun(int srcPile, int numCards, int destPile) {
+    int start = heights[srcPile] - numCards;
+    byte[] source = cascades[srcPile];
+    for (int i = start; i < heights[srcPile]; i++) {
+      stateHash ^= ZobristKeys.cascade(source[i], srcPile, i, true);
+      pushCascade(destPile, source[i], true);
+    }
+    heightCounts.change(heights[srcPile], start);
+    heights[srcPile] = start;
+    revealBottomCard(srcPile);
+  }
+
+  /**
+   * Removes the bottom card of a cascade pile, turning the card above it face-up if it was the
+   * last visible card, and updating the state hash.
+   *
+   * @param pileNum the cascade pile
+   * @return the id of the removed card
+   */
+  private int popCascade(int pileNum) {
+    int depth = --heights[pileNum];
+    heightCounts.change(depth + 1, depth);
+    int cardId = cascades[pileNum][depth];
+    stateHash ^= ZobristKeys.cascade(cardId, pileNum, depth, depth >= faceDownCounts[pileNum]);
+    revealBottomCard(pileNum);
+    return cardId;
+  }
+
+  /**
+   * Turns the bottom card of a cascade pile face-up if the pile has no visible card left.
+   *
+   * @param pileNum the cascade pile
+   */
+  private void revealBottomCard(int pileNum) {
+    int height = heights[pileNum];
+    if (faceDownCounts[pileNum] > height) {
+      faceDownCounts[pileNum] = height;
+    }
+    if (height > 0 && faceDownCounts[pileNum] == height) {
+      int cardId = cascades[pileNum][height - 1];
+      faceDownCounts[pileNum]--;
+      runLengths[pileNum][height - 1] = 1;
+      stateHash ^= ZobristKeys.cascade(cardId, pileNum, height - 1, false)
+          ^ ZobristKeys.cascade(cardId, pileNum, height - 1, true);
+    }
+  }
+
+  /**
+   * Turns the bottom card of a cascade pile face-down again, reversing the flip made by a
+   * move that is being undone.
+   *
+   * @param pileNum the cascade pile
+   */
+  private void turnBottomCardFaceDown(int pileNum) {
+    int depth = heights[pileNum] - 1;
+    int cardId = cascades[pileNum][depth];
+    faceDownCounts[pileNum]++;
+    runLengths[pileNum][depth] = 0;
+    stateHash ^= ZobristKeys.cascade(cardId, pileNum, depth, true)
+        ^ ZobristKeys.cascade(cardId, pileNum, depth, false);
+  }
+
+  /**
+   * Adds a card to the bottom of a cascade pile, growing the pile if it is full, and updating
+   * the state hash and the length of the run ending at the card.
+   *
+   * @param pileNum the cascade pile
+   * @param cardId  the id of the card
+   * @param visible true if the card is face-up, false otherwise
+   */
+  private void pushCascade(int pileNum, int cardId, boolean visible) {
+    int depth = heights[pileNum];
+    if (depth == cascades[pileNum].length) {
+      cascades[pileNum] = Arrays.copyOf(cascades[pileNum], depth * 2);
+      runLengths[pileNum] = Arrays.copyOf(runLengths[pileNum], depth * 2);
+    }
+    cascades[pileNum][depth] = (byte) cardId;
+    heightCounts.change(depth, ++heights[pileNum]);
+    if (!visible) {
+      faceDownCounts[pileNum]++;
+    }
+    runLengths[pileNum][depth] = visible ? runLengthAt(pileNum, depth) : 0;
+    stateHash ^= ZobristKeys.cascade(cardId, pileNum, depth, visible);
+  }
+
+  /**
+   * Finds the length of the movable run ending at a visible card from the length recorded for
+   * the card above it, which the card either continues or starts a new run under.
+   *
+   * @param pileNum the cascade pile
+   * @param depth   the index of the visible card in the pile
+   * @return the number of cards in the run
+   */
+  private int runLengthAt(int pileNum, int depth) {
+    byte[] cards = cascades[pileNum];
+    if (depth > faceDownCounts[pileNum] && rules.continuesRun(cards[depth - 1], cards[depth])) {
+      return runLengths[pileNum][depth - 1] + 1;
+    }
+    return 1;
+  }
+
+  /**
+   * Gets the id of the top card of a non-empty foundation pile.
+   *
+   * @param foundationPile the foundation pile
+   * @return the id of its top card
+   */
+  private int foundationTopId(int foundationPile) {
+    return foundationSuits[foundationPile] * 13 + foundationValues[foundationPile] - 1;
+  }
+
+  /**
+   * Adds a card to the top of a foundation pile, updating the state hash and the score.
+   *
+   * @param foundationPile the foundation pile
+   * @param cardId         the id of the card
+   */
+  private void pushFoundation(int foundationPile, int cardId) {
+    int oldTopId = -1;
+    if (foundationValues[foundationPile] > 0) {
+      oldTopId = foundationTopId(foundationPile);
+      stateHash ^= ZobristKeys.foundation(oldTopId, foundationPile);
+    }
+    foundationSuits[foundationPile] = (byte) (cardId / 13);
+    foundationValues[foundationPile]++;
+    suitFoundations.push(foundationPile, cardId);
+    stateHash ^= ZobristKeys.foundation(cardId, foundationPile);
+    mobility.foundationChanged(oldTopId, cardId);
+    score++;
+  }
+
+  /**
+   * Removes the top card of a foundation pile, updating the state hash and the score.
+   *
+   * @param foundationPile the foundation pile
+   * @return the id of the removed card
+   */
+  private int popFoundation(int foundationPile) {
+    int cardId = foundationTopId(foundationPile);
+    stateHash ^= ZobristKeys.foundation(cardId, foundationPile);
+    foundationValues[foundationPile]--;
+    suitFoundations.pop(foundationPile, cardId);
+    int newTopId = -1;
+    if (foundationValues[foundationPile] > 0) {
+      newTopId = foundationTopId(foundationPile);
+      stateHash ^= ZobristKeys.foundation(newTopId, foundationPile);
+    }
+    mobility.foundationChanged(cardId, newTopId);
+    score--;
+    return cardId;
+  }
+
+  /**
+   * Gets the id of a card of the draw pile.
+   *
+   * @param index the index of the card, 0 being the top of the draw pile
+   * @return the id of the card
+   */
+  private int stockAt(int index) {
+    return stock[(stockHead + index) & (stock.length - 1)];
+  }
+
+  /**
+   * Removes the top card of the draw pile, updating the state hash.
+   *
+   * @return the id of the removed card
+   */
+  private int takeDrawTop() {
+    int top = stockAt(0);
+    stateHash ^= stockHash.value();
+    stockHash.takeTop(top);
+    stateHash ^= stockHash.value();
+    stockHead = (stockHead + 1) & (stock.length - 1);
+    stockSize--;
+    drawView.changed();
+    return top;
+  }
+
+  /**
+   * Puts a card back on top of the draw pile, updating the state hash. The draw pile never
+   * holds more cards than it was dealt, so the ring always has room.
+   *
+   * @param cardId the id of the card
+   */
+  private void putDrawTop(int cardId) {
+    stateHash ^= stockHash.value();
+    stockHash.putTop(cardId);
+    stateHash ^= stockHash.value();
+    stockHead = (stockHead - 1) & (stock.length - 1);
+    stock[stockHead] = (byte) cardId;
+    stockSize++;
+    drawView.changed();
+  }
+
+  /**
+   * Rotates the draw pile by one card, updating the state hash.
+   *
+   * @param forward true to discard the top card, false to undo a discard
+   */
+  private void rotateDraw(boolean forward) {
+    int mask = stock.length - 1;
+    stateHash ^= stockHash.value();
+    if (forward) {
+      stockHash.rotateForward(stockAt(0));
+      stock[(stockHead + stockSize) & mask] = stock[stockHead];
+      stockHead = (stockHead + 1) & mask;
+    } else {
+      stockHash.rotateBack(stockAt(stockSize - 1));
+      stockHead = (stockHead - 1) & mask;
+      stock[stockHead] = stock[(stockHead + stockSize) & mask];
+    }
+    stateHash ^= stockHash.value();
+    drawView.changed();
+  }
+
+  /**
+   * Rebuilds the tracked moves of every pile, after the whole state of the game was replaced.
+   */
+  private void resetMobility() {
+    mobility.reset(heights.length, foundationValues.length);
+    for (int f = 0; f < foundationValues.length; f++) {
+      if (foundationValues[f] > 0) {
+        mobility.foundationChanged(-1, foundationTopId(f));
+      }
+    }
+    for (int pile = 0; pile < heights.length; pile++) {
+      recordBottom(pile);
+    }
+    for (int src = 0; src < heights.length; src++) {
+      for (int dest = 0; dest < heights.length; dest++) {
+        mobility.setPairMovable(src, dest, src != dest && canMoveRunOnto(src, dest));
+      }
+    }
+  }
+
+  /**
+   * Works out the length of the movable run ending at every visible cascade card, after the
+   * whole state of the game was replaced.
+   */
+  private void resetRunLengths() {
+    this.runLengths = new int[cascades.length][];
+    for (int pile = 0; pile < cascades.length; pile++) {
+      runLengths[pile] = new int[cascades[pile].length];
+      for (int depth = faceDownCounts[pile]; depth < heights[pile]; depth++) {
+        runLengths[pile][depth] = runLengthAt(pile, depth);
+      }
+    }
+  }
+
+  /**
+   * Recounts the heights of the cascade piles, after the whole state of the game was replaced.
+   */
+  private void resetHeightCounts() {
+    heightCounts.clear();
+    for (int height : heights) {
+      heightCounts.add(height);
+    }
+  }
+
+  /**
+   * Rebuilds the foundation piles of every suit, after the whole state of the game was
+   * replaced.
+   */
+  private void resetSuitFoundations() {
+    suitFoundations.reset(foundationValues.length);
+    for (int f = 0; f < foundationValues.length; f++) {
+      for (int value = 0; value < foundationValues[f]; value++) {
+        suitFoundations.push(f, foundationSuits[f] * 13 + value);
+      }
+    }
+  }
+
+  /**
+   * Updates the tracked moves after a cascade pile changed.
+   *
+   * @param pileNum the cascade pile that changed
+   */
+  private void updateMobility(int pileNum) {
+    recordBottom(pileNum);
+    updatePairs(pileNum);
+  }
+
+  /**
+   * Updates the tracked moves after two cascade piles changed together. Both piles are
+   * recorded before any pair of piles is checked, since checking a pair uses the recorded run
+   * of its source pile.
+   *
+   * @param pileNum   a cascade pile that changed
+   * @param otherPile the other cascade pile that changed
+   */
+  private void updateMobility(int pileNum, int otherPile) {
+    recordBottom(pileNum);
+    recordBottom(otherPile);
+    updatePairs(pileNum);
+    updatePairs(otherPile);
+  }
+
+  /**
+   * Updates the tracked moves between a cascade pile and every other cascade pile, in both
+   * directions.
+   *
+   * @param pileNum the cascade pile
+   */
+  private void updatePairs(int pileNum) {
+    for (int other = 0; other < heights.length; other++) {
+      if (other != pileNum) {
+        mobility.setPairMovable(pileNum, other, canMoveRunOnto(pileNum, other));
+        mobility.setPairMovable(other, pileNum, canMoveRunOnto(other, pileNum));
+      }
+    }
+  }
+
+  /**
+   * Records the bottom card of a cascade pile and the length of its movable run in the
+   * tracked moves.
+   *
+   * @param pileNum the cascade pile
+   */
+  private void recordBottom(int pileNum) {
+    int height = heights[pileNum];
+    if (faceDownCounts[pileNum] == height) {
+      mobility.setBottom(pileNum, -1, 0);
+      return;
+    }
+    mobility.setBottom(pileNum, cascades[pileNum][height - 1], runLengths[pileNum][height - 1]);
+  }
+
+  /**
+   * Checks if any part of the movable run of one cascade pile can be placed on another, using
+   * the run length last recorded for the source pile.
+   *
+   * @param srcPile  the source cascade pile
+   * @param destPile the destination cascade pile
+   * @return true if some cards can be moved between the piles, false otherwise
+   */
+  private boolean canMoveRunOnto(int srcPile, int destPile) {
+    int height = heights[srcPile];
+    for (int numCards = 1; numCards <= mobility.getRunLength(srcPile); numCards++) {
+      if (canPlaceOnCascade(cascades[srcPile][height - numCards], destPile)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gets the id of a card, a number from 0 to 51 given by its value and suit.
+   *
+   * @param card the card
+   * @return the id of the card
+   */
+  private static int cardId(Card card) {
+    return ((KlondikeCard) card).ordinal();
+  }
+
+  /**
+   * Validates that the game has been started.
+   *
+   * @throws IllegalStateException if the game has not been started
+   */
+  private void isGameNotStarted() throws IllegalStateException {
+    if (!gameStarted) {
+      throw new IllegalStateException("Game not started");
+    }
+  }
+
+  /**
+   * Validates that a cascade pile index is within bounds.
+   *
+   * @param pileNum the cascade pile index to validate
+   * @throws IllegalArgumentException if the cascade pile index is out of bounds
+   */
+  private void validateCascadePileIndex(int pileNum) throws IllegalArgumentException {
+    if (!isCascadePileIndex(pileNum)) {
+      throw new IllegalArgumentException("Invalid pile number: " + pileNum);
+    }
+  }
+
+  /**
+   * Checks if a cascade pile index is within bounds.
+   *
+   * @param pileNum the cascade pile index to check
+   * @return true if the index names a cascade pile, false otherwise
+   */
+  private boolean isCascadePileIndex(int pileNum) {
+    return pileNum >= 0 && pileNum < heights.length;
+  }
+
+  /**
+   * Validates that a foundation pile index is within bounds.
+   *
+   * @param foundationPile the foundation pile index to validate
+   * @throws IllegalArgumentException if the foundation pile index is out of bounds
+   */
+  private void validateFoundationPileIndex(int foundationPile) throws IllegalArgumentException {
+    if (!isFoundationPileIndex(foundationPile)) {
+      throw new IllegalArgumentException("Foundation pile out of bounds");
+    }
+  }
+
+  /**
+   * Checks if a foundation pile index is within bounds.
+   *
+   * @param foundationPile the foundation pile index to check
+   * @return true if the index names a foundation pile, false otherwise
+   */
+  private boolean isFoundationPileIndex(int foundationPile) {
+    return foundationPile >= 0 && foundationPile < foundationValues.length;
+  }
+
+  /**
+   * A read-only list of the visible draw cards that reads the draw pile of the game each time
+   * it is used, so that returning the draw cards does not copy them.
+   */
+  private final class DrawView extends AbstractList<Card> implements RandomAccess {
+    @Override
+    public Card get(int index) {
+      return cardsById[stockAt(Objects.checkIndex(index, size()))];
+    }
+
+    @Override
+    public int size() {
+      return Math.min(numDraw, stockSize);
+    }
+
+    /**
+     * Records that the draw pile changed, so that iterators in use fail.
+     */
+    private void changed() {
+      modCount++;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package klondike.model.hw04;
+
+/**
+ * Hashes the order of the cards in the draw pile, weighting the key of each card by a power of
+ * an odd base that depends on how far the card is from the top: the card at index i adds its
+ * key times base^i, all modulo 2^64. Since the base is odd it has an inverse, so taking the top
+ * card, putting one back and rotating the pile each only take a few multiplications. Two draw
+ * piles get the same hash only if they hold the same cards in the same order (barring a
+ * collision of the 64-bit sum), even when a deck of several copies of each card makes
+ * sequences of neighbouring cards repeat.
+ */
+final class StockHash {
+  private static final long BASE = 0xD1B54A32D192ED03L;
+  private static final long BASE_INVERSE = inverse(BASE);
+
+  private long sum;  // the sum of key * base^index over the cards of the pile
+  private long weight = 1;  // base^size, the weight of the next card added at the bottom
+
+  /**
+   * Forgets every card.
+   */
+  void clear() {
+    this.sum = 0;
+    this.weight = 1;
+  }
+
+  /**
+   * Records a card added to the top of the draw pile.
+   *
+   * @param cardId the id of the card
+   */
+  void putTop(int cardId) {
+    sum = sum * BASE + ZobristKeys.stockCard(cardId);
+    weight *= BASE;
+  }
+
+  /**
+   * Records the top card of the draw pile being taken.
+   *
+   * @param cardId the id of the card
+   */
+  void takeTop(int cardId) {
+    sum = (sum - ZobristKeys.stockCard(cardId)) * BASE_INVERSE;
+    weight *= BASE_INVERSE;
+  }
+
+  /**
+   * Records the top card of the draw pile moving to the bottom, when it is discarded.
+   *
+   * @param cardId the id of the card
+   */
+  void rotateForward(int cardId) {
+    long key = ZobristKeys.stockCard(cardId);
+    sum = (sum - key) * BASE_INVERSE + key * weight * BASE_INVERSE;
+  }
+
+  /**
+   * Records the bottom card of the draw pile moving back to the top, when a discard is undone.
+   *
+   * @param cardId the id of the card
+   */
+  void rotateBack(int cardId) {
+    long key = ZobristKeys.stockCard(cardId);
+    sum = (sum - key * weight * BASE_INVERSE) * BASE + key;
+  }
+
+  /**
+   * Copies the hash of another draw pile.
+   *
+   * @param other the hash to copy
+   */
+  void copyFrom(StockHash other) {
+    this.sum = other.sum;
+    this.weight = other.weight;
+  }
+
+  /**
+   * Gets the key of the draw pile in the state hash of the game.
+   *
+   * @return the mixed hash of the cards and their order
+   */
+  long value() {
+    return ZobristKeys.stock(sum);
+  }
+
+  /**
+   * Finds the inverse of an odd number modulo 2^64 by Newton's method, each step of which
+   * doubles the number of correct low bits, starting from the three an odd number has.
+   */
+  private static long inverse(long odd) {
+    long inverse = odd;
+    for (int i = 0; i < 5; i++) {
+      inverse *= 2 - odd * inverse;
+    }
+    return inverse;
+  }
+}
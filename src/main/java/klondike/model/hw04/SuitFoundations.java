@@ -0,0 +1,106 @@
+package klondike.model.hw04;
+
+/**
+ * An index from suits to the foundation piles building them, kept up to date by the game as
+ * cards move so that finding the foundation a card belongs on does not scan every foundation.
+ * Games with several decks have several foundations of the same suit, so each suit holds a
+ * list of foundations, and the empty foundations are kept in a list of their own.
+ *
+ * <p>Each foundation is in exactly one list, the list of its suit or the list of empty
+ * foundations, and remembers its place there so that it can leave the list in constant time.
+ */
+final class SuitFoundations {
+  private static final int EMPTY = 4;
+
+  private int[][] lists;  // the foundations of each suit, then the empty foundations
+  private int[] sizes;
+  private int[] places;  // the place of each foundation in its list
+  private int[] topValues;  // the value of the top card of each foundation, 0 if empty
+
+  /**
+   * Forgets every card and starts with the given number of empty foundation piles.
+   *
+   * @param numFoundations the number of foundation piles
+   */
+  void reset(int numFoundations) {
+    this.lists = new int[EMPTY + 1][numFoundations];
+    this.sizes = new int[EMPTY + 1];
+    this.places = new int[numFoundations];
+    this.topValues = new int[numFoundations];
+    for (int f = 0; f < numFoundations; f++) {
+      add(EMPTY, f);
+    }
+  }
+
+  /**
+   * Records that a card was added to the top of a foundation pile.
+   *
+   * @param foundationPile the foundation pile
+   * @param cardId         the id of the card
+   */
+  void push(int foundationPile, int cardId) {
+    if (topValues[foundationPile] == 0) {
+      remove(EMPTY, foundationPile);
+      add(cardId / 13, foundationPile);
+    }
+    topValues[foundationPile]++;
+  }
+
+  /**
+   * Records that the top card of a foundation pile was removed.
+   *
+   * @param foundationPile the foundation pile
+   * @param cardId         the id of the removed card
+   */
+  void pop(int foundationPile, int cardId) {
+    topValues[foundationPile]--;
+    if (topValues[foundationPile] == 0) {
+      remove(cardId / 13, foundationPile);
+      add(EMPTY, foundationPile);
+    }
+  }
+
+  /**
+   * Finds a foundation pile that accepts a card: the leftmost empty one for an Ace, otherwise
+   * one of the same suit whose top card is one value lower.
+   *
+   * @param cardId the id of the card
+   * @return the index of the foundation pile, or -1 if no foundation accepts the card
+   */
+  int find(int cardId) {
+    int value = cardId % 13;  // the value the top card must have, 0 for an empty pile
+    if (value == 0) {
+      int first = -1;  // the leftmost empty pile, as a player would choose
+      for (int i = 0; i < sizes[EMPTY]; i++) {
+        if (first < 0 || lists[EMPTY][i] < first) {
+          first = lists[EMPTY][i];
+        }
+      }
+      return first;
+    }
+    int suit = cardId / 13;
+    for (int i = 0; i < sizes[suit]; i++) {
+      if (topValues[lists[suit][i]] == value) {
+        return lists[suit][i];
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Adds a foundation to the end of a list.
+   */
+  private void add(int list, int foundationPile) {
+    places[foundationPile] = sizes[list];
+    lists[list][sizes[list]++] = foundationPile;
+  }
+
+  /**
+   * Removes a foundation from a list, moving the last foundation of the list into its place.
+   */
+  private void remove(int list, int foundationPile) {
+    int last = lists[list][--sizes[list]];
+    lists[list][places[foundationPile]] = last;
+    places[last] = places[foundationPile];
+  }
+}
@@ -0,0 +1,34 @@
+package klondike.model.hw04;
+
+import klondike.model.hw02.Card;
+
+/**
+ * Read access to the cascade piles of a started game without argument or state checks, for
+ * callers such as views that walk the whole board and only ask about positions they already
+ * know to exist. Each method does what the checked method of
+ * {@link klondike.model.hw02.KlondikeModel} with the same name does for valid arguments, except
+ * that asking for a face-down card gives null instead of throwing. For invalid arguments, or
+ * before the game has started, the result is undefined: it may be wrong or throw any runtime
+ * exception. The board still checks that a card is face-up before returning it, so it never
+ * shows more of the game than the checked methods do.
+ *
+ * @param <C> the type of card of the game
+ */
+public interface UncheckedBoard<C extends Card> {
+  /**
+   * Returns the height of a cascade pile without checking the pile index.
+   *
+   * @param pileNum the 0-based index of a pile of the game
+   * @return the number of cards in the pile
+   */
+  int getPileHeightUnchecked(int pileNum);
+
+  /**
+   * Returns a card of a cascade pile if it is face-up, without checking the indexes.
+   *
+   * @param pileNum the 0-based index of a pile of the game
+   * @param card    the 0-based index of a card of the pile
+   * @return the card, or null if it is face-down
+   */
+  C getCardAtUnchecked(int pileNum, int card);
+}
@@ -0,0 +1,92 @@
+package klondike.model.hw04;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import klondike.model.hw02.PlayingCard;
+
+/**
+ * The stacking rules of a game variant, tabulated by card id so that checking a rule is a bit
+ * test instead of a call into the variant. The tables are filled by asking the variant about
+ * every pair of the 52 distinct cards, once per variant class: a 52 by 52 bit matrix of which
+ * card may be stacked on which, a 52-bit mask of the cards allowed on an empty pile, and a
+ * 52 by 52 bit matrix of which card may follow which in a movable run.
+ *
+ * <p>Sequences are tabulated pair by pair: a run is valid when every card continues the one
+ * before it. This holds for every variant whose {@code isValidCardSequence} only compares
+ * neighbouring cards, as both Basic and Whitehead Klondike do, and a single card is always a
+ * valid run.
+ */
+final class VariantRules {
+  private static final Map<Class<?>, VariantRules> CACHE = new ConcurrentHashMap<>();
+
+  private final long[] stackMasks = new long[52];
+  private final long[] sequenceMasks = new long[52];
+  private long emptyPileMask;
+
+  /**
+   * Tabulates the rules of a variant.
+   *
+   * @param variant a game of the variant, which is only asked about its rules
+   */
+  private VariantRules(AbstractKlondike variant) {
+    for (int bottom = 0; bottom < 52; bottom++) {
+      PlayingCard bottomCard = PlayingCard.of(bottom);
+      if (variant.canPlaceOnEmptyPile(bottomCard)) {
+        emptyPileMask |= 1L << bottom;
+      }
+      for (int top = 0; top < 52; top++) {
+        PlayingCard topCard = PlayingCard.of(top);
+        if (variant.canStackCards(bottomCard, topCard)) {
+          stackMasks[bottom] |= 1L << top;
+        }
+        if (variant.isValidCardSequence(List.of(bottomCard, topCard))) {
+          sequenceMasks[bottom] |= 1L << top;
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the rules of the variant of a game, tabulating them the first time a game of its
+   * class asks. The rules of a variant must not depend on the state of a game.
+   *
+   * @param variant a game of the variant, which is only asked about its rules
+   * @return the shared rules of the variant
+   */
+  static VariantRules of(AbstractKlondike variant) {
+    return CACHE.computeIfAbsent(variant.getClass(), type -> new VariantRules(variant));
+  }
+
+  /**
+   * Checks if a card can be placed on another card in a cascade pile.
+   *
+   * @param bottomId the id of the card at the bottom of the destination pile
+   * @param topId    the id of the card to be placed
+   * @return true if the card can be placed, false otherwise
+   */
+  boolean canStack(int bottomId, int topId) {
+    return (stackMasks[bottomId] >>> topId & 1) != 0;
+  }
+
+  /**
+   * Checks if a card can be placed on an empty cascade pile.
+   *
+   * @param cardId the id of the card
+   * @return true if the card can be placed, false otherwise
+   */
+  boolean canPlaceOnEmpty(int cardId) {
+    return (emptyPileMask >>> cardId & 1) != 0;
+  }
+
+  /**
+   * Checks if a card continues a movable run that ends in another card.
+   *
+   * @param prevId the id of the last card of the run
+   * @param nextId the id of the card below it
+   * @return true if the two cards can be moved together, false otherwise
+   */
+  boolean continuesRun(int prevId, int nextId) {
+    return (sequenceMasks[prevId] >>> nextId & 1) != 0;
+  }
+}
@@ -18,6 +18,16 @@ public class WhiteheadKlondike extends AbstractKlondike {
     this.gameStarted = false;
   }
 
+  /**
+   * Creates a new, unstarted WhiteheadKlondike game.
+   *
+   * @return the new game
+   */
+  @Override
+  protected AbstractKlondike createEmptyGame() {
+    return new WhiteheadKlondike();
+  }
+
   /**
    * Returns true as all cards should be visible in Whitehead except for draw.
    *
@@ -90,7 +100,7 @@ public class WhiteheadKlondike extends AbstractKlondike {
       }
 
       // same suit (also ensures same color)
-      if (!(prevCard.getSuit().equals(currCard.getSuit()))) {
+      if (prevCard.getSuitEnum() != currCard.getSuitEnum()) {
         return false;
       }
     }
@@ -0,0 +1,87 @@
+package klondike.model.hw04;
+
+/**
+ * The random keys used to hash the state of a game, Zobrist style: the hash of a game is the
+ * XOR of one key per feature of the game, so moving a card only XORs out the keys of its old
+ * features and XORs in the keys of its new ones.
+ *
+ * <p>The features are each cascade card with its pile, depth and visibility, the top card of
+ * each foundation pile, and the order of the draw pile as a whole, hashed by {@link StockHash}
+ * since discarding moves every card of the draw pile up by one. Games can have any number of
+ * piles and cards, so instead of a fixed table, keys are generated on demand by mixing the
+ * coordinates of a feature.
+ */
+final class ZobristKeys {
+  private static final long CASCADE_HIDDEN = 1;
+  private static final long CASCADE_VISIBLE = 2;
+  private static final long FOUNDATION_TOP = 3;
+  private static final long STOCK_CARD = 4;
+  private static final long STOCK = 5;
+
+  private ZobristKeys() {
+  }
+
+  /**
+   * Gets the key of a card in a cascade pile.
+   *
+   * @param cardId  the id of the card
+   * @param pileNum the cascade pile holding the card
+   * @param depth   the index of the card in the pile
+   * @param visible true if the card is face-up, false otherwise
+   * @return the key of the feature
+   */
+  static long cascade(int cardId, int pileNum, int depth, boolean visible) {
+    return key(visible ? CASCADE_VISIBLE : CASCADE_HIDDEN, cardId, pileNum, depth);
+  }
+
+  /**
+   * Gets the key of the top card of a foundation pile.
+   *
+   * @param cardId         the id of the top card
+   * @param foundationPile the foundation pile
+   * @return the key of the feature
+   */
+  static long foundation(int cardId, int foundationPile) {
+    return key(FOUNDATION_TOP, cardId, foundationPile, 0);
+  }
+
+  /**
+   * Gets the key of a card in the draw pile, before it is weighted by its place in the pile.
+   *
+   * @param cardId the id of the card
+   * @return the key of the card
+   */
+  static long stockCard(int cardId) {
+    return key(STOCK_CARD, cardId, 0, 0);
+  }
+
+  /**
+   * Gets the key of the draw pile, by mixing its weighted sum of card keys so that the sum
+   * does not cancel with the other keys of the state.
+   *
+   * @param sum the weighted sum of the keys of the cards in the draw pile
+   * @return the key of the feature
+   */
+  static long stock(long sum) {
+    return mix((STOCK << 60) ^ sum);
+  }
+
+  /**
+   * Mixes the coordinates of a feature into a key with the SplitMix64 finalizer, so that every
+   * distinct feature gets an independent looking 64-bit key.
+   */
+  private static long key(long kind, int card, int first, int second) {
+    return mix((kind << 60) ^ ((long) card << 48) ^ ((long) first << 24) ^ second);
+  }
+
+  /**
+   * Scrambles a number with the SplitMix64 finalizer, which maps distinct numbers to distinct
+   * results.
+   */
+  private static long mix(long z) {
+    z += 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
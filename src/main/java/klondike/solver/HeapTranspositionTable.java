@@ -0,0 +1,110 @@
+package klondike.solver;
+
+/**
+ * A transposition table on the heap, storing state hashes in a flat array with open addressing
+ * so that looking up a state allocates nothing. The table doubles when it is half full, so it
+ * is never full.
+ *
+ * <p>A hash of 0 marks an empty slot, so the state whose hash is 0 is stored as another
+ * constant instead.
+ */
+final class HeapTranspositionTable implements TranspositionTable {
+  private static final long ZERO_KEY = 0x9E3779B97F4A7C15L;
+
+  private long[] slots;
+  private int size;
+  private long start;  // the key of the start state the table is tied to, 0 if none
+
+  /**
+   * Creates an empty table.
+   */
+  HeapTranspositionTable() {
+    this.slots = new long[1 << 16];
+  }
+
+  @Override
+  public void claim(long startHash) throws IllegalArgumentException {
+    long key = startHash == 0 ? ZERO_KEY : startHash;
+    if (start == 0) {
+      start = key;
+    } else if (start != key) {
+      throw new IllegalArgumentException("Table holds states searched from another start");
+    }
+  }
+
+  @Override
+  public boolean add(long stateHash) {
+    long key = stateHash == 0 ? ZERO_KEY : stateHash;
+    int mask = slots.length - 1;
+    int slot = (int) mix(key) & mask;
+    while (slots[slot] != 0) {
+      if (slots[slot] == key) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    slots[slot] = key;
+    if (++size * 2 > slots.length) {
+      grow();
+    }
+    return true;
+  }
+
+  @Override
+  public void remove(long stateHash) {
+    long key = stateHash == 0 ? ZERO_KEY : stateHash;
+    int mask = slots.length - 1;
+    int hole = (int) mix(key) & mask;
+    while (slots[hole] != key) {
+      if (slots[hole] == 0) {
+        return;
+      }
+      hole = (hole + 1) & mask;
+    }
+    // shift back every later key of the run that may fill the hole without passing its home
+    for (int slot = (hole + 1) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+      int home = (int) mix(slots[slot]) & mask;
+      if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+        slots[hole] = slots[slot];
+        hole = slot;
+      }
+    }
+    slots[hole] = 0;
+    size--;
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public boolean isFull() {
+    return false;
+  }
+
+  /**
+   * Moves every state into a table twice as large.
+   */
+  private void grow() {
+    long[] old = slots;
+    slots = new long[old.length * 2];
+    int mask = slots.length - 1;
+    for (long key : old) {
+      if (key != 0) {
+        int slot = (int) mix(key) & mask;
+        while (slots[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        slots[slot] = key;
+      }
+    }
+  }
+
+  /**
+   * Spreads the bits of a key over the low bits used to pick a slot.
+   */
+  private static long mix(long key) {
+    return key ^ (key >>> 29) ^ (key >>> 47);
+  }
+}
@@ -0,0 +1,253 @@
+package klondike.solver;
+
+import java.util.List;
+import klondike.model.hw02.Card;
+import klondike.model.hw04.ExtendedKlondikeModel;
+import klondike.model.hw04.KlondikeCreator;
+import klondike.model.hw04.KlondikeMove;
+import klondike.model.hw04.PackedKlondike;
+
+/**
+ * Finds out whether a deal of Klondike can be won, by a depth-first search over the moves of a
+ * copy of the game. States already reached are kept in a transposition table by state hash,
+ * so the search never visits a state twice and always ends: either it reaches a won state and
+ * returns the moves leading there, or it runs out of states, which proves the deal cannot be
+ * won. The draw pile can be cycled through forever, so this is the only thing that stops the
+ * search from going around in circles.
+ *
+ * <p>The search is exact for Whitehead deals, where every cascade card is dealt face-up and
+ * the order of the draw pile is the only thing a player does not see. For variants with
+ * face-down cards, such as Basic Klondike, the search sees every card, since it plays moves
+ * and takes them back. It then solves the "thoughtful" game, where the player knows where every
+ * card is, which bounds how often a player who cannot see the face-down cards can win. Either
+ * way the moves are those of the game being solved, so its own rules apply, such as Basic
+ * Klondike only allowing Kings on empty piles.
+ *
+ * <p>A move to a foundation is played without trying anything else when no card left in play
+ * can need the moved card as a base: when it is an Ace or a Two, since Aces only ever go to a
+ * foundation, or when every card one value lower is already on a foundation. Otherwise moves
+ * are tried in order of how likely they are to lead to a win: moves to a foundation first,
+ * then moves that empty a cascade pile or turn a card face-up, then the other moves between
+ * piles, and discarding a draw card last. Moves that only lead to a copy of another state with
+ * the piles renumbered are skipped: moving a whole pile into an empty pile, and moving a card
+ * to any foundation but the first one that accepts it.
+ *
+ * <p>Discarding a draw card does not change the cascade piles, and moves between cascade piles
+ * and foundations do not change the draw pile, so the two kinds of move can be played in either
+ * order. Right after a discard the search only tries moves of the draw pile, since any cascade
+ * move there was already tried before the discard. A state reached by a discard is then not
+ * the same search node as the same state reached otherwise, so the transposition table tells
+ * them apart by a key of their own.
+ *
+ * <p>A solver made with more than one thread splits the search into subtrees on a fork-join
+ * pool, whose idle workers steal the subtrees other workers have not started yet, so that a
+ * single hard deal can use every core.
+ */
+public final class KlondikeSolver {
+  private final long maxStates;
+  private final int parallelism;
+
+  /**
+   * Creates a solver that searches on the calling thread until it finds an answer.
+   */
+  public KlondikeSolver() {
+    this(Long.MAX_VALUE, 1);
+  }
+
+  /**
+   * Creates a solver that gives up once it has visited the given number of states, which
+   * bounds the time and memory spent on deals that are hard to decide.
+   *
+   * @param maxStates the largest number of states to visit
+   * @throws IllegalArgumentException if the number of states is not positive
+   */
+  public KlondikeSolver(long maxStates) {
+    this(maxStates, 1);
+  }
+
+  /**
+   * Creates a solver that gives up once it has visited the given number of states, and that
+   * searches on a fork-join pool of the given number of workers if there is more than one.
+   * Each solve starts a pool of its own and shuts it down before returning. With several
+   * workers the search may find a different winning line, and may visit a few more states
+   * than the limit, than a search on a single thread. The workers share a table of states of
+   * fixed size, twice the limit but at most 16M slots, so a search with a higher limit may
+   * give up once the table is full.
+   *
+   * @param maxStates   the largest number of states to visit
+   * @param parallelism the number of threads to search on
+   * @throws IllegalArgumentException if the number of states or threads is not positive
+   */
+  public KlondikeSolver(long maxStates, int parallelism) {
+    if (maxStates <= 0) {
+      throw new IllegalArgumentException("Number of states must be positive");
+    }
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Number of threads must be positive");
+    }
+    this.maxStates = maxStates;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Solves a Whitehead deal, dealt from the given deck without shuffling.
+   *
+   * @param deck     the deck to deal, in order
+   * @param numPiles the number of cascade piles
+   * @param numDraw  the number of visible draw cards
+   * @return the result of the search
+   * @throws IllegalArgumentException if the game cannot be started with these arguments
+   */
+  public SolverResult solve(List<Card> deck, int numPiles, int numDraw)
+      throws IllegalArgumentException {
+    return solve(KlondikeCreator.GameType.WHITEHEAD, deck, numPiles, numDraw);
+  }
+
+  /**
+   * Solves a deal of the given variant, dealt from the given deck without shuffling on the
+   * packed engine. Deals of variants with face-down cards are solved thoughtfully.
+   *
+   * @param type     the variant of Klondike to deal
+   * @param deck     the deck to deal, in order
+   * @param numPiles the number of cascade piles
+   * @param numDraw  the number of visible draw cards
+   * @return the result of the search
+   * @throws IllegalArgumentException if the type is null, or the game cannot be started with
+   *                                  these arguments
+   */
+  public SolverResult solve(KlondikeCreator.GameType type, List<Card> deck, int numPiles,
+      int numDraw) throws IllegalArgumentException {
+    PackedKlondike game = new PackedKlondike(type);
+    game.startGame(deck, false, numPiles, numDraw);
+    return solve(game);
+  }
+
+  /**
+   * Solves a started game from its current state. The search plays on a copy of the game, so
+   * the game itself is left as it was.
+   *
+   * @param game the game to solve
+   * @return the result of the search
+   * @throws IllegalArgumentException if the game is null
+   * @throws IllegalStateException    if the game has not started
+   */
+  public SolverResult solve(ExtendedKlondikeModel<?> game)
+      throws IllegalArgumentException, IllegalStateException {
+    if (game == null) {
+      throw new IllegalArgumentException("Game cannot be null");
+    }
+    long start = System.nanoTime();
+    if (parallelism > 1) {
+      return new ParallelSearch(maxStates).run(game.copy(), parallelism, start);
+    }
+    return searchSequentially(game.copy(), new HeapTranspositionTable(), start);
+  }
+
+  /**
+   * Solves a started game from its current state on the calling thread, keeping the states it
+   * reaches in the given table instead of one of its own, whatever the number of threads of the
+   * solver. The table may already hold states searched through by an earlier search from the
+   * same state, which the search then skips, and the search stops without an answer once the
+   * table is full. When the search ends, however it ends, the table holds only states from
+   * which every move was tried without winning, so it can be passed to a later search from the
+   * same state, such as one with a higher limit on states to pick up where this one gave up.
+   * A table is tied to the state of the first game it is used for and refused for any other,
+   * even a later state of the same deal, since the states it holds were only searched through
+   * relative to the line from that start.
+   *
+   * <p>The states already in the table do not count toward the limit on states to visit, and
+   * are not counted as visited.
+   *
+   * @param game the game to solve
+   * @param seen the table to keep the states in
+   * @return the result of the search
+   * @throws IllegalArgumentException if the game or the table is null, or the table was used
+   *                                  for a search from another state
+   * @throws IllegalStateException    if the game has not started
+   */
+  public SolverResult solve(ExtendedKlondikeModel<?> game, TranspositionTable seen)
+      throws IllegalArgumentException, IllegalStateException {
+    if (game == null) {
+      throw new IllegalArgumentException("Game cannot be null");
+    }
+    if (seen == null) {
+      throw new IllegalArgumentException("Table cannot be null");
+    }
+    seen.claim(SearchStack.key(game, false));
+    return searchSequentially(game.copy(), seen, System.nanoTime());
+  }
+
+  /**
+   * Searches the states reachable from a game on the calling thread.
+   *
+   * @param game  the game to search from, which the search changes
+   * @param seen  the table of states already reached
+   * @param start the time the solver started, as given by {@link System#nanoTime()}
+   * @return the result of the search
+   */
+  private SolverResult searchSequentially(ExtendedKlondikeModel<?> game,
+      TranspositionTable seen, long start) {
+    if (seen.isFull()) {
+      return new SolverResult(SolverResult.Status.UNKNOWN, new int[0], 0,
+          System.nanoTime() - start);
+    }
+    seen.add(SearchStack.key(game, false));
+    long visited = 1;
+    if (SearchStack.isWon(game)) {
+      seen.remove(SearchStack.key(game, false));
+      return new SolverResult(SolverResult.Status.SOLVABLE, new int[0], visited,
+          System.nanoTime() - start);
+    }
+    SearchStack stack = new SearchStack(game);
+    stack.push(false);
+    while (!stack.isEmpty()) {
+      if (!stack.hasNextMove()) {
+        stack.pop();
+        if (!stack.isEmpty()) {
+          game.undo();  // every move from here was tried, so back up to the previous state
+        }
+        continue;
+      }
+      int move = stack.nextMove();
+      game.applyMove(move);
+      boolean afterDiscard = KlondikeMove.type(move) == KlondikeMove.DISCARD_DRAW;
+      if (!seen.add(SearchStack.key(game, afterDiscard))) {
+        game.undo();
+        continue;
+      }
+      visited++;
+      if (SearchStack.isWon(game)) {
+        int[] line = stack.lineWith(move);
+        forgetLine(game, seen, line);
+        return new SolverResult(SolverResult.Status.SOLVABLE, line, visited,
+            System.nanoTime() - start);
+      }
+      if (visited >= maxStates || seen.isFull()) {
+        forgetLine(game, seen, stack.lineWith(move));
+        return new SolverResult(SolverResult.Status.UNKNOWN, new int[0], visited,
+            System.nanoTime() - start);
+      }
+      stack.push(afterDiscard);
+    }
+    return new SolverResult(SolverResult.Status.UNSOLVABLE, new int[0], visited,
+        System.nanoTime() - start);
+  }
+
+  /**
+   * Removes the states of the line a search stopped on from its table, taking back the moves of
+   * the line on the game. Not every move was tried from these states, so a later search with the
+   * same table must not skip them. Every other state in the table was searched through.
+   *
+   * @param game the game the search played on, in the state at the end of the line
+   * @param seen the table of states the search reached
+   * @param line the moves from where the search started to the current state
+   */
+  private static void forgetLine(ExtendedKlondikeModel<?> game, TranspositionTable seen,
+      int[] line) {
+    for (int i = line.length - 1; i >= 0; i--) {
+      seen.remove(SearchStack.key(game, KlondikeMove.type(line[i]) == KlondikeMove.DISCARD_DRAW));
+      game.undo();
+    }
+    seen.remove(SearchStack.key(game, false));
+  }
+}
@@ -0,0 +1,159 @@
+package klondike.solver;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A set of game states, stored by state hash, that many threads can probe and store into at
+ * once without a lock. The table is a fixed-size array of hashes with open addressing: a state
+ * goes into the first empty slot at or after its home slot, and a thread claims an empty slot
+ * with an atomic compare-and-set, so that when several threads store the same state at once
+ * exactly one of them succeeds and the others find it. Slots are never emptied, but under
+ * {@link ReplacementPolicy#REPLACE_HOME} a stored state can be overwritten by another, so a
+ * state only stays found once stored when the policy is {@link ReplacementPolicy#KEEP_EXISTING}.
+ *
+ * <p>A state is only looked for within a few slots of its home slot. When all of them hold
+ * other states, the {@link ReplacementPolicy} decides whether the new state is left out or
+ * takes the home slot. The table counts hits (states found), misses (states not found), and
+ * collisions (slots skipped because they held another state) as it goes.
+ *
+ * <p>A hash of 0 marks an empty slot, so the state whose hash is 0 is stored as another
+ * constant instead. Two states with the same 64-bit hash are treated as the same state.
+ */
+final class LockFreeTranspositionTable {
+  /**
+   * Decides what happens to a new state when every slot it may go in holds another state.
+   */
+  enum ReplacementPolicy {
+    /** Leave the table as it is, so every state stored stays found. */
+    KEEP_EXISTING,
+    /** Store the new state in its home slot, forgetting the state that was there. */
+    REPLACE_HOME
+  }
+
+  /** The state was already in the table. */
+  static final int FOUND = 0;
+  /** The state was stored in an empty slot. */
+  static final int STORED = 1;
+  /** The state was stored in place of another state, which the table forgot. */
+  static final int REPLACED = 2;
+  /** The state was not found, and could not be stored either. */
+  static final int FULL = 3;
+
+  private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+  private static final long ZERO_KEY = 0x9E3779B97F4A7C15L;
+  private static final int PROBE_LIMIT = 16;
+
+  private final long[] slots;
+  private final int shift;  // takes the high bits of a mixed key as the home slot
+  private final ReplacementPolicy policy;
+  private final LongAdder stored = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder collisions = new LongAdder();
+
+  /**
+   * Creates an empty table.
+   *
+   * @param capacity the number of slots, which must be a power of two no smaller than the
+   *                 probe window
+   * @param policy   what to do with a new state that finds no empty slot
+   * @throws IllegalArgumentException if the capacity is not such a power of two, or the policy
+   *                                  is null
+   */
+  LockFreeTranspositionTable(int capacity, ReplacementPolicy policy) {
+    if (capacity < PROBE_LIMIT || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of two of at least "
+          + PROBE_LIMIT);
+    }
+    if (policy == null) {
+      throw new IllegalArgumentException("Replacement policy cannot be null");
+    }
+    this.slots = new long[capacity];
+    this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    this.policy = policy;
+  }
+
+  /**
+   * Looks for a state and stores it if it is not there yet.
+   *
+   * @param stateHash the hash of the state
+   * @return {@link #FOUND} if the table already held the state, {@link #STORED} or
+   *         {@link #REPLACED} if this call stored it, or {@link #FULL} if it was left out
+   */
+  int insert(long stateHash) {
+    long key = stateHash == 0 ? ZERO_KEY : stateHash;
+    int mask = slots.length - 1;
+    int home = (int) ((key * 0xBF58476D1CE4E5B9L) >>> shift);
+    for (int probe = 0; probe < PROBE_LIMIT; probe++) {
+      int slot = (home + probe) & mask;
+      long current = (long) SLOTS.getAcquire(slots, slot);
+      if (current == 0) {
+        current = (long) SLOTS.compareAndExchange(slots, slot, 0L, key);
+        if (current == 0) {
+          misses.increment();
+          stored.increment();
+          return STORED;
+        }
+      }
+      if (current == key) {  // found, or stored by another thread since the first read
+        hits.increment();
+        return FOUND;
+      }
+      collisions.increment();
+    }
+    misses.increment();
+    if (policy == ReplacementPolicy.REPLACE_HOME) {
+      SLOTS.setRelease(slots, home, key);
+      return REPLACED;
+    }
+    return FULL;
+  }
+
+  /**
+   * Gets the number of slots of the table.
+   *
+   * @return the capacity given when the table was created
+   */
+  int capacity() {
+    return slots.length;
+  }
+
+  /**
+   * Gets the number of states stored in empty slots so far. Replaced states are not counted,
+   * since they took the slot of a state the table no longer holds.
+   *
+   * @return the number of states stored in empty slots
+   */
+  long size() {
+    return stored.sum();
+  }
+
+  /**
+   * Gets the number of probes that found their state.
+   *
+   * @return the number of hits so far
+   */
+  long hits() {
+    return hits.sum();
+  }
+
+  /**
+   * Gets the number of probes that did not find their state, whether or not it was stored.
+   *
+   * @return the number of misses so far
+   */
+  long misses() {
+    return misses.sum();
+  }
+
+  /**
+   * Gets the number of slots probes skipped because they held another state.
+   *
+   * @return the number of collisions so far
+   */
+  long collisions() {
+    return collisions.sum();
+  }
+}
@@ -0,0 +1,268 @@
+package klondike.solver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A transposition table kept in a file that is mapped into memory, so that it can hold far more
+ * states than fit on the heap without adding to the work of the garbage collector. The table
+ * has a fixed number of slots, chosen when the file is created, and is full once three quarters
+ * of them hold a state. On most file systems the file only takes up disk space as slots are
+ * written, so a table of tens of gigabytes costs nothing until a search fills it.
+ *
+ * <p>The file keeps the states after the table is closed, and a table opened from it again holds
+ * the same states. When {@link KlondikeSolver} is given a table, it leaves only the states it
+ * searched through in the table, so a search that gave up can be picked up later by another
+ * solver, possibly in another process, given the same file and a game in the same state the
+ * first search started from, which then skips everything searched before. The file records
+ * that start state and is refused for a search from any other. A search stopped by the process
+ * dying does not clean up its table, so the file should not be reused after that.
+ *
+ * <p>The file holds a header of four numbers followed by the slots, stored with open
+ * addressing like the table on the heap, and is mapped in pieces of at most 1 GiB. A table may
+ * only be used by one thread at a time.
+ */
+public final class MappedTranspositionTable implements TranspositionTable, Closeable {
+  private static final long MAGIC = 0x4B4C4E4454424C32L;  // "KLNDTBL2"
+  private static final int HEADER_BYTES = 4 * Long.BYTES;  // magic, capacity, size, start
+  private static final int SIZE_OFFSET = 2 * Long.BYTES;
+  private static final int START_OFFSET = 3 * Long.BYTES;  // 0 until a search claims the table
+  private static final int CHUNK_SHIFT = 27;  // slots in each mapped piece, 8 bytes each
+  private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+  private static final long ZERO_KEY = 0x9E3779B97F4A7C15L;
+
+  private final FileChannel channel;
+  private final MappedByteBuffer header;
+  private final MappedByteBuffer[] chunks;
+  private final long mask;
+  private final int shift;
+  private final long maxSize;
+  private long size;
+  private boolean closed;
+
+  /**
+   * Maps the header and slots of a table file whose header is already written.
+   *
+   * @param channel  the open file
+   * @param header   the mapped header
+   * @param capacity the number of slots
+   * @throws IOException if the file cannot be mapped
+   */
+  private MappedTranspositionTable(FileChannel channel, MappedByteBuffer header, long capacity)
+      throws IOException {
+    this.channel = channel;
+    this.header = header;
+    this.mask = capacity - 1;
+    this.shift = 64 - Long.numberOfTrailingZeros(capacity);
+    this.maxSize = capacity / 4 * 3;
+    this.size = header.getLong(SIZE_OFFSET);
+    int numChunks = (int) ((capacity + CHUNK_MASK) >>> CHUNK_SHIFT);
+    this.chunks = new MappedByteBuffer[numChunks];
+    for (int c = 0; c < numChunks; c++) {
+      long first = (long) c << CHUNK_SHIFT;
+      long slots = Math.min(capacity - first, CHUNK_MASK + 1);
+      chunks[c] = channel.map(FileChannel.MapMode.READ_WRITE,
+          HEADER_BYTES + first * Long.BYTES, slots * Long.BYTES);
+    }
+  }
+
+  /**
+   * Creates an empty table in a new file.
+   *
+   * @param file     the file to create
+   * @param capacity the number of slots, a power of two of at least 16
+   * @return the table
+   * @throws IllegalArgumentException if the file is null or the capacity is invalid
+   * @throws IOException              if the file exists already or cannot be created
+   */
+  public static MappedTranspositionTable create(Path file, long capacity)
+      throws IllegalArgumentException, IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("File cannot be null");
+    }
+    if (capacity < 16 || Long.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of two of at least 16");
+    }
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+      header.putLong(0, MAGIC);
+      header.putLong(Long.BYTES, capacity);
+      header.putLong(SIZE_OFFSET, 0);
+      header.putLong(START_OFFSET, 0);
+      return new MappedTranspositionTable(channel, header, capacity);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens a table from a file made by {@link #create(Path, long)}, holding the states it held
+   * when it was last closed.
+   *
+   * @param file the file to open
+   * @return the table
+   * @throws IllegalArgumentException if the file is null
+   * @throws IOException              if the file cannot be opened or does not hold a table
+   */
+  public static MappedTranspositionTable open(Path file)
+      throws IllegalArgumentException, IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("File cannot be null");
+    }
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      if (channel.size() < HEADER_BYTES) {
+        throw new IOException("Not a transposition table: " + file);
+      }
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+      long capacity = header.getLong(Long.BYTES);
+      if (header.getLong(0) != MAGIC || capacity < 16 || Long.bitCount(capacity) != 1
+          || channel.size() < HEADER_BYTES + capacity * Long.BYTES) {
+        throw new IOException("Not a transposition table: " + file);
+      }
+      return new MappedTranspositionTable(channel, header, capacity);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public void claim(long startHash) throws IllegalArgumentException {
+    checkOpen();
+    long key = startHash == 0 ? ZERO_KEY : startHash;
+    long start = header.getLong(START_OFFSET);
+    if (start == 0) {
+      header.putLong(START_OFFSET, key);
+    } else if (start != key) {
+      throw new IllegalArgumentException("Table holds states searched from another start");
+    }
+  }
+
+  @Override
+  public boolean add(long stateHash) throws IllegalStateException {
+    checkOpen();
+    long key = stateHash == 0 ? ZERO_KEY : stateHash;
+    long slot = home(key);
+    for (long stored = slotAt(slot); stored != 0; stored = slotAt(slot)) {
+      if (stored == key) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    if (isFull()) {
+      throw new IllegalStateException("Transposition table is full");
+    }
+    setSlot(slot, key);
+    header.putLong(SIZE_OFFSET, ++size);
+    return true;
+  }
+
+  @Override
+  public void remove(long stateHash) {
+    checkOpen();
+    long key = stateHash == 0 ? ZERO_KEY : stateHash;
+    long hole = home(key);
+    for (long stored = slotAt(hole); stored != key; stored = slotAt(hole)) {
+      if (stored == 0) {
+        return;
+      }
+      hole = (hole + 1) & mask;
+    }
+    // shift back every later key of the run that may fill the hole without passing its home
+    for (long slot = (hole + 1) & mask; slotAt(slot) != 0; slot = (slot + 1) & mask) {
+      long stored = slotAt(slot);
+      if (((slot - home(stored)) & mask) >= ((slot - hole) & mask)) {
+        setSlot(hole, stored);
+        hole = slot;
+      }
+    }
+    setSlot(hole, 0);
+    header.putLong(SIZE_OFFSET, --size);
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public boolean isFull() {
+    return size >= maxSize;
+  }
+
+  /**
+   * Gets the number of slots in the table.
+   *
+   * @return the number of slots, of which three quarters can hold a state
+   */
+  public long capacity() {
+    return mask + 1;
+  }
+
+  /**
+   * Writes every change to the table through to the file, so that it survives the machine
+   * stopping as well as the process.
+   */
+  public void force() {
+    checkOpen();
+    header.force();
+    for (MappedByteBuffer chunk : chunks) {
+      chunk.force();
+    }
+  }
+
+  /**
+   * Writes the table through to the file and closes it. The memory it was mapped to is given
+   * back once the table is garbage collected.
+   *
+   * @throws IOException if the file cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      force();
+      closed = true;
+      channel.close();
+    }
+  }
+
+  /**
+   * Makes sure the table has not been closed.
+   */
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("Transposition table is closed");
+    }
+  }
+
+  /**
+   * Gets the slot where the search for a key starts, from the high bits of a multiple of the
+   * key so that every bit of the key has a say.
+   */
+  private long home(long key) {
+    return (key * 0xBF58476D1CE4E5B9L) >>> shift;
+  }
+
+  /**
+   * Reads the key in a slot, 0 if the slot is empty.
+   */
+  private long slotAt(long slot) {
+    return chunks[(int) (slot >>> CHUNK_SHIFT)].getLong((int) (slot & CHUNK_MASK) * Long.BYTES);
+  }
+
+  /**
+   * Writes a key into a slot.
+   */
+  private void setSlot(long slot, long key) {
+    chunks[(int) (slot >>> CHUNK_SHIFT)].putLong((int) (slot & CHUNK_MASK) * Long.BYTES, key);
+  }
+}
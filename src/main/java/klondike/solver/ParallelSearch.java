@@ -0,0 +1,198 @@
+package klondike.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import klondike.model.hw04.ExtendedKlondikeModel;
+import klondike.model.hw04.KlondikeMove;
+
+/**
+ * A depth-first search over the states of a game that runs on a fork-join pool. Each task
+ * searches a subtree of states on its own copy of the game, in the same order as the search
+ * on a single thread. Whenever the pool runs short of queued work, the task hands the moves
+ * left at its current state to new tasks, which idle workers then steal.
+ *
+ * <p>All tasks share one lock-free transposition table, so a state reached by several tasks is
+ * only searched by the first. The table has a fixed size, twice the limit on states, and keeps
+ * the states it holds, so that the search can still prove a deal cannot be won: if a state
+ * finds no room in it, the search gives up as if it had reached the limit. Tasks stop at their
+ * next state once any task finds a win or the limit on states is reached, so the search ends
+ * soon after the first win instead of waiting for the other subtrees.
+ */
+final class ParallelSearch {
+  private static final int SURPLUS_TO_SPLIT = 1;  // split when at most this many tasks wait
+  private static final int MIN_CAPACITY = 1 << 16;
+  private static final int MAX_CAPACITY = 1 << 24;
+
+  private final long maxStates;
+  private final LockFreeTranspositionTable seen;
+  private final AtomicReference<int[]> winningLine = new AtomicReference<>();
+  private volatile boolean gaveUp;
+
+  /**
+   * Prepares a search.
+   *
+   * @param maxStates the largest number of states to visit
+   */
+  ParallelSearch(long maxStates) {
+    this.maxStates = maxStates;
+    int capacity = MIN_CAPACITY;
+    while (capacity < MAX_CAPACITY && capacity / 2 < maxStates) {
+      capacity *= 2;
+    }
+    this.seen = new LockFreeTranspositionTable(capacity,
+        LockFreeTranspositionTable.ReplacementPolicy.KEEP_EXISTING);
+  }
+
+  /**
+   * Searches the states reachable from a game on a new pool of the given number of workers.
+   *
+   * @param game        the game to search from, which the search changes
+   * @param parallelism the number of workers
+   * @param start       the time the solver started, as given by {@link System#nanoTime()}
+   * @return the result of the search
+   */
+  SolverResult run(ExtendedKlondikeModel<?> game, int parallelism, long start) {
+    visit(SearchStack.key(game, false));
+    if (SearchStack.isWon(game)) {
+      return new SolverResult(SolverResult.Status.SOLVABLE, new int[0], seen.size(),
+          System.nanoTime() - start);
+    }
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.invoke(new SubtreeTask(game, new int[0], false));
+    } finally {
+      pool.shutdown();
+    }
+
+    int[] line = winningLine.get();
+    SolverResult.Status status = line != null ? SolverResult.Status.SOLVABLE
+        : gaveUp ? SolverResult.Status.UNKNOWN : SolverResult.Status.UNSOLVABLE;
+    return new SolverResult(status, line != null ? line : new int[0], seen.size(),
+        System.nanoTime() - start);
+  }
+
+  /**
+   * Stores a state in the transposition table, and gives up the search if there is no room
+   * for it.
+   *
+   * @param key the key of the state
+   * @return true if the state is new and should be searched, false otherwise
+   */
+  private boolean visit(long key) {
+    int outcome = seen.insert(key);
+    if (outcome == LockFreeTranspositionTable.FULL) {
+      gaveUp = true;
+    }
+    return outcome == LockFreeTranspositionTable.STORED;
+  }
+
+  /**
+   * Checks whether the tasks should stop.
+   *
+   * @return true if a win was found or the limit on states was reached, false otherwise
+   */
+  private boolean isStopped() {
+    return winningLine.get() != null || gaveUp;
+  }
+
+  /**
+   * Searches the states below one state, on a copy of the game that the task owns.
+   */
+  private final class SubtreeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    // tasks only live inside one pool and are never serialized, so their state need not be
+    private final transient ExtendedKlondikeModel<?> game;
+    private final transient int[] prefix;
+    private final boolean afterDiscard;
+
+    /**
+     * Creates a task for the subtree below the current state of a game.
+     *
+     * @param game         the game, in the state to search from, owned by the task
+     * @param prefix       the moves that lead to the state from where the whole search started
+     * @param afterDiscard true if the state was reached by discarding a draw card
+     */
+    SubtreeTask(ExtendedKlondikeModel<?> game, int[] prefix, boolean afterDiscard) {
+      this.game = game;
+      this.prefix = prefix;
+      this.afterDiscard = afterDiscard;
+    }
+
+    @Override
+    protected void compute() {
+      SearchStack stack = new SearchStack(game);
+      stack.push(afterDiscard);
+      List<SubtreeTask> forked = new ArrayList<>();
+      while (!stack.isEmpty() && !isStopped()) {
+        if (!stack.hasNextMove()) {
+          stack.pop();
+          if (!stack.isEmpty()) {
+            game.undo();
+          }
+          continue;
+        }
+        int move = stack.nextMove();
+        game.applyMove(move);
+        boolean discarded = KlondikeMove.type(move) == KlondikeMove.DISCARD_DRAW;
+        if (!visit(SearchStack.key(game, discarded))) {
+          game.undo();
+          continue;
+        }
+        if (SearchStack.isWon(game)) {
+          winningLine.compareAndSet(null, concat(prefix, stack.lineWith(move)));
+          break;
+        }
+        if (seen.size() >= maxStates) {
+          gaveUp = true;
+          break;
+        }
+        stack.push(discarded);
+        if (getSurplusQueuedTaskCount() <= SURPLUS_TO_SPLIT) {
+          split(stack, forked);
+        }
+      }
+      for (SubtreeTask task : forked) {
+        task.join();
+      }
+    }
+
+    /**
+     * Hands every move left at the top state of the stack to a new task of its own, which
+     * starts from a copy of the game with the move applied.
+     *
+     * @param stack  the stack of this task
+     * @param forked the tasks forked so far, which the new tasks are added to
+     */
+    private void split(SearchStack stack, List<SubtreeTask> forked) {
+      for (int move : stack.takeRemainingMoves()) {
+        ExtendedKlondikeModel<?> child = game.copy();
+        child.applyMove(move);
+        boolean discarded = KlondikeMove.type(move) == KlondikeMove.DISCARD_DRAW;
+        if (!visit(SearchStack.key(child, discarded))) {
+          continue;
+        }
+        int[] line = concat(prefix, stack.lineWith(move));
+        if (SearchStack.isWon(child)) {
+          winningLine.compareAndSet(null, line);
+          return;
+        }
+        SubtreeTask task = new SubtreeTask(child, line, discarded);
+        task.fork();
+        forked.add(task);
+      }
+    }
+  }
+
+  /**
+   * Joins two lines of moves.
+   */
+  private static int[] concat(int[] first, int[] second) {
+    int[] line = Arrays.copyOf(first, first.length + second.length);
+    System.arraycopy(second, 0, line, first.length, second.length);
+    return line;
+  }
+}
@@ -0,0 +1,264 @@
+package klondike.solver;
+
+import java.util.Arrays;
+import klondike.model.hw02.Card;
+import klondike.model.hw02.KlondikeCard;
+import klondike.model.hw04.ExtendedKlondikeModel;
+import klondike.model.hw04.KlondikeMove;
+
+/**
+ * The path of a depth-first search through the states of a game: one entry for each state
+ * from where the search started down to the current state of the game, holding the moves
+ * still to try from that state. The stack lives in flat arrays reused from state to state
+ * instead of in recursive calls, since winning lines that cycle through the draw pile can be
+ * thousands of moves long.
+ *
+ * <p>The stack decides which moves are worth trying and in which order, as described by
+ * {@link KlondikeSolver}, but it does not apply them: the search applies each move it takes
+ * from the stack to the game, and pushes the state it leads to or takes the move back.
+ */
+final class SearchStack {
+  private static final int NUM_PRIORITIES = 4;
+  private static final long AFTER_DISCARD = 0x5851F42D4C957F2DL;  // marks states after a discard
+
+  private final ExtendedKlondikeModel<?> game;
+  private int[] legalMoves = new int[64];
+  private int[][] movesAt = new int[64][];  // the ordered moves to try at each depth
+  private int[] countAt = new int[64];
+  private int[] nextAt = new int[64];  // the index of the next move to try at each depth
+  private int size;
+
+  /**
+   * Creates an empty stack for searching the given game.
+   *
+   * @param game the game the search plays on
+   */
+  SearchStack(ExtendedKlondikeModel<?> game) {
+    this.game = game;
+  }
+
+  /**
+   * Gets the key of the current state of a game in a transposition table. A state reached by
+   * discarding a draw card is searched with fewer moves than the same state reached otherwise,
+   * so the two get different keys.
+   *
+   * @param game         the game
+   * @param afterDiscard true if the state was reached by discarding a draw card
+   * @return the key of the state
+   */
+  static long key(ExtendedKlondikeModel<?> game, boolean afterDiscard) {
+    return game.stateHash() ^ (afterDiscard ? AFTER_DISCARD : 0);
+  }
+
+  /**
+   * Checks whether every card of a game is on a foundation pile.
+   *
+   * @param game the game
+   * @return true if the cascade and draw piles are all empty, false otherwise
+   */
+  static boolean isWon(ExtendedKlondikeModel<?> game) {
+    if (!game.getDrawCards().isEmpty()) {
+      return false;
+    }
+    for (int pile = 0; pile < game.getNumPiles(); pile++) {
+      if (game.getPileHeight(pile) > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+  /**
+   * Checks whether the stack holds no state.
+   *
+   * @return true if every state was popped, false otherwise
+   */
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Checks whether the state on top of the stack has moves left to try.
+   *
+   * @return true if some move of the top state was not taken yet, false otherwise
+   */
+  boolean hasNextMove() {
+    return nextAt[size - 1] < countAt[size - 1];
+  }
+
+  /**
+   * Takes the next move to try from the state on top of the stack.
+   *
+   * @return the encoded move
+   */
+  int nextMove() {
+    return movesAt[size - 1][nextAt[size - 1]++];
+  }
+
+  /**
+   * Takes every move left to try from the state on top of the stack at once, so that they can
+   * be searched elsewhere.
+   *
+   * @return the encoded moves, possibly none
+   */
+  int[] takeRemainingMoves() {
+    int top = size - 1;
+    int[] remaining = Arrays.copyOfRange(movesAt[top], nextAt[top], countAt[top]);
+    nextAt[top] = countAt[top];
+    return remaining;
+  }
+
+  /**
+   * Removes the state on top of the stack.
+   */
+  void pop() {
+    size--;
+  }
+
+  /**
+   * Gets the moves that lead from the bottom state of the stack to the top state, that is the
+   * move last taken from every state below the top one, followed by one more move.
+   *
+   * @param move the encoded move played from the top state
+   * @return the encoded moves, in the order they were applied
+   */
+  int[] lineWith(int move) {
+    int[] line = new int[size];
+    for (int d = 0; d < size - 1; d++) {
+      line[d] = movesAt[d][nextAt[d] - 1];
+    }
+    line[size - 1] = move;
+    return line;
+  }
+
+  /**
+   * Adds the current state of the game on top of the stack, with the moves to try from it
+   * listed best first, leaving out the moves that only renumber the piles.
+   *
+   * @param afterDiscard true if the current state was reached by discarding a draw card, so
+   *                     that only moves of the draw pile are tried
+   */
+  void push(boolean afterDiscard) {
+    int depth = size++;
+    int count = game.getLegalMoves(legalMoves);
+    if (count > legalMoves.length) {
+      legalMoves = new int[count * 2];
+      game.getLegalMoves(legalMoves);
+    }
+    if (depth == movesAt.length) {
+      movesAt = Arrays.copyOf(movesAt, depth * 2);
+      countAt = Arrays.copyOf(countAt, depth * 2);
+      nextAt = Arrays.copyOf(nextAt, depth * 2);
+    }
+    if (movesAt[depth] == null || movesAt[depth].length < count) {
+      movesAt[depth] = new int[Math.max(count, 16)];
+    }
+
+    int[] ordered = movesAt[depth];
+    int safeValue = safeFoundationValue();
+    int allowed = 0;
+    for (int i = 0; i < count; i++) {
+      int type = KlondikeMove.type(legalMoves[i]);
+      if (!afterDiscard
+          || type != KlondikeMove.PILE_TO_PILE && type != KlondikeMove.PILE_TO_FOUNDATION) {
+        legalMoves[allowed++] = legalMoves[i];
+      }
+    }
+    count = allowed;
+    for (int i = 0; i < count; i++) {
+      if (movedValue(legalMoves[i]) <= safeValue) {
+        ordered[0] = legalMoves[i];  // no other move can do better
+        countAt[depth] = 1;
+        nextAt[depth] = 0;
+        return;
+      }
+    }
+    int numOrdered = 0;
+    for (int priority = 0; priority < NUM_PRIORITIES; priority++) {
+      int lastFoundationSource = -2;  // the draw pile is -1
+      for (int i = 0; i < count; i++) {
+        int move = legalMoves[i];
+        int type = KlondikeMove.type(move);
+        if (type == KlondikeMove.PILE_TO_FOUNDATION
+            || type == KlondikeMove.DRAW_TO_FOUNDATION) {
+          int source = type == KlondikeMove.PILE_TO_FOUNDATION ? KlondikeMove.source(move) : -1;
+          if (source == lastFoundationSource) {
+            continue;  // the same card to another foundation
+          }
+          lastFoundationSource = source;
+        }
+        if (priority(move) == priority) {
+          ordered[numOrdered++] = move;
+        }
+      }
+    }
+    countAt[depth] = numOrdered;
+    nextAt[depth] = 0;
+  }
+
+  /**
+   * Finds the highest value a card can have and still be moved to a foundation safely: every
+   * card one value lower is already on a foundation, since each foundation has a card of
+   * every value it has passed and there are as many foundations as Aces.
+   *
+   * @return the highest value that is safe to move to a foundation, at least 2
+   */
+  private int safeFoundationValue() {
+    int lowestTop = Integer.MAX_VALUE;
+    for (int f = 0; f < game.getNumFoundations(); f++) {
+      Card top = game.getCardAt(f);
+      lowestTop = Math.min(lowestTop, top instanceof KlondikeCard card ? card.getValue() : 0);
+    }
+    return Math.max(2, lowestTop + 1);
+  }
+
+  /**
+   * Gets the value of the card a move puts on a foundation.
+   *
+   * @param move the encoded move
+   * @return the value of the moved card, or a value above every card if the move does not
+   *         go to a foundation
+   */
+  private int movedValue(int move) {
+    Card card;
+    switch (KlondikeMove.type(move)) {
+      case KlondikeMove.PILE_TO_FOUNDATION:
+        int source = KlondikeMove.source(move);
+        card = game.getCardAt(source, game.getPileHeight(source) - 1);
+        break;
+      case KlondikeMove.DRAW_TO_FOUNDATION:
+        card = game.getDrawCards().get(0);
+        break;
+      default:
+        return Integer.MAX_VALUE;
+    }
+    return card instanceof KlondikeCard klondikeCard
+        ? klondikeCard.getValue() : Integer.MAX_VALUE;
+  }
+
+  /**
+   * Ranks a move by how likely it is to lead to a win, 0 being the most likely.
+   *
+   * @param move the encoded move
+   * @return the rank of the move, or -1 if the move only renumbers the piles
+   */
+  private int priority(int move) {
+    switch (KlondikeMove.type(move)) {
+      case KlondikeMove.PILE_TO_FOUNDATION:
+      case KlondikeMove.DRAW_TO_FOUNDATION:
+        return 0;
+      case KlondikeMove.PILE_TO_PILE:
+        int source = KlondikeMove.source(move);
+        int remaining = game.getPileHeight(source) - KlondikeMove.numCards(move);
+        if (remaining == 0) {
+          return game.getPileHeight(KlondikeMove.destination(move)) == 0 ? -1 : 1;
+        }
+        return game.isCardVisible(source, remaining - 1) ? 2 : 1;
+      case KlondikeMove.DRAW_TO_PILE:
+        return 2;
+      default:
+        return 3;
+    }
+  }
+}
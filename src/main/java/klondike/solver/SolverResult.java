@@ -0,0 +1,89 @@
+package klondike.solver;
+
+import klondike.model.hw04.KlondikeMove;
+
+/**
+ * The outcome of solving a deal: whether it can be won, the moves that win it if it can, and
+ * how many states the search visited and how long it took to find out.
+ */
+public final class SolverResult {
+  /**
+   * Defines what the search found out about a deal.
+   */
+  public enum Status {
+    /** The deal can be won, and the result holds the moves that win it. */
+    SOLVABLE,
+    /** Every state reachable from the deal was searched and none of them is won. */
+    UNSOLVABLE,
+    /** The search visited as many states as it was allowed to without an answer. */
+    UNKNOWN
+  }
+
+  private final Status status;
+  private final int[] moves;
+  private final long statesVisited;
+  private final long elapsedNanos;
+
+  /**
+   * Creates a result.
+   *
+   * @param status        what the search found out
+   * @param moves         the encoded winning moves, empty unless the deal is solvable
+   * @param statesVisited the number of distinct states the search visited
+   * @param elapsedNanos  the time the search took, in nanoseconds
+   */
+  SolverResult(Status status, int[] moves, long statesVisited, long elapsedNanos) {
+    this.status = status;
+    this.moves = moves;
+    this.statesVisited = statesVisited;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * Gets what the search found out about the deal.
+   *
+   * @return the status of the deal
+   */
+  public Status getStatus() {
+    return status;
+  }
+
+  /**
+   * Gets the moves that win the deal, encoded by {@link KlondikeMove}, in the order they must
+   * be applied to the game that was solved.
+   *
+   * @return a copy of the winning moves, empty unless the deal is solvable
+   */
+  public int[] getMoves() {
+    return moves.clone();
+  }
+
+  /**
+   * Gets the number of distinct states the search visited, including the starting state.
+   *
+   * @return the number of states visited
+   */
+  public long getStatesVisited() {
+    return statesVisited;
+  }
+
+  /**
+   * Gets the time the search took, from copying the game to returning the result.
+   *
+   * @return the time taken, in nanoseconds
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder(status.toString());
+    result.append(" after ").append(statesVisited).append(" states in ")
+        .append(elapsedNanos / 1_000_000).append(" ms");
+    for (int i = 0; i < moves.length; i++) {
+      result.append(i == 0 ? ": " : ", ").append(KlondikeMove.toString(moves[i]));
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,56 @@
+package klondike.solver;
+
+/**
+ * The set of game states a search has already reached, keyed by state hash. The solver keeps
+ * its states in a table on the heap unless it is given another table, such as one kept in a
+ * file, to search with.
+ *
+ * <p>A table that already holds states is only sound for a search from the state the search
+ * that filled it started from: a state goes into the table once every move from it was tried,
+ * but moves back onto the line the search was on are skipped then, and the states of that line
+ * are taken out of the table when the search ends. Only a search from the same start walks that
+ * line again, so a table is tied to the first start state it is used for.
+ *
+ * <p>Like any table keyed by hash alone, a table treats two states with the same 64-bit hash as
+ * the same state.
+ */
+public interface TranspositionTable {
+
+  /**
+   * Ties the table to the state a search with it starts from, if it is not tied to one yet.
+   *
+   * @param startHash the hash of the state the search starts from
+   * @throws IllegalArgumentException if the table is tied to another start state
+   */
+  void claim(long startHash) throws IllegalArgumentException;
+
+  /**
+   * Adds a state to the table if it is not there yet.
+   *
+   * @param stateHash the hash of the state
+   * @return true if the state was added, false if the table already held it
+   * @throws IllegalStateException if the table is full and does not hold the state
+   */
+  boolean add(long stateHash) throws IllegalStateException;
+
+  /**
+   * Removes a state from the table if it is there.
+   *
+   * @param stateHash the hash of the state
+   */
+  void remove(long stateHash);
+
+  /**
+   * Gets the number of states in the table.
+   *
+   * @return the number of states the table holds
+   */
+  long size();
+
+  /**
+   * Checks whether the table has no room for another state.
+   *
+   * @return true if adding a state not in the table would fail, false otherwise
+   */
+  boolean isFull();
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.List;
 import klondike.model.hw02.Card;
 import klondike.model.hw02.KlondikeModel;
+import klondike.model.hw04.UncheckedBoard;
 
 /**
  * A textual view for displaying the state of a Klondike Solitaire game.
@@ -100,16 +101,20 @@ public class KlondikeTextualView implements TextualView {
   /**
    * Creates the cascade piles lien to the string builder.
    * Each card position is 3 characters wide with right-alignment.
+   * Games that offer an {@link UncheckedBoard} are read through it, since every position the
+   * view asks about is in bounds, so a render does not repeat the checks once per card.
    *
    * @param board the string builder to append to, representing the game board
    */
   private void cascadePiles(StringBuilder board) {
     int numRows = model.getNumRows();
     int numPiles = model.getNumPiles();
+    UncheckedBoard<?> cascades = model instanceof UncheckedBoard<?> unchecked
+        ? unchecked : new CheckedBoard(model);
 
     for (int row = 0; row < numRows; row++) {
       for (int pile = 0; pile < numPiles; pile++) {
-        String cardStr = getCardAtPosition(pile, row);
+        String cardStr = getCardAtPosition(cascades, pile, row);
         if (cardStr.length() == 1) {
           board.append("  ").append(cardStr); // 2 spaces + card
         } else if (cardStr.length() == 2) {
@@ -129,23 +134,21 @@ public class KlondikeTextualView implements TextualView {
    * Gets the string representation of a card at a specific position
    * Returns "?" for face-down cards, "X" for empty piles, or the card's string value.
    *
-   * @param pile the pile index
-   * @param row  the row index
+   * @param cascades the cascade piles of the game
+   * @param pile     the pile index
+   * @param row      the row index
    * @return a string representation of the card at the position
    */
-  private String getCardAtPosition(int pile, int row) {
-    int pileHeight = model.getPileHeight(pile);
+  private String getCardAtPosition(UncheckedBoard<?> cascades, int pile, int row) {
+    int pileHeight = cascades.getPileHeightUnchecked(pile);
     if (pileHeight == 0 && row == 0) {
       return " X"; // show x at row 0 for empty piles!
     }
     if (row >= pileHeight) { // check if position is beyond pile height!
       return "   "; // 3 spaces for empty position
     }
-    if (model.isCardVisible(pile, row)) {
-      return model.getCardAt(pile, row).toString();
-    } else {
-      return "?";
-    }
+    Card card = cascades.getCardAtUnchecked(pile, row);
+    return card == null ? "?" : card.toString();
   }
 
   @Override
@@ -154,4 +157,31 @@ public class KlondikeTextualView implements TextualView {
       log.append(this.toString());
     }
   }
+
+  /**
+   * Reads the cascade piles of a game that has no unchecked accessors through its checked
+   * ones.
+   */
+  private static final class CheckedBoard implements UncheckedBoard<Card> {
+    private final KlondikeModel<?> model;
+
+    /**
+     * Wraps a game.
+     *
+     * @param model the game to read
+     */
+    private CheckedBoard(KlondikeModel<?> model) {
+      this.model = model;
+    }
+
+    @Override
+    public int getPileHeightUnchecked(int pileNum) {
+      return model.getPileHeight(pileNum);
+    }
+
+    @Override
+    public Card getCardAtUnchecked(int pileNum, int card) {
+      return model.isCardVisible(pileNum, card) ? model.getCardAt(pileNum, card) : null;
+    }
+  }
 }
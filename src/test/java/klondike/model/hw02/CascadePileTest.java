@@ -0,0 +1,170 @@
+package klondike.model.hw02;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiPredicate;
+import org.junit.Test;
+
+/**
+ * A class for testing the visibility rules of CascadePile.
+ */
+public class CascadePileTest {
+
+  /**
+   * Creates a pile of face-down cards of clubs from the Ace up to the given value.
+   */
+  private static CascadePile faceDownPile(int numCards) {
+    CascadePile pile = new CascadePile();
+    for (int i = 0; i < numCards; i++) {
+      pile.addCard(new PlayingCard(Value.values()[i], Suit.CLUBS), false);
+    }
+    return pile;
+  }
+
+  @Test
+  public void testRemoveFlipsNewBottomCard() {
+    CascadePile pile = faceDownPile(3);
+    pile.addCard(new PlayingCard(Value.KING, Suit.HEARTS), true);
+    assertEquals(3, pile.getFirstVisibleIndex());
+    assertFalse(pile.isCardVisible(2));
+
+    pile.removeCard();
+    assertTrue(pile.isCardVisible(2));
+    assertFalse(pile.isCardVisible(1));
+    assertEquals("3♣", pile.getBottomVisibleCard().toString());
+    assertEquals(List.of(pile.getCardAt(2)), pile.getVisibleCards());
+  }
+
+  @Test
+  public void testRemoveKeepsOtherVisibleCards() {
+    CascadePile pile = faceDownPile(2);
+    pile.addCard(new PlayingCard(Value.KING, Suit.HEARTS), true);
+    pile.addCard(new PlayingCard(Value.QUEEN, Suit.SPADES), true);
+
+    pile.removeCard();
+    assertEquals(2, pile.getFirstVisibleIndex());
+    assertEquals("K♡", pile.getBottomVisibleCard().toString());
+  }
+
+  @Test
+  public void testTurnBottomCardFaceDown() {
+    CascadePile pile = faceDownPile(2);
+    pile.addCard(new PlayingCard(Value.KING, Suit.HEARTS), true);
+    pile.removeCard();
+    pile.turnBottomCardFaceDown();
+    assertEquals(2, pile.getFirstVisibleIndex());
+    assertTrue(pile.getVisibleCards().isEmpty());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testFaceDownCardBelowFaceUpCard() {
+    CascadePile pile = new CascadePile();
+    pile.addCard(new PlayingCard(Value.KING, Suit.HEARTS), true);
+    pile.addCard(new PlayingCard(Value.QUEEN, Suit.SPADES), false);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testBottomVisibleCardOfFaceDownPile() {
+    faceDownPile(2).getBottomVisibleCard();
+  }
+
+  @Test
+  public void testTransferMovesRunAndFlipsNewBottomCard() {
+    CascadePile source = faceDownPile(2);
+    for (int i = 12; i >= 0; i--) {
+      source.addCard(new PlayingCard(Value.values()[i], Suit.SPADES), true);
+    }
+    CascadePile dest = faceDownPile(1);
+    dest.addCard(new PlayingCard(Value.KING, Suit.HEARTS), true);
+
+    source.transferTo(dest, 13);
+    assertEquals(2, source.size());
+    assertEquals(1, source.getFirstVisibleIndex());
+    assertEquals("2♣", source.getBottomVisibleCard().toString());
+    assertEquals(15, dest.size());
+    assertEquals(1, dest.getFirstVisibleIndex());
+    assertEquals("K♠", dest.getCardAt(2).toString());
+    assertEquals("A♠", dest.getBottomVisibleCard().toString());
+
+    dest.transferTo(source, 3);
+    assertEquals(5, source.size());
+    assertEquals(1, source.getFirstVisibleIndex());
+    assertEquals("3♠", source.getCardAt(2).toString());
+  }
+
+  @Test
+  public void testTransferRejectsInvalidRuns() {
+    CascadePile source = faceDownPile(2);
+    source.addCard(new PlayingCard(Value.KING, Suit.HEARTS), true);
+    CascadePile dest = new CascadePile();
+    assertThrows(IllegalArgumentException.class, () -> source.transferTo(dest, 2));
+    assertThrows(IllegalArgumentException.class, () -> source.transferTo(dest, 0));
+    assertThrows(IllegalArgumentException.class, () -> source.transferTo(dest, 4));
+    assertThrows(IllegalArgumentException.class, () -> source.transferTo(source, 1));
+    assertThrows(IllegalArgumentException.class, () -> source.transferTo(null, 1));
+    assertEquals(3, source.size());
+    assertTrue(dest.isEmpty());
+  }
+
+  /**
+   * The run rule of Whitehead Klondike: the next card has the same suit and is one lower.
+   */
+  private static final BiPredicate<Card, Card> SAME_SUIT_DOWN = (prev, next) ->
+      ((PlayingCard) prev).getSuitEnum() == ((PlayingCard) next).getSuitEnum()
+          && ((PlayingCard) prev).getValue() == ((PlayingCard) next).getValue() + 1;
+
+  /**
+   * Measures the movable run at the bottom of a pile by checking every pair of cards.
+   */
+  private static int scanRunLength(CascadePile pile) {
+    if (pile.getFirstVisibleIndex() == pile.size()) {
+      return 0;
+    }
+    int length = 1;
+    while (pile.size() - length > pile.getFirstVisibleIndex()
+        && SAME_SUIT_DOWN.test(pile.getCardAt(pile.size() - length - 1),
+        pile.getCardAt(pile.size() - length))) {
+      length++;
+    }
+    return length;
+  }
+
+  @Test
+  public void testRunLengthMatchesScan() {
+    Random random = new Random(3);
+    CascadePile[] piles = {new CascadePile(SAME_SUIT_DOWN), new CascadePile(SAME_SUIT_DOWN)};
+    for (int step = 0; step < 5000; step++) {
+      CascadePile pile = piles[random.nextInt(2)];
+      CascadePile other = pile == piles[0] ? piles[1] : piles[0];
+      int choice = random.nextInt(10);
+      if (choice < 5) {
+        boolean visible = pile.getFirstVisibleIndex() < pile.size() || random.nextBoolean();
+        pile.addCard(new PlayingCard(Value.values()[random.nextInt(4)],
+            Suit.values()[random.nextInt(2)]), visible);
+      } else if (choice < 7 && !pile.isEmpty()) {
+        pile.removeCard();
+      } else if (choice < 9 && pile.getRunLength() > 0) {
+        pile.transferTo(other, 1 + random.nextInt(pile.size() - pile.getFirstVisibleIndex()));
+      } else if (pile.size() > 1 && pile.getFirstVisibleIndex() == pile.size() - 1) {
+        pile.turnBottomCardFaceDown();
+      }
+      assertEquals(scanRunLength(piles[0]), piles[0].getRunLength());
+      assertEquals(scanRunLength(piles[1]), piles[1].getRunLength());
+    }
+  }
+
+  @Test
+  public void testDefaultPileHasSingleCardRuns() {
+    CascadePile pile = faceDownPile(2);
+    assertEquals(0, pile.getRunLength());
+    pile.addCard(new PlayingCard(Value.KING, Suit.HEARTS), true);
+    pile.addCard(new PlayingCard(Value.QUEEN, Suit.SPADES), true);
+    assertEquals(1, pile.getRunLength());
+    assertThrows(IllegalArgumentException.class, () -> new CascadePile(null));
+  }
+}
@@ -0,0 +1,133 @@
+package klondike.model.hw02;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times the visibility lookups of cascade piles of 1 up to 32 decks' worth of cards, almost all
+ * face down, against a pile that keeps a flag per card the way CascadePile did before it kept
+ * the index of its first face-up card, and prints the time per step of each. Each step takes
+ * the bottom card and puts it back, then finds the bottom face-up card and checks whether the
+ * middle card is face up. This is not a test: run its main method by hand.
+ */
+public final class CascadeVisibilityBenchmark {
+  private static final int STEPS = 2_000_000;
+
+  private CascadeVisibilityBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args unused
+   */
+  public static void main(String[] args) {
+    for (int warmUp = 0; warmUp < 5; warmUp++) {  // warms up the JIT
+      timeIndexed(416);
+      timeFlagged(416);
+    }
+    for (int numDecks : new int[] {1, 4, 8, 16, 32}) {
+      int depth = numDecks * 52;
+      System.out.printf("%4d cards: %6.1f ns/step first-visible index, "
+          + "%7.1f ns/step flag list%n", depth, timeIndexed(depth), timeFlagged(depth));
+    }
+  }
+
+  /**
+   * Times the steps on a CascadePile of the given height with two face-up cards at the bottom.
+   *
+   * @return the time per step in nanoseconds
+   */
+  private static double timeIndexed(int depth) {
+    CascadePile pile = new CascadePile();
+    for (int i = 0; i < depth; i++) {
+      pile.addCard(PlayingCard.of(i % 52), i >= depth - 2);
+    }
+    long sink = 0;
+    long start = System.nanoTime();
+    for (int step = 0; step < STEPS; step++) {
+      Card card = pile.removeCard();
+      pile.addCard(card, true);
+      sink += pile.getBottomVisibleCard().hashCode();
+      sink += pile.isCardVisible(depth / 2) ? 1 : 0;
+    }
+    return finish(start, sink);
+  }
+
+  /**
+   * Times the same steps on a pile that keeps the visibility of each card in a list.
+   *
+   * @return the time per step in nanoseconds
+   */
+  private static double timeFlagged(int depth) {
+    FlaggedPile pile = new FlaggedPile();
+    for (int i = 0; i < depth; i++) {
+      pile.addCard(PlayingCard.of(i % 52), i >= depth - 2);
+    }
+    long sink = 0;
+    long start = System.nanoTime();
+    for (int step = 0; step < STEPS; step++) {
+      Card card = pile.removeCard();
+      pile.addCard(card, true);
+      sink += pile.getBottomVisibleCard().hashCode();
+      sink += pile.isCardVisible(depth / 2) ? 1 : 0;
+    }
+    return finish(start, sink);
+  }
+
+  /**
+   * Works out the time per step of a loop that started at the given time.
+   */
+  private static double finish(long start, long sink) {
+    double perStep = (double) (System.nanoTime() - start) / STEPS;
+    if (sink == 42) {
+      System.out.print("");  // keeps the lookups from being optimized away
+    }
+    return perStep;
+  }
+
+  /**
+   * The visibility bookkeeping CascadePile had before, a flag per card that removing a card
+   * scans from the top to decide whether to turn the new bottom card face up.
+   */
+  private static final class FlaggedPile {
+    private final List<Card> cards = new ArrayList<>();
+    private final List<Boolean> isVisible = new ArrayList<>();
+
+    void addCard(Card card, boolean visible) {
+      cards.add(card);
+      isVisible.add(visible);
+    }
+
+    Card removeCard() {
+      Card removed = cards.removeLast();
+      isVisible.removeLast();
+      if (!cards.isEmpty() && !hasVisibleCards()) {
+        isVisible.set(isVisible.size() - 1, true);
+      }
+      return removed;
+    }
+
+    boolean isCardVisible(int index) {
+      return isVisible.get(index);
+    }
+
+    Card getBottomVisibleCard() {
+      for (int i = cards.size() - 1; i >= 0; i--) {
+        if (isVisible.get(i)) {
+          return cards.get(i);
+        }
+      }
+      throw new IllegalStateException("No visible cards in pile");
+    }
+
+    private boolean hasVisibleCards() {
+      for (Boolean visible : isVisible) {
+        if (visible) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package klondike.model.hw02;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cycles the stock of games of 1 up to 8 decks millions of times, discarding the top card and
+ * reading the draw cards shown after each discard, and prints the best time per discard of the
+ * DrawPile ring against a plain list that moves the top card to the back the way DrawPile did
+ * before it became a ring. This is not a test: run its main method by hand.
+ */
+public final class DrawPileBenchmark {
+  private static final int DISCARDS = 5_000_000;
+  private static final int NUM_DRAW = 3;
+  private static final int ROUNDS = 5;
+
+  private DrawPileBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args unused
+   */
+  public static void main(String[] args) {
+    for (int numDecks : new int[] {1, 2, 4, 8}) {
+      int stockSize = numDecks * 52 - 28;  // what is left of the decks after dealing 7 piles
+      double ring = Double.MAX_VALUE;
+      double list = Double.MAX_VALUE;
+      for (int run = 0; run < ROUNDS; run++) {  // the first runs also warm up the JIT
+        ring = Math.min(ring, timeRing(stockSize));
+        list = Math.min(list, timeList(stockSize));
+      }
+      System.out.printf("%3d cards: %5.1f ns/discard ring, %6.1f ns/discard list%n",
+          stockSize, ring, list);
+    }
+  }
+
+  /**
+   * Times discarding from a DrawPile of the given size.
+   *
+   * @return the time per discard in nanoseconds
+   */
+  private static double timeRing(int stockSize) {
+    DrawPile pile = new DrawPile(NUM_DRAW);
+    for (int i = 0; i < stockSize; i++) {
+      pile.addCard(PlayingCard.of(i % 52));
+    }
+    List<Card> shown = pile.getVisibleCards();
+    long sink = 0;
+    long start = System.nanoTime();
+    for (int discard = 0; discard < DISCARDS; discard++) {
+      pile.discardTopCard();
+      for (int i = 0; i < shown.size(); i++) {
+        sink += shown.get(i).hashCode();
+      }
+    }
+    return finish(start, sink);
+  }
+
+  /**
+   * Times discarding from a list of the given size by moving its first card to the back.
+   *
+   * @return the time per discard in nanoseconds
+   */
+  private static double timeList(int stockSize) {
+    List<Card> pile = new ArrayList<>();
+    for (int i = 0; i < stockSize; i++) {
+      pile.add(PlayingCard.of(i % 52));
+    }
+    long sink = 0;
+    long start = System.nanoTime();
+    for (int discard = 0; discard < DISCARDS; discard++) {
+      pile.add(pile.removeFirst());
+      for (int i = 0; i < Math.min(NUM_DRAW, pile.size()); i++) {
+        sink += pile.get(i).hashCode();
+      }
+    }
+    return finish(start, sink);
+  }
+
+  /**
+   * Works out the time per discard of a loop that started at the given time.
+   */
+  private static double finish(long start, long sink) {
+    double perDiscard = (double) (System.nanoTime() - start) / DISCARDS;
+    if (sink == 42) {
+      System.out.print("");  // keeps the reads from being optimized away
+    }
+    return perDiscard;
+  }
+}
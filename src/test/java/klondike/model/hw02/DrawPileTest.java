@@ -0,0 +1,66 @@
+package klondike.model.hw02;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * A class for testing the circular buffer behind DrawPile.
+ */
+public class DrawPileTest {
+
+  @Test
+  public void testDiscardCyclesThroughPile() {
+    DrawPile pile = new DrawPile(3);
+    for (Value value : Value.values()) {
+      pile.addCard(new PlayingCard(value, Suit.SPADES));
+    }
+    for (int i = 0; i < 13 * 5 + 2; i++) {
+      pile.discardTopCard();
+    }
+    assertEquals("3♠", pile.getTopCard().toString());
+    assertEquals("[3♠, 4♠, 5♠]", pile.getVisibleCards().toString());
+    assertEquals("2♠", pile.getCardAt(12).toString());
+  }
+
+  @Test
+  public void testMatchesListUnderRandomOperations() {
+    DrawPile pile = new DrawPile(3);
+    List<Card> expected = new ArrayList<>();
+    Random random = new Random(1);
+    for (int i = 0; i < 10000; i++) {
+      Card card = new PlayingCard(Value.values()[random.nextInt(13)],
+          Suit.values()[random.nextInt(4)]);
+      switch (expected.isEmpty() ? random.nextInt(2) : random.nextInt(6)) {
+        case 0:
+          pile.addCard(card);
+          expected.add(card);
+          break;
+        case 1:
+          pile.addTopCard(card);
+          expected.addFirst(card);
+          break;
+        case 2:
+          assertEquals(expected.removeFirst(), pile.removeCard());
+          break;
+        case 3:
+          pile.discardTopCard();
+          expected.add(expected.removeFirst());
+          break;
+        case 4:
+          pile.undoDiscard();
+          expected.addFirst(expected.removeLast());
+          break;
+        default:
+          assertEquals(expected.getFirst(), pile.getTopCard());
+          break;
+      }
+      assertEquals(expected, pile.getCards());
+    }
+    assertTrue(pile.size() > 16); // the buffer has grown
+  }
+}
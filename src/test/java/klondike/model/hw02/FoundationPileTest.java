@@ -0,0 +1,59 @@
+package klondike.model.hw02;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * A class for testing FoundationPile, which keeps only a suit and a top value.
+ */
+public class FoundationPileTest {
+
+  @Test
+  public void testCardsAreRebuiltFromTopValue() {
+    FoundationPile pile = new FoundationPile();
+    for (int i = 0; i < 4; i++) {
+      pile.addCard(new PlayingCard(Value.values()[i], Suit.DIAMONDS));
+    }
+    assertEquals(4, pile.size());
+    assertEquals(4, pile.getTopValue());
+    assertEquals(Suit.DIAMONDS, pile.getSuit());
+    assertEquals(new PlayingCard(Value.FOUR, Suit.DIAMONDS), pile.getTopCard());
+    assertEquals(new PlayingCard(Value.TWO, Suit.DIAMONDS), pile.getCardAt(1));
+    assertEquals("[A♢, 2♢, 3♢, 4♢]", pile.getCards().toString());
+  }
+
+  @Test
+  public void testCanAddCard() {
+    FoundationPile pile = new FoundationPile();
+    assertFalse(pile.canAddCard(new PlayingCard(Value.TWO, Suit.CLUBS)));
+    assertTrue(pile.canAddCard(new PlayingCard(Value.ACE, Suit.HEARTS)));
+    pile.addCard(new PlayingCard(Value.ACE, Suit.CLUBS));
+    assertTrue(pile.canAddCard(new PlayingCard(Value.TWO, Suit.CLUBS)));
+    assertFalse(pile.canAddCard(new PlayingCard(Value.TWO, Suit.SPADES)));
+    assertFalse(pile.canAddCard(new PlayingCard(Value.THREE, Suit.CLUBS)));
+    assertFalse(pile.canAddCard(null));
+  }
+
+  @Test
+  public void testRemoveResetsSuit() {
+    FoundationPile pile = new FoundationPile();
+    pile.addCard(new PlayingCard(Value.ACE, Suit.SPADES));
+    pile.addCard(new PlayingCard(Value.TWO, Suit.SPADES));
+    assertEquals(new PlayingCard(Value.TWO, Suit.SPADES), pile.removeCard());
+    assertEquals(new PlayingCard(Value.ACE, Suit.SPADES), pile.removeCard());
+    assertNull(pile.getSuit());
+    assertNull(pile.getTopCard());
+    assertTrue(pile.canAddCard(new PlayingCard(Value.ACE, Suit.HEARTS)));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testAddWrongSuit() {
+    FoundationPile pile = new FoundationPile();
+    pile.addCard(new PlayingCard(Value.ACE, Suit.SPADES));
+    pile.addCard(new PlayingCard(Value.TWO, Suit.HEARTS));
+  }
+}
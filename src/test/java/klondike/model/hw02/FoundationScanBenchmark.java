@@ -0,0 +1,116 @@
+package klondike.model.hw02;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiPredicate;
+
+/**
+ * Times the loop that asks every foundation whether it takes a card, as isGameOver and hints
+ * do for the bottom card of each pile, over the foundations of games of 1 up to 8 decks filled
+ * to random heights. It prints the best time per card of FoundationPile against a foundation
+ * that keeps a list of its cards the way FoundationPile did before it kept only a suit and a
+ * top value. This is not a test: run its main method by hand.
+ */
+public final class FoundationScanBenchmark {
+  private static final int SCANS = 200_000;
+  private static final int ROUNDS = 5;
+
+  private FoundationScanBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args unused
+   */
+  public static void main(String[] args) {
+    for (int numDecks : new int[] {1, 2, 4, 8}) {
+      Random random = new Random(numDecks);
+      List<FoundationPile> foundations = new ArrayList<>();
+      List<ListFoundation> listFoundations = new ArrayList<>();
+      for (int f = 0; f < 4 * numDecks; f++) {
+        FoundationPile foundation = new FoundationPile();
+        ListFoundation listFoundation = new ListFoundation();
+        Suit suit = Suit.values()[f % 4];
+        int height = random.nextInt(13);
+        for (Value value : Value.values()) {
+          if (value.ordinal() < height) {
+            foundation.addCard(PlayingCard.of(value, suit));
+            listFoundation.addCard(PlayingCard.of(value, suit));
+          }
+        }
+        foundations.add(foundation);
+        listFoundations.add(listFoundation);
+      }
+      Card[] bottoms = new Card[52];
+      for (int i = 0; i < bottoms.length; i++) {
+        bottoms[i] = PlayingCard.of(random.nextInt(52));
+      }
+
+      double counter = Double.MAX_VALUE;
+      double list = Double.MAX_VALUE;
+      for (int run = 0; run < ROUNDS; run++) {  // the first runs also warm up the JIT
+        counter = Math.min(counter, timeScan(bottoms, foundations, FoundationPile::canAddCard));
+        list = Math.min(list, timeScan(bottoms, listFoundations, ListFoundation::canAddCard));
+      }
+      System.out.printf("%2d foundations: %5.1f ns/card suit and value, %5.1f ns/card list%n",
+          foundations.size(), counter, list);
+    }
+  }
+
+  /**
+   * Asks the foundations about every card, many times over, stopping at the first foundation
+   * that takes each card.
+   *
+   * @return the time per card in nanoseconds
+   */
+  private static <F> double timeScan(Card[] cards, List<F> foundations,
+                                     BiPredicate<F, Card> accepts) {
+    long sink = 0;
+    long start = System.nanoTime();
+    for (int scan = 0; scan < SCANS; scan++) {
+      for (Card card : cards) {
+        for (int f = 0; f < foundations.size(); f++) {
+          if (accepts.test(foundations.get(f), card)) {
+            sink += f;
+            break;
+          }
+        }
+      }
+    }
+    double perCard = (double) (System.nanoTime() - start) / ((long) SCANS * cards.length);
+    if (sink == 42) {
+      System.out.print("");  // keeps the checks from being optimized away
+    }
+    return perCard;
+  }
+
+  /**
+   * The foundation FoundationPile was before, a list of cards whose check casts the card and
+   * the top card to PlayingCard.
+   */
+  private static final class ListFoundation {
+    private final List<Card> cards = new ArrayList<>();
+    private Suit suit;
+
+    void addCard(Card card) {
+      if (cards.isEmpty()) {
+        suit = ((PlayingCard) card).getSuitEnum();
+      }
+      cards.add(card);
+    }
+
+    boolean canAddCard(Card card) {
+      if (card == null || !(card instanceof PlayingCard playingCard)) {
+        return false;
+      }
+      if (cards.isEmpty()) {
+        return playingCard.getValueEnum() == Value.ACE;
+      }
+      PlayingCard topCard = (PlayingCard) cards.getLast();
+      return playingCard.getSuitEnum() == this.suit
+          && playingCard.getValue() == topCard.getValue() + 1;
+    }
+  }
+}
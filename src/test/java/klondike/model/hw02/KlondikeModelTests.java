@@ -8,6 +8,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import klondike.model.hw04.KlondikeMove;
 import org.junit.Test;
 
 /**
@@ -1075,4 +1076,161 @@ public class KlondikeModelTests {
     model.startGame(deck, false, 2, 1);
     assertEquals(2, model.getNumFoundations()); // 2 aces
   }
+
+  @Test
+  public void testCanMoveQueriesBeforeStart() {
+    BasicKlondike model = new BasicKlondike();
+    assertFalse(model.canMovePile(0, 1, 1));
+    assertFalse(model.canMoveDraw(0));
+    assertFalse(model.canMoveToFoundation(0, 0));
+    assertFalse(model.canMoveDrawToFoundation(0));
+  }
+
+  @Test
+  public void testCanMoveQueriesOutOfBounds() {
+    BasicKlondike model = new BasicKlondike();
+    model.startGame(model.createNewDeck(), false, 7, 3);
+    assertFalse(model.canMovePile(-1, 1, 1));
+    assertFalse(model.canMovePile(0, 1, 7));
+    assertFalse(model.canMovePile(0, 1, 0));
+    assertFalse(model.canMovePile(6, 0, 1));
+    assertFalse(model.canMovePile(6, 8, 1));
+    assertFalse(model.canMoveDraw(7));
+    assertFalse(model.canMoveToFoundation(0, 4));
+    assertFalse(model.canMoveDrawToFoundation(-1));
+  }
+
+  @Test
+  public void testCanMoveQueriesAgreeWithMoves() {
+    BasicKlondike model = new BasicKlondike();
+    model.startGame(model.createNewDeck(), false, 7, 3);
+
+    // A♣ sits alone in pile 0, K♢ is the visible card of pile 5
+    assertTrue(model.canMoveToFoundation(0, 0));
+    assertFalse(model.canMoveToFoundation(1, 0));
+    assertFalse(model.canMovePile(0, 1, 1));
+    assertFalse(model.canMovePile(5, 2, 0)); // face-down card in the run
+    assertFalse(model.canMoveDrawToFoundation(0));
+    assertFalse(model.canMoveDraw(0));
+
+    model.moveToFoundation(0, 0);
+    assertEquals(0, model.getPileHeight(0));
+    assertTrue(model.canMovePile(5, 1, 0)); // only a king may fill the empty pile
+    assertFalse(model.canMovePile(3, 1, 0));
+    assertFalse(model.canMoveToFoundation(0, 0));
+
+    model.movePile(5, 1, 0);
+    assertEquals("K♢", model.getCardAt(0, 0).toString());
+  }
+
+  @Test
+  public void testGetLegalMovesInitialDeal() {
+    BasicKlondike model = new BasicKlondike();
+    model.startGame(model.createNewDeck(), false, 7, 3);
+    int[] moves = new int[64];
+    int count = model.getLegalMoves(moves);
+
+    // A♣ and A♢ to any of the 4 foundations, A♣ onto 2♡, and the discard
+    assertEquals(10, count);
+    List<String> commands = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      commands.add(KlondikeMove.toString(moves[i]));
+    }
+    assertTrue(commands.contains("mpf 1 1"));
+    assertTrue(commands.contains("mpf 3 4"));
+    assertTrue(commands.contains("mpp 1 1 7"));
+    assertEquals("dd", commands.get(count - 1));
+  }
+
+  @Test
+  public void testGetLegalMovesSmallBuffer() {
+    BasicKlondike model = new BasicKlondike();
+    model.startGame(model.createNewDeck(), false, 7, 3);
+    int[] moves = new int[2];
+    assertEquals(10, model.getLegalMoves(moves));
+    assertEquals("mpf 1 1", KlondikeMove.toString(moves[0]));
+    assertEquals("mpf 1 2", KlondikeMove.toString(moves[1]));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testGetLegalMovesBeforeStart() {
+    new BasicKlondike().getLegalMoves(new int[8]);
+  }
+
+  @Test
+  public void testApplyMove() {
+    BasicKlondike model = new BasicKlondike();
+    model.startGame(model.createNewDeck(), false, 7, 3);
+    model.applyMove(KlondikeMove.pileToPile(0, 1, 6));
+    assertEquals(0, model.getPileHeight(0));
+    assertEquals("A♣", model.getCardAt(6, 7).toString());
+    model.applyMove(KlondikeMove.pileToFoundation(6, 0));
+    assertEquals(1, model.getScore());
+    model.applyMove(KlondikeMove.discardDraw());
+    assertEquals("4♡", model.getDrawCards().getFirst().toString());
+  }
+
+  @Test
+  public void testUndoTurnsRevealedCardFaceDown() {
+    BasicKlondike model = new BasicKlondike();
+    model.startGame(model.createNewDeck(), false, 7, 3);
+    assertFalse(model.canUndo());
+
+    model.moveToFoundation(2, 0); // A♢ reveals the card above it
+    assertTrue(model.isCardVisible(2, 1));
+    assertTrue(model.canUndo());
+
+    model.undo();
+    assertEquals(3, model.getPileHeight(2));
+    assertFalse(model.isCardVisible(2, 1));
+    assertEquals("A♢", model.getCardAt(2, 2).toString());
+    assertNull(model.getCardAt(0));
+    assertEquals(0, model.getScore());
+    assertFalse(model.canUndo());
+    assertTrue(model.canRedo());
+
+    model.redo();
+    assertEquals("A♢", model.getCardAt(0).toString());
+    assertTrue(model.isCardVisible(2, 1));
+    assertFalse(model.canRedo());
+  }
+
+  @Test
+  public void testUndoDrawMoves() {
+    BasicKlondike model = new BasicKlondike();
+    model.startGame(model.createNewDeck(), false, 7, 3);
+    model.discardDraw();
+    model.discardDraw();
+    assertEquals("5♡", model.getDrawCards().getFirst().toString());
+    model.undo();
+    assertEquals("4♡", model.getDrawCards().getFirst().toString());
+    model.undo();
+    assertEquals("3♡", model.getDrawCards().getFirst().toString());
+    assertEquals("5♡", model.getDrawCards().get(2).toString());
+  }
+
+  @Test
+  public void testNewMoveClearsRedo() {
+    BasicKlondike model = new BasicKlondike();
+    model.startGame(model.createNewDeck(), false, 7, 3);
+    model.discardDraw();
+    model.undo();
+    assertTrue(model.canRedo());
+    model.moveToFoundation(0, 0);
+    assertFalse(model.canRedo());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUndoWithNoMoves() {
+    BasicKlondike model = new BasicKlondike();
+    model.startGame(model.createNewDeck(), false, 7, 3);
+    model.undo();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testRedoWithNoMoves() {
+    BasicKlondike model = new BasicKlondike();
+    model.startGame(model.createNewDeck(), false, 7, 3);
+    model.redo();
+  }
 }
@@ -0,0 +1,133 @@
+package klondike.model.hw02;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import klondike.model.hw04.ExtendedKlondikeModel;
+import klondike.model.hw04.KlondikeCreator;
+import klondike.model.hw04.KlondikeSnapshot;
+import klondike.model.hw04.PackedKlondike;
+import klondike.model.hw04.WhiteheadKlondike;
+import org.junit.Test;
+
+/**
+ * A class for testing the read-only views that piles and games return instead of copies.
+ */
+public class PileViewTest {
+
+  /**
+   * Counts the bytes allocated by the current thread so far.
+   */
+  private static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+        .getThreadAllocatedBytes(Thread.currentThread().threadId());
+  }
+
+  /**
+   * Reads the draw cards of a game the way a render does, many times over, and returns how
+   * many bytes that allocated.
+   */
+  private static long bytesForDrawLines(KlondikeModel<Card> game, int renders) {
+    long before = allocatedBytes();
+    int length = 0;
+    for (int render = 0; render < renders; render++) {
+      List<Card> drawCards = game.getDrawCards();
+      for (int i = 0; i < drawCards.size(); i++) {
+        length += drawCards.get(i).toString().length();
+      }
+    }
+    long allocated = allocatedBytes() - before;
+    assertTrue(length > 0);
+    return allocated;
+  }
+
+  @Test
+  public void testViewsFollowThePile() {
+    DrawPile pile = new DrawPile(2);
+    List<Card> visible = pile.getVisibleCards();
+    List<Card> all = pile.getCards();
+    assertTrue(visible.isEmpty());
+
+    pile.addCard(PlayingCard.of(Value.ACE, Suit.SPADES));
+    pile.addCard(PlayingCard.of(Value.TWO, Suit.SPADES));
+    pile.addCard(PlayingCard.of(Value.THREE, Suit.SPADES));
+    assertEquals("[A♠, 2♠]", visible.toString());
+    pile.discardTopCard();
+    assertEquals("[2♠, 3♠]", visible.toString());
+    assertEquals("[2♠, 3♠, A♠]", all.toString());
+    assertSame(visible, pile.getVisibleCards());
+    assertSame(all, pile.getCards());
+  }
+
+  @Test
+  public void testGameDrawViewFollowsRestore() {
+    List<ExtendedKlondikeModel<Card>> games = List.of(new WhiteheadKlondike(),
+        new PackedKlondike(KlondikeCreator.GameType.WHITEHEAD));
+    for (ExtendedKlondikeModel<Card> game : games) {
+      game.startGame(game.createNewDeck(), false, 7, 3);
+      List<Card> drawCards = game.getDrawCards();
+      String dealt = drawCards.toString();
+      KlondikeSnapshot snapshot = game.snapshot();
+      game.discardDraw();
+      assertNotEquals(dealt, drawCards.toString());
+
+      game.restore(snapshot);
+      assertEquals(dealt, drawCards.toString());
+      game.discardDraw();
+      assertEquals(game.getDrawCards().toString(), drawCards.toString());
+      assertSame(drawCards, game.getDrawCards());
+    }
+  }
+
+  @Test
+  public void testViewsCannotBeModified() {
+    CascadePile pile = new CascadePile();
+    pile.addCard(PlayingCard.of(Value.KING, Suit.HEARTS), true);
+    assertThrows(UnsupportedOperationException.class, () -> pile.getCards().remove(0));
+    assertThrows(UnsupportedOperationException.class,
+        () -> pile.getVisibleCards().add(PlayingCard.of(Value.ACE, Suit.CLUBS)));
+    FoundationPile foundation = new FoundationPile();
+    assertThrows(UnsupportedOperationException.class,
+        () -> foundation.getCards().add(PlayingCard.of(Value.ACE, Suit.CLUBS)));
+    assertThrows(IndexOutOfBoundsException.class, () -> foundation.getCards().get(0));
+    assertEquals(1, pile.size());
+  }
+
+  @Test
+  public void testIteratorFailsWhenPileChanges() {
+    CascadePile pile = new CascadePile();
+    pile.addCard(PlayingCard.of(Value.KING, Suit.HEARTS), true);
+    pile.addCard(PlayingCard.of(Value.QUEEN, Suit.SPADES), true);
+    Iterator<Card> cards = pile.getVisibleCards().iterator();
+    cards.next();
+    pile.removeCard();
+    assertThrows(ConcurrentModificationException.class, cards::next);
+
+    WhiteheadKlondike game = new WhiteheadKlondike();
+    game.startGame(game.createNewDeck(), false, 7, 3);
+    Iterator<Card> drawCards = game.getDrawCards().iterator();
+    game.discardDraw();
+    assertThrows(ConcurrentModificationException.class, drawCards::next);
+  }
+
+  @Test
+  public void testDrawLineAllocatesNothing() {
+    KlondikeModel<Card> objectGame = new WhiteheadKlondike();
+    KlondikeModel<Card> packedGame = new PackedKlondike(KlondikeCreator.GameType.WHITEHEAD);
+    objectGame.startGame(objectGame.createNewDeck(), false, 7, 3);
+    packedGame.startGame(packedGame.createNewDeck(), false, 7, 3);
+    bytesForDrawLines(objectGame, 1000);  // warms up the counters and the code
+    bytesForDrawLines(packedGame, 1000);
+
+    // copying the three draw cards would allocate about 80 bytes per render
+    assertTrue(bytesForDrawLines(objectGame, 100_000) < 100_000);
+    assertTrue(bytesForDrawLines(packedGame, 100_000) < 100_000);
+  }
+}
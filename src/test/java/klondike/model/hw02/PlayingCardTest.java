@@ -0,0 +1,86 @@
+package klondike.model.hw02;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * A class for testing the interned card table of PlayingCard.
+ */
+public class PlayingCardTest {
+
+  @Test
+  public void testOfReturnsSharedInstance() {
+    assertSame(PlayingCard.of(Value.QUEEN, Suit.HEARTS),
+        PlayingCard.of(Value.QUEEN, Suit.HEARTS));
+    assertSame(PlayingCard.of(Value.QUEEN, Suit.HEARTS), PlayingCard.of(37));
+  }
+
+  @Test
+  public void testOrdinalsAreDense() {
+    boolean[] seen = new boolean[52];
+    for (Suit suit : Suit.values()) {
+      for (Value value : Value.values()) {
+        PlayingCard card = PlayingCard.of(value, suit);
+        assertFalse(seen[card.ordinal()]);
+        seen[card.ordinal()] = true;
+        assertEquals(value, card.getValueEnum());
+        assertEquals(suit, card.getSuitEnum());
+      }
+    }
+    assertEquals(0, PlayingCard.of(Value.ACE, Suit.CLUBS).ordinal());
+    assertEquals(51, PlayingCard.of(Value.KING, Suit.SPADES).ordinal());
+  }
+
+  @Test
+  public void testConstructedCardEqualsInternedCard() {
+    PlayingCard card = new PlayingCard(Value.TEN, Suit.DIAMONDS);
+    PlayingCard interned = PlayingCard.of(Value.TEN, Suit.DIAMONDS);
+    assertNotSame(interned, card);
+    assertEquals(interned, card);
+    assertEquals(interned.hashCode(), card.hashCode());
+    assertEquals(interned.ordinal(), card.ordinal());
+    assertEquals("10♢", card.toString());
+    assertFalse(card.isBlack());
+    assertTrue(PlayingCard.of(Value.TEN, Suit.SPADES).isBlack());
+  }
+
+  @Test
+  public void testDefaultOrdinalMatchesPlayingCard() {
+    for (PlayingCard interned : List.of(PlayingCard.of(0), PlayingCard.of(37),
+        PlayingCard.of(51))) {
+      KlondikeCard card = new KlondikeCard() {
+        @Override
+        public String getSuit() {
+          return interned.getSuit();
+        }
+
+        @Override
+        public int getValue() {
+          return interned.getValue();
+        }
+
+        @Override
+        public boolean isBlack() {
+          return interned.isBlack();
+        }
+      };
+      assertEquals(interned.ordinal(), card.ordinal());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOfNullSuit() {
+    PlayingCard.of(Value.ACE, null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOfInvalidOrdinal() {
+    PlayingCard.of(52);
+  }
+}
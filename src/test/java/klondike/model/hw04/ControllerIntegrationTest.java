@@ -6,12 +6,18 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import klondike.controller.KlondikeController;
 import klondike.controller.KlondikeTextualController;
 import klondike.model.hw02.BasicKlondike;
 import klondike.model.hw02.Card;
 import klondike.model.hw02.KlondikeModel;
+import klondike.model.hw02.PlayingCard;
+import klondike.model.hw02.Suit;
+import klondike.model.hw02.Value;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -181,6 +187,70 @@ public class ControllerIntegrationTest {
     assertTrue(result.contains("Game quit!"));
   }
 
+  @Test
+  public void testControllerMoveToSuitFoundationWhitehead() {
+    KlondikeModel<Card> model = new WhiteheadKlondike();
+    KlondikeController controller = new KlondikeTextualController(
+        new StringReader("mpf 1 dd q"), output);
+
+    controller.playGame(model, deck, false, 7, 3);
+
+    String result = output.toString();
+    assertTrue(result.contains("Score: 1"));
+    assertFalse(result.contains("Invalid move"));
+    assertTrue(result.contains("Game quit!"));
+  }
+
+  @Test
+  public void testControllerMoveDrawToSuitFoundationWhitehead() {
+    KlondikeModel<Card> model = new WhiteheadKlondike();
+    List<Card> aceOnDraw = new ArrayList<>(deck);
+    Collections.swap(aceOnDraw, 28, aceOnDraw.indexOf(PlayingCard.of(Value.ACE, Suit.HEARTS)));
+    KlondikeController controller = new KlondikeTextualController(
+        new StringReader("mdf\nq\n"), output);
+
+    controller.playGame(model, aceOnDraw, false, 7, 3);
+
+    String result = output.toString();
+    assertTrue(result.contains("Score: 1"));
+    assertFalse(result.contains("Invalid move"));
+    assertTrue(result.contains("Game quit!"));
+
+    output = new StringBuilder();
+    controller = new KlondikeTextualController(new StringReader("mdf u q"), output);
+    controller.playGame(new WhiteheadKlondike(), deck, false, 7, 3);
+    assertTrue(output.toString().contains("No foundation pile accepts the card"));
+  }
+
+  @Test
+  public void testControllerRunsSuitFoundationMoveAtEndOfLine() {
+    List<Card> aceOnDraw = new ArrayList<>(deck);
+    Collections.swap(aceOnDraw, 28, aceOnDraw.indexOf(PlayingCard.of(Value.ACE, Suit.HEARTS)));
+    StringBuilder outputBeforeSecondLine = new StringBuilder();
+    // hands out one line per read, like a user typing at a terminal
+    Readable typed = new Readable() {
+      private final String[] lines = {"mdf\n", "q\n"};
+      private int next;
+
+      @Override
+      public int read(CharBuffer buffer) {
+        if (next == lines.length) {
+          return -1;
+        }
+        if (next == 1) {
+          outputBeforeSecondLine.append(output);
+        }
+        buffer.put(lines[next]);
+        return lines[next++].length();
+      }
+    };
+
+    new KlondikeTextualController(typed, output).playGame(new WhiteheadKlondike(), aceOnDraw,
+        false, 7, 3);
+    assertTrue(outputBeforeSecondLine.toString().contains("Score: 1"));
+    assertTrue(output.toString().contains("Game quit!"));
+  }
+
   // CONTROLLER ERROR WITH WHITEHEAD
 
   @Test
@@ -351,4 +421,40 @@ public class ControllerIntegrationTest {
     assertTrue(result.contains("Draw:"));
     assertTrue(result.contains("Game quit!"));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testControllerUndoRedoWhitehead() {
+    KlondikeModel<Card> model = new WhiteheadKlondike();
+    KlondikeController controller = new KlondikeTextualController(
+        new StringReader("dd u r u q"), output);
+
+    controller.playGame(model, deck, false, 7, 3);
+
+    String result = output.toString();
+    assertFalse(result.contains("Invalid move"));
+    assertTrue(result.endsWith("State of game when quit:\n"
+        + "Draw: 3♡, 4♡, 5♡\n"
+        + "Foundation: <none>, <none>, <none>, <none>\n"
+        + " A♣ 2♣ 3♣ 4♣ 5♣ 6♣ 7♣\n"
+        + "    8♣ 9♣10♣ J♣ Q♣ K♣\n"
+        + "       A♢ 2♢ 3♢ 4♢ 5♢\n"
+        + "          6♢ 7♢ 8♢ 9♢\n"
+        + "            10♢ J♢ Q♢\n"
+        + "                K♢ A♡\n"
+        + "                   2♡\n"
+        + "Score: 0\n"));
+  }
+
+  @Test
+  public void testControllerUndoWithNoMovesWhitehead() {
+    KlondikeModel<Card> model = new WhiteheadKlondike();
+    KlondikeController controller = new KlondikeTextualController(
+        new StringReader("u r q"), output);
+
+    controller.playGame(model, deck, false, 7, 3);
+
+    String result = output.toString();
+    assertTrue(result.contains("Invalid move. Play again. Nothing to undo"));
+    assertTrue(result.contains("Invalid move. Play again. Nothing to redo"));
+  }
+}
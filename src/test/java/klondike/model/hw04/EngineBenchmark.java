@@ -0,0 +1,114 @@
+package klondike.model.hw04;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import klondike.model.hw02.Card;
+
+/**
+ * Plays random playouts of the same deals on the object engine and on the packed engine of
+ * each variant, and prints the best moves per second of five runs and the bytes allocated per
+ * move over all of them. A move here is listing the legal moves, making one of them at random
+ * and later undoing it, which is what a search or a simulation does at every step. This is not
+ * a test: run its main method by hand.
+ */
+public final class EngineBenchmark {
+  private static final int NUM_DEALS = 20;
+  private static final int MOVES_PER_PLAYOUT = 200;
+  private static final int ROUNDS = 10;
+  private static final int RUNS = 5;
+
+  private EngineBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optionally the number of decks in each deal, 1 if left out
+   */
+  public static void main(String[] args) {
+    int numDecks = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+    for (KlondikeCreator.GameType type : KlondikeCreator.GameType.values()) {
+      for (KlondikeCreator.Engine engine : KlondikeCreator.Engine.values()) {
+        List<ExtendedKlondikeModel<Card>> games = deal(type, engine, numDecks);
+        playAll(games);  // warms up the JIT before anything is timed
+        playAll(games);
+
+        long bytes = allocatedBytes();
+        long moves = 0;
+        double movesPerSecond = 0;
+        for (int run = 0; run < RUNS; run++) {
+          long start = System.nanoTime();
+          long runMoves = 0;
+          for (int round = 0; round < ROUNDS; round++) {
+            runMoves += playAll(games);
+          }
+          movesPerSecond = Math.max(movesPerSecond, runMoves * 1e9 / (System.nanoTime() - start));
+          moves += runMoves;
+        }
+        System.out.printf("%-9s %-6s %9.0f moves/s, %6.1f bytes/move%n", type, engine,
+            movesPerSecond, (double) (allocatedBytes() - bytes) / moves);
+      }
+    }
+  }
+
+  /**
+   * Starts a game of the given variant on the given engine for every deal.
+   */
+  private static List<ExtendedKlondikeModel<Card>> deal(KlondikeCreator.GameType type,
+      KlondikeCreator.Engine engine, int numDecks) {
+    List<ExtendedKlondikeModel<Card>> games = new ArrayList<>();
+    for (int seed = 0; seed < NUM_DEALS; seed++) {
+      ExtendedKlondikeModel<Card> game =
+          (ExtendedKlondikeModel<Card>) KlondikeCreator.create(type, engine);
+      List<Card> deck = new ArrayList<>();
+      for (int copy = 0; copy < numDecks; copy++) {
+        deck.addAll(game.createNewDeck());
+      }
+      Collections.shuffle(deck, new Random(seed));
+      game.startGame(deck, false, 7 + 3 * (numDecks - 1), 3);
+      games.add(game);
+    }
+    return games;
+  }
+
+  /**
+   * Plays random legal moves from every game and then undoes them all, so that every game
+   * ends where it started and plays the same moves again next time.
+   *
+   * @return the number of moves made
+   */
+  private static long playAll(List<ExtendedKlondikeModel<Card>> games) {
+    int[] legalMoves = new int[512];
+    long moves = 0;
+    for (int g = 0; g < games.size(); g++) {
+      ExtendedKlondikeModel<Card> game = games.get(g);
+      SplittableRandom random = new SplittableRandom(g);
+      int made = 0;
+      while (made < MOVES_PER_PLAYOUT) {
+        int numLegal = Math.min(game.getLegalMoves(legalMoves), legalMoves.length);
+        if (numLegal == 0) {
+          break;
+        }
+        game.applyMove(legalMoves[random.nextInt(numLegal)]);
+        made++;
+      }
+      for (int i = 0; i < made; i++) {
+        game.undo();
+      }
+      moves += made;
+    }
+    return moves;
+  }
+
+  /**
+   * Counts the bytes allocated by the current thread so far.
+   */
+  private static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+        .getThreadAllocatedBytes(Thread.currentThread().threadId());
+  }
+}
@@ -0,0 +1,149 @@
+package klondike.model.hw04;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import klondike.model.hw02.Card;
+
+/**
+ * Times isGameOver on Whitehead games of 7 up to 50 piles against a scan that looks for moves
+ * between every pair of piles and from every pile to every foundation, the way isGameOver did
+ * before the moves were tracked, and prints the time per call of each along with what a move
+ * and its undo cost now that they keep the tracked moves up to date. Each game is dealt from
+ * as many decks as it needs and then has its draw pile emptied, so that isGameOver has to look
+ * at the piles. The scan counts every move it finds instead of stopping at the first, as it
+ * has to when there are none. This is not a test: run its main method by hand.
+ */
+public final class GameOverBenchmark {
+  private static final int CALLS = 1_000_000;
+  private static final int SCANS = 200;
+  private static final int ROUNDS = 5;
+
+  private GameOverBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args unused
+   */
+  public static void main(String[] args) {
+    for (int numPiles : new int[] {7, 10, 20, 30, 40, 50}) {
+      WhiteheadKlondike game = dealWithoutDrawPile(numPiles);
+      int[] legalMoves = new int[4096];
+      game.getLegalMoves(legalMoves);
+      int move = legalMoves[0];
+
+      double tracked = Double.MAX_VALUE;
+      double scanned = Double.MAX_VALUE;
+      double moveAndUndo = Double.MAX_VALUE;
+      for (int run = 0; run < ROUNDS; run++) {  // the first runs also warm up the JIT
+        tracked = Math.min(tracked, timeGameOver(game));
+        scanned = Math.min(scanned, timeScan(game));
+        moveAndUndo = Math.min(moveAndUndo, timeMoveAndUndo(game, move));
+      }
+      System.out.printf("%2d piles: isGameOver %5.1f ns, full scan %10.1f ns, "
+          + "move + undo %7.1f ns%n", numPiles, tracked, scanned, moveAndUndo);
+    }
+  }
+
+  /**
+   * Deals a game of the given number of piles from enough shuffled decks, and empties its
+   * draw pile by restoring it from a snapshot without the draw cards.
+   */
+  private static WhiteheadKlondike dealWithoutDrawPile(int numPiles) {
+    WhiteheadKlondike game = new WhiteheadKlondike();
+    List<Card> deck = new ArrayList<>();
+    int numDecks = numPiles * (numPiles + 1) / 2 / 52 + 1;
+    for (int copy = 0; copy < numDecks; copy++) {
+      deck.addAll(game.createNewDeck());
+    }
+    Collections.shuffle(deck, new Random(numPiles));
+    game.startGame(deck, false, numPiles, 3);
+
+    KlondikeSnapshot dealt = game.snapshot();
+    WhiteheadKlondike withoutDraw = new WhiteheadKlondike();
+    withoutDraw.restore(new KlondikeSnapshot(dealt.variant, dealt.cardsById, dealt.numDraw,
+        dealt.pileHeights, dealt.faceDownCounts, dealt.cascadeCards, dealt.foundationTops,
+        new byte[0], dealt.stateHash));
+    return withoutDraw;
+  }
+
+  /**
+   * Times isGameOver, asking copies of the game in turn so that the answer cannot be worked
+   * out once for the whole loop.
+   *
+   * @return the time per call in nanoseconds
+   */
+  private static double timeGameOver(WhiteheadKlondike game) {
+    AbstractKlondike[] copies = new AbstractKlondike[16];
+    for (int i = 0; i < copies.length; i++) {
+      copies[i] = game.copy();
+    }
+    long sink = 0;
+    long start = System.nanoTime();
+    for (int call = 0; call < CALLS; call++) {
+      sink += copies[call & (copies.length - 1)].isGameOver() ? 1 : 0;
+    }
+    return finish(start, CALLS, sink);
+  }
+
+  /**
+   * Times counting every move from a pile to a foundation or to another pile.
+   *
+   * @return the time per scan in nanoseconds
+   */
+  private static double timeScan(WhiteheadKlondike game) {
+    long sink = 0;
+    long start = System.nanoTime();
+    for (int scan = 0; scan < SCANS; scan++) {
+      sink += countMoves(game);
+    }
+    return finish(start, SCANS, sink);
+  }
+
+  /**
+   * Counts the moves from every pile to every foundation and every other pile.
+   */
+  private static int countMoves(WhiteheadKlondike game) {
+    int moves = 0;
+    int numPiles = game.getNumPiles();
+    for (int src = 0; src < numPiles; src++) {
+      for (int foundation = 0; foundation < game.getNumFoundations(); foundation++) {
+        moves += game.canMoveToFoundation(src, foundation) ? 1 : 0;
+      }
+      for (int dest = 0; dest < numPiles; dest++) {
+        for (int numCards = 1; numCards <= game.getPileHeight(src); numCards++) {
+          moves += game.canMovePile(src, numCards, dest) ? 1 : 0;
+        }
+      }
+    }
+    return moves;
+  }
+
+  /**
+   * Times making a move and undoing it.
+   *
+   * @return the time per move and undo in nanoseconds
+   */
+  private static double timeMoveAndUndo(WhiteheadKlondike game, int move) {
+    long start = System.nanoTime();
+    for (int call = 0; call < CALLS / 10; call++) {
+      game.applyMove(move);
+      game.undo();
+    }
+    return finish(start, CALLS / 10, 0);
+  }
+
+  /**
+   * Works out the time per call of a loop that started at the given time.
+   */
+  private static double finish(long start, int calls, long sink) {
+    double perCall = (double) (System.nanoTime() - start) / calls;
+    if (sink == 42) {
+      System.out.print("");  // keeps the calls from being optimized away
+    }
+    return perCall;
+  }
+}
@@ -0,0 +1,156 @@
+package klondike.model.hw04;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import klondike.model.hw02.Card;
+
+/**
+ * Times probing every pile move, foundation move and draw move of a set of Whitehead deals,
+ * most of which are illegal, first through the can* queries and then by trying each move and
+ * catching the exception it throws, and prints the time and bytes allocated per probe of each.
+ * Legal moves are made and undone either way. This is not a test: run its main method by hand.
+ */
+public final class MoveValidationBenchmark {
+  private static final int NUM_DEALS = 20;
+  private static final int ROUNDS = 200;
+
+  private MoveValidationBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args unused
+   */
+  public static void main(String[] args) {
+    List<WhiteheadKlondike> games = new ArrayList<>();
+    for (int seed = 0; seed < NUM_DEALS; seed++) {
+      WhiteheadKlondike game = new WhiteheadKlondike();
+      List<Card> deck = game.createNewDeck();
+      Collections.shuffle(deck, new Random(seed));
+      game.startGame(deck, false, 7, 3);
+      games.add(game);
+    }
+    probeAll(games, true);  // warms up the JIT before anything is timed
+    probeAll(games, false);
+
+    for (boolean queries : new boolean[] {true, false}) {
+      long bytes = allocatedBytes();
+      long start = System.nanoTime();
+      long probes = 0;
+      int legal = 0;
+      for (int round = 0; round < ROUNDS; round++) {
+        legal = probeAll(games, queries);
+        probes += probesPerRound(games);
+      }
+      long elapsed = System.nanoTime() - start;
+      System.out.printf("%-10s %6.1f ns/probe, %6.1f bytes/probe, %d of %d probes legal%n",
+          queries ? "queries:" : "exceptions:", (double) elapsed / probes,
+          (double) (allocatedBytes() - bytes) / probes, legal, probesPerRound(games));
+    }
+  }
+
+  /**
+   * Probes every move of every game once.
+   *
+   * @param queries true to ask the can* queries, false to try the moves and catch exceptions
+   * @return the number of legal moves found
+   */
+  private static int probeAll(List<WhiteheadKlondike> games, boolean queries) {
+    int legal = 0;
+    for (WhiteheadKlondike game : games) {
+      int numPiles = game.getNumPiles();
+      for (int src = 0; src < numPiles; src++) {
+        for (int dest = 0; dest < numPiles; dest++) {
+          for (int numCards = 1; numCards <= 13; numCards++) {
+            legal += probe(game, KlondikeMove.pileToPile(src, numCards, dest), queries);
+          }
+        }
+        for (int foundation = 0; foundation < game.getNumFoundations(); foundation++) {
+          legal += probe(game, KlondikeMove.pileToFoundation(src, foundation), queries);
+        }
+        legal += probe(game, KlondikeMove.drawToPile(src), queries);
+      }
+    }
+    return legal;
+  }
+
+  /**
+   * Counts the probes made by one call to {@link #probeAll(List, boolean)}.
+   */
+  private static long probesPerRound(List<WhiteheadKlondike> games) {
+    long probes = 0;
+    for (WhiteheadKlondike game : games) {
+      probes += game.getNumPiles() * (game.getNumPiles() * 13L + game.getNumFoundations() + 1);
+    }
+    return probes;
+  }
+
+  /**
+   * Probes one move, making and undoing it if it is legal.
+   *
+   * @return 1 if the move is legal, 0 otherwise
+   */
+  private static int probe(WhiteheadKlondike game, int move, boolean queries) {
+    if (queries) {
+      if (!canApply(game, move)) {
+        return 0;
+      }
+      game.applyMove(move);
+      game.undo();
+      return 1;
+    }
+    try {
+      applyDirectly(game, move);
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      return 0;
+    }
+    game.undo();
+    return 1;
+  }
+
+  /**
+   * Asks the query that matches the type of a move.
+   */
+  private static boolean canApply(WhiteheadKlondike game, int move) {
+    int src = KlondikeMove.source(move);
+    int dest = KlondikeMove.destination(move);
+    switch (KlondikeMove.type(move)) {
+      case KlondikeMove.PILE_TO_PILE:
+        return game.canMovePile(src, KlondikeMove.numCards(move), dest);
+      case KlondikeMove.PILE_TO_FOUNDATION:
+        return game.canMoveToFoundation(src, dest);
+      default:
+        return game.canMoveDraw(dest);
+    }
+  }
+
+  /**
+   * Calls the move method that matches the type of a move, which throws if it is illegal.
+   */
+  private static void applyDirectly(WhiteheadKlondike game, int move) {
+    int src = KlondikeMove.source(move);
+    int dest = KlondikeMove.destination(move);
+    switch (KlondikeMove.type(move)) {
+      case KlondikeMove.PILE_TO_PILE:
+        game.movePile(src, KlondikeMove.numCards(move), dest);
+        break;
+      case KlondikeMove.PILE_TO_FOUNDATION:
+        game.moveToFoundation(src, dest);
+        break;
+      default:
+        game.moveDraw(dest);
+    }
+  }
+
+  /**
+   * Counts the bytes allocated by the current thread so far.
+   */
+  private static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+        .getThreadAllocatedBytes(Thread.currentThread().threadId());
+  }
+}
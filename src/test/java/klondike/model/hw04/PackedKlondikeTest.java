@@ -0,0 +1,250 @@
+package klondike.model.hw04;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import klondike.model.hw02.BasicKlondike;
+import klondike.model.hw02.Card;
+import klondike.model.hw02.KlondikeModel;
+import klondike.view.KlondikeTextualView;
+import org.junit.Test;
+
+/**
+ * Test class for PackedKlondike, which plays each move alongside the game of the same variant
+ * on the object engine and checks that both games always agree.
+ */
+public class PackedKlondikeTest {
+
+  /**
+   * Creates the game of the given type on the object engine.
+   */
+  private static AbstractKlondike objectGame(KlondikeCreator.GameType type) {
+    return (AbstractKlondike) KlondikeCreator.create(type);
+  }
+
+  /**
+   * Describes the whole visible state of a game.
+   */
+  private static String describe(KlondikeModel<Card> game) {
+    return new KlondikeTextualView(game).toString() + " " + game.getScore() + " "
+        + game.isGameOver() + " " + game.getNumFoundations();
+  }
+
+  /**
+   * Runs an action on a game and describes its outcome: the exception it threw, if any.
+   */
+  private static String outcome(Runnable action) {
+    try {
+      action.run();
+      return "ok";
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      return e.getClass().getSimpleName() + ": " + e.getMessage();
+    }
+  }
+
+  /**
+   * Plays a random mix of legal moves, illegal moves, undos and redos on both engines,
+   * checking after every step that they agree.
+   */
+  private static void playInLockstep(KlondikeCreator.GameType type, List<Card> deck,
+                                     int numPiles, int numDraw, long seed) {
+    AbstractKlondike expected = objectGame(type);
+    PackedKlondike actual = new PackedKlondike(type);
+    expected.startGame(deck, false, numPiles, numDraw);
+    actual.startGame(deck, false, numPiles, numDraw);
+    Random random = new Random(seed);
+    int[] expectedMoves = new int[1024];
+    int[] actualMoves = new int[1024];
+
+    for (int turn = 0; turn < 400; turn++) {
+      assertEquals(describe(expected), describe(actual));
+      assertEquals(expected.stateHash(), actual.stateHash());
+      assertEquals(actual.computeStateHash(), actual.stateHash());
+      int count = expected.getLegalMoves(expectedMoves);
+      assertEquals(count, actual.getLegalMoves(actualMoves));
+      assertArrayEquals(Arrays.copyOf(expectedMoves, count), Arrays.copyOf(actualMoves, count));
+      if (count == 0) {
+        break;
+      }
+
+      int choice = random.nextInt(10);
+      if (choice == 0 && expected.canUndo()) {
+        expected.undo();
+        actual.undo();
+      } else if (choice == 1 && expected.canRedo()) {
+        expected.redo();
+        actual.redo();
+      } else if (choice < 5) {
+        int src = random.nextInt(numPiles + 2) - 1;
+        int numCards = random.nextInt(4);
+        int dest = random.nextInt(numPiles + 2) - 1;
+        int foundation = random.nextInt(expected.getNumFoundations() + 2) - 1;
+        assertEquals(outcome(() -> expected.movePile(src, numCards, dest)),
+            outcome(() -> actual.movePile(src, numCards, dest)));
+        assertEquals(outcome(() -> expected.moveDraw(dest)),
+            outcome(() -> actual.moveDraw(dest)));
+        assertEquals(outcome(() -> expected.moveToFoundation(src, foundation)),
+            outcome(() -> actual.moveToFoundation(src, foundation)));
+        assertEquals(outcome(() -> expected.moveDrawToFoundation(foundation)),
+            outcome(() -> actual.moveDrawToFoundation(foundation)));
+        assertEquals(outcome(() -> expected.moveToSuitFoundation(src)),
+            outcome(() -> actual.moveToSuitFoundation(src)));
+        assertEquals(outcome(() -> expected.moveDrawToSuitFoundation()),
+            outcome(() -> actual.moveDrawToSuitFoundation()));
+        assertEquals(outcome(() -> expected.getCardAt(src, numCards)),
+            outcome(() -> actual.getCardAt(src, numCards)));
+      } else {
+        int move = expectedMoves[random.nextInt(count)];
+        expected.applyMove(move);
+        actual.applyMove(move);
+      }
+      assertEquals(expected.canUndo(), actual.canUndo());
+      assertEquals(expected.canRedo(), actual.canRedo());
+    }
+  }
+
+  @Test
+  public void testAgreesWithObjectEngine() {
+    for (KlondikeCreator.GameType type : KlondikeCreator.GameType.values()) {
+      for (int seed = 0; seed < 10; seed++) {
+        List<Card> deck = objectGame(type).createNewDeck();
+        Collections.shuffle(deck, new Random(seed));
+        playInLockstep(type, deck, 7, 1 + seed % 3, seed);
+      }
+    }
+  }
+
+  @Test
+  public void testAgreesWithObjectEngineOnMultiDeckGames() {
+    for (KlondikeCreator.GameType type : KlondikeCreator.GameType.values()) {
+      List<Card> deck = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        deck.addAll(objectGame(type).createNewDeck());
+      }
+      Collections.shuffle(deck, new Random(17));
+      playInLockstep(type, deck, 12, 3, 17);
+    }
+  }
+
+  @Test
+  public void testRunLengthsAgreeWithObjectEngine() {
+    for (KlondikeCreator.GameType type : KlondikeCreator.GameType.values()) {
+      List<Card> deck = objectGame(type).createNewDeck();
+      Collections.shuffle(deck, new Random(3));
+      AbstractKlondike expected = objectGame(type);
+      PackedKlondike actual = new PackedKlondike(type);
+      expected.startGame(deck, false, 7, 1);
+      actual.startGame(deck, false, 7, 1);
+      Random random = new Random(11);
+      int[] moves = new int[256];
+
+      for (int turn = 0; turn < 300; turn++) {
+        PackedKlondike copy = actual.copy();
+        for (int src = 0; src < 7; src++) {
+          for (int numCards = 1; numCards <= actual.getPileHeight(src); numCards++) {
+            for (int dest = 0; dest < 7; dest++) {
+              assertEquals(expected.canMovePile(src, numCards, dest),
+                  actual.canMovePile(src, numCards, dest));
+              assertEquals(actual.canMovePile(src, numCards, dest),
+                  copy.canMovePile(src, numCards, dest));
+            }
+          }
+        }
+        int count = expected.getLegalMoves(moves);
+        if (count == 0) {
+          break;
+        }
+        if (expected.canUndo() && random.nextInt(5) == 0) {
+          expected.undo();
+          actual.undo();
+        } else {
+          int move = moves[random.nextInt(count)];
+          expected.applyMove(move);
+          actual.applyMove(move);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSnapshotsMoveBetweenEngines() {
+    AbstractKlondike objectGame = new WhiteheadKlondike();
+    List<Card> deck = objectGame.createNewDeck();
+    Collections.shuffle(deck, new Random(2));
+    objectGame.startGame(deck, false, 7, 3);
+    objectGame.discardDraw();
+    objectGame.discardDraw();
+
+    PackedKlondike packedGame = new PackedKlondike(KlondikeCreator.GameType.WHITEHEAD);
+    packedGame.restore(objectGame.snapshot());
+    assertEquals(describe(objectGame), describe(packedGame));
+    assertEquals(objectGame.stateHash(), packedGame.stateHash());
+
+    packedGame.discardDraw();
+    objectGame.restore(packedGame.snapshot());
+    assertEquals(describe(packedGame), describe(objectGame));
+    assertEquals(packedGame.stateHash(), objectGame.stateHash());
+
+    PackedKlondike basic = new PackedKlondike(KlondikeCreator.GameType.BASIC);
+    assertThrows(IllegalArgumentException.class, () -> basic.restore(objectGame.snapshot()));
+  }
+
+  @Test
+  public void testCopyIsIndependent() {
+    PackedKlondike game = new PackedKlondike(KlondikeCreator.GameType.BASIC);
+    game.startGame(game.createNewDeck(), false, 7, 3);
+    game.discardDraw();
+    PackedKlondike copy = game.copy();
+    assertFalse(copy.canUndo());
+    String before = describe(game);
+
+    copy.discardDraw();
+    copy.moveToFoundation(0, 0);
+    assertEquals(before, describe(game));
+    assertEquals(game.computeStateHash(), game.stateHash());
+    assertEquals(copy.computeStateHash(), copy.stateHash());
+    assertEquals(1, copy.getScore());
+    assertEquals(0, game.getScore());
+  }
+
+  @Test
+  public void testStartGameValidation() {
+    PackedKlondike game = new PackedKlondike(KlondikeCreator.GameType.BASIC);
+    List<Card> deck = game.createNewDeck();
+    assertThrows(IllegalArgumentException.class, () -> game.startGame(null, false, 7, 3));
+    assertThrows(IllegalArgumentException.class, () -> game.startGame(deck, false, 0, 3));
+    assertThrows(IllegalArgumentException.class, () -> game.startGame(deck, false, 7, 0));
+    assertThrows(IllegalArgumentException.class, () -> game.startGame(deck, false, 10, 3));
+    assertThrows(IllegalArgumentException.class,
+        () -> game.startGame(deck.subList(0, 40), false, 7, 3));
+    assertThrows(IllegalStateException.class, () -> game.getNumPiles());
+
+    game.startGame(deck, true, 7, 3);
+    assertEquals(7, game.getNumRows());
+    assertEquals(3, game.getDrawCards().size());
+    assertNull(game.getCardAt(0));
+    assertThrows(IllegalStateException.class, () -> game.startGame(deck, false, 7, 3));
+  }
+
+  @Test
+  public void testFactoryCreatesPackedGames() {
+    KlondikeModel<Card> model = KlondikeCreator.create(KlondikeCreator.GameType.WHITEHEAD,
+        KlondikeCreator.Engine.PACKED);
+    assertTrue(model instanceof PackedKlondike);
+    model.startGame(model.createNewDeck(), false, 7, 3);
+    for (int card = 0; card < model.getPileHeight(6); card++) {
+      assertTrue(model.isCardVisible(6, card));
+    }
+    assertTrue(KlondikeCreator.create(KlondikeCreator.GameType.BASIC,
+        KlondikeCreator.Engine.OBJECT) instanceof BasicKlondike);
+  }
+}
@@ -0,0 +1,148 @@
+package klondike.model.hw04;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import klondike.model.hw02.Card;
+import klondike.model.hw02.CascadePile;
+import klondike.model.hw02.PlayingCard;
+
+/**
+ * Times moving long runs of cards between piles. First it moves runs of 8 up to 52 cards back
+ * and forth between two cascade piles with {@link CascadePile#transferTo(CascadePile, int)}
+ * and, for comparison, one card at a time through a list the way movePile did before. Then it
+ * plays random games of 3-deck Whitehead on 12 piles, and every time a move of 8 or more cards
+ * is legal it makes the move and undoes it many times over. It prints the best time per move
+ * of five runs of each. This is not a test: run its main method by hand.
+ */
+public final class PileTransferBenchmark {
+  private static final int MOVES = 1_000_000;
+  private static final int NUM_DEALS = 50;
+  private static final int MOVES_PER_PLAYOUT = 300;
+  private static final int REPEATS = 2_000;
+  private static final int MIN_RUN = 8;
+  private static final int ROUNDS = 5;
+
+  private PileTransferBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args unused
+   */
+  public static void main(String[] args) {
+    for (int runLength : new int[] {8, 13, 26, 52}) {
+      double bulk = Double.MAX_VALUE;
+      double oneByOne = Double.MAX_VALUE;
+      for (int run = 0; run < ROUNDS; run++) {  // the first runs also warm up the JIT
+        bulk = Math.min(bulk, timePileMoves(runLength, true));
+        oneByOne = Math.min(oneByOne, timePileMoves(runLength, false));
+      }
+      System.out.printf("run of %2d: %6.1f ns/move transferTo, %6.1f ns/move card by card%n",
+          runLength, bulk, oneByOne);
+    }
+
+    double[] best = {0, 0, Double.MAX_VALUE};
+    for (int run = 0; run < ROUNDS; run++) {  // the first runs also warm up the JIT
+      double[] result = timeGameMoves();
+      if (result[2] < best[2]) {
+        best = result;
+      }
+    }
+    System.out.printf("3-deck Whitehead: %.0f moves of %d+ cards, %.1f cards on average, "
+        + "%.2f us/move + undo%n", best[0], MIN_RUN, best[1], best[2]);
+  }
+
+  /**
+   * Times moving a run of face-up cards from one pile to another and back.
+   *
+   * @param runLength the number of cards in the run
+   * @param bulk true to move the run with transferTo, false to move it card by card
+   * @return the time per move in nanoseconds
+   */
+  private static double timePileMoves(int runLength, boolean bulk) {
+    CascadePile from = new CascadePile();
+    CascadePile to = new CascadePile();
+    for (int i = 0; i < 20; i++) {
+      from.addCard(PlayingCard.of(i), false);
+    }
+    for (int i = 0; i < runLength; i++) {
+      from.addCard(PlayingCard.of(i % 52), true);
+    }
+    to.addCard(PlayingCard.of(51), true);
+    long start = System.nanoTime();
+    for (int move = 0; move < MOVES; move += 2) {
+      if (bulk) {
+        from.transferTo(to, runLength);
+        to.transferTo(from, runLength);
+      } else {
+        moveCardByCard(from, to, runLength);
+        moveCardByCard(to, from, runLength);
+      }
+    }
+    return (double) (System.nanoTime() - start) / MOVES;
+  }
+
+  /**
+   * Moves cards from the bottom of one pile to another the way movePile used to, removing
+   * them one at a time into the front of a list and then adding them one at a time.
+   */
+  private static void moveCardByCard(CascadePile from, CascadePile to, int numCards) {
+    List<Card> removed = new ArrayList<>();
+    for (int i = 0; i < numCards; i++) {
+      removed.addFirst(from.removeCard());
+    }
+    for (Card card : removed) {
+      to.addCard(card, true);
+    }
+  }
+
+  /**
+   * Plays random games, and makes and undoes every legal move of at least {@link #MIN_RUN}
+   * cards met along the way.
+   *
+   * @return the number of such moves, the average number of cards they move and the time per
+   *     move and undo in microseconds
+   */
+  private static double[] timeGameMoves() {
+    int[] legalMoves = new int[1024];
+    long elapsed = 0;
+    long moves = 0;
+    long cardsMoved = 0;
+    for (int seed = 0; seed < NUM_DEALS; seed++) {
+      WhiteheadKlondike game = new WhiteheadKlondike();
+      List<Card> deck = new ArrayList<>();
+      for (int copy = 0; copy < 3; copy++) {
+        deck.addAll(game.createNewDeck());
+      }
+      Collections.shuffle(deck, new Random(seed));
+      game.startGame(deck, false, 12, 3);
+      SplittableRandom random = new SplittableRandom(seed);
+      for (int step = 0; step < MOVES_PER_PLAYOUT; step++) {
+        int numLegal = Math.min(game.getLegalMoves(legalMoves), legalMoves.length);
+        if (numLegal == 0) {
+          break;
+        }
+        for (int i = 0; i < numLegal; i++) {
+          int move = legalMoves[i];
+          if (KlondikeMove.type(move) == KlondikeMove.PILE_TO_PILE
+              && KlondikeMove.numCards(move) >= MIN_RUN) {
+            long start = System.nanoTime();
+            for (int repeat = 0; repeat < REPEATS; repeat++) {
+              game.applyMove(move);
+              game.undo();
+            }
+            elapsed += System.nanoTime() - start;
+            moves += REPEATS;
+            cardsMoved += (long) REPEATS * KlondikeMove.numCards(move);
+          }
+        }
+        game.applyMove(legalMoves[random.nextInt(numLegal)]);
+      }
+    }
+    return new double[] {moves / REPEATS, (double) cardsMoved / moves, elapsed / 1e3 / moves};
+  }
+}
@@ -0,0 +1,106 @@
+package klondike.model.hw04;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import klondike.model.hw02.BasicKlondike;
+import klondike.model.hw02.Card;
+import klondike.model.hw02.PlayingCard;
+
+/**
+ * Times asking each variant about every pair of the 52 distinct cards, whether the second may
+ * be stacked on the first and whether it continues a run from the first, and about every card
+ * whether it may go on an empty pile, first through the rule methods of the variant and then
+ * through its {@link VariantRules} tables, and prints the best time per check of each. This is
+ * not a test: run its main method by hand.
+ */
+public final class RuleLookupBenchmark {
+  private static final int SWEEPS = 2_000;
+  private static final int ROUNDS = 5;
+
+  private RuleLookupBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args unused
+   */
+  public static void main(String[] args) {
+    Card[] cards = new Card[52];
+    List<List<Card>> pairs = new ArrayList<>();
+    for (int bottom = 0; bottom < 52; bottom++) {
+      cards[bottom] = PlayingCard.of(bottom);
+      for (int top = 0; top < 52; top++) {
+        pairs.add(List.of(PlayingCard.of(bottom), PlayingCard.of(top)));
+      }
+    }
+    List<AbstractKlondike> variants = List.of(new BasicKlondike(), new WhiteheadKlondike());
+    double[] methods = new double[variants.size()];
+    double[] tables = new double[variants.size()];
+    Arrays.fill(methods, Double.MAX_VALUE);
+    Arrays.fill(tables, Double.MAX_VALUE);
+    for (int run = 0; run < ROUNDS; run++) {  // the first runs also warm up the JIT
+      for (int v = 0; v < variants.size(); v++) {
+        methods[v] = Math.min(methods[v], timeMethods(variants.get(v), cards, pairs));
+        tables[v] = Math.min(tables[v], timeTables(VariantRules.of(variants.get(v))));
+      }
+    }
+    for (int v = 0; v < variants.size(); v++) {
+      System.out.printf("%-18s %5.2f ns/check rule methods, %5.2f ns/check tables%n",
+          variants.get(v).getClass().getSimpleName() + ":", methods[v], tables[v]);
+    }
+  }
+
+  /**
+   * Asks the rule methods of a variant about every pair of cards, many times over.
+   *
+   * @return the time per check in nanoseconds
+   */
+  private static double timeMethods(AbstractKlondike variant, Card[] cards,
+                                    List<List<Card>> pairs) {
+    long sink = 0;
+    long start = System.nanoTime();
+    for (int sweep = 0; sweep < SWEEPS; sweep++) {
+      for (int bottom = 0; bottom < 52; bottom++) {
+        sink += variant.canPlaceOnEmptyPile(cards[bottom]) ? 1 : 0;
+        for (int top = 0; top < 52; top++) {
+          sink += variant.canStackCards(cards[bottom], cards[top]) ? 1 : 0;
+          sink += variant.isValidCardSequence(pairs.get(bottom * 52 + top)) ? 1 : 0;
+        }
+      }
+    }
+    return finish(start, sink);
+  }
+
+  /**
+   * Looks up every pair of cards in the tables of a variant, many times over.
+   *
+   * @return the time per check in nanoseconds
+   */
+  private static double timeTables(VariantRules rules) {
+    long sink = 0;
+    long start = System.nanoTime();
+    for (int sweep = 0; sweep < SWEEPS; sweep++) {
+      for (int bottom = 0; bottom < 52; bottom++) {
+        sink += rules.canPlaceOnEmpty(bottom) ? 1 : 0;
+        for (int top = 0; top < 52; top++) {
+          sink += rules.canStack(bottom, top) ? 1 : 0;
+          sink += rules.continuesRun(bottom, top) ? 1 : 0;
+        }
+      }
+    }
+    return finish(start, sink);
+  }
+
+  /**
+   * Works out the time per check of a sweep loop that started at the given time.
+   */
+  private static double finish(long start, long sink) {
+    double perCheck = (double) (System.nanoTime() - start) / (SWEEPS * (52 + 2 * 52 * 52));
+    if (sink == 42) {
+      System.out.print("");  // keeps the checks from being optimized away
+    }
+    return perCheck;
+  }
+}
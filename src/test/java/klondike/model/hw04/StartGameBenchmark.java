@@ -0,0 +1,89 @@
+package klondike.model.hw04;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import klondike.model.hw02.Card;
+import klondike.model.hw02.KlondikeModel;
+
+/**
+ * Times startGame on decks of 1 up to 16 copies of the standard deck, for each engine, with
+ * the deck given first as an ArrayList and then as a LinkedList. Each call checks the deck,
+ * deals the piles and fills the draw pile. A single call is short enough to be thrown off by
+ * anything else the machine does, so every setup is timed over several passes of many calls,
+ * and the benchmark prints the best time of a call. A long first pass that is not timed lets
+ * the JIT compile the deck checks fully, which takes far more calls on small decks than on
+ * large ones. This is not a test: run its main method by hand.
+ */
+public final class StartGameBenchmark {
+  private static final int[] NUM_DECKS = {1, 4, 8, 16};
+  private static final int[] NUM_PILES = {7, 19, 28, 30};
+  private static final int WARMUP_CALLS = 20_000;
+  private static final int CALLS = 1_000;
+  private static final int ROUNDS = 4;
+
+  private StartGameBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args unused
+   */
+  public static void main(String[] args) {
+    KlondikeCreator.Engine[] engines = KlondikeCreator.Engine.values();
+    List<List<Card>> decks = new ArrayList<>();
+    for (int i = 0; i < NUM_DECKS.length; i++) {
+      List<Card> deck = new ArrayList<>();
+      for (int copy = 0; copy < NUM_DECKS[i]; copy++) {
+        deck.addAll(KlondikeCreator.create(KlondikeCreator.GameType.BASIC).createNewDeck());
+      }
+      Collections.shuffle(deck, new Random(NUM_DECKS[i]));
+      decks.add(deck);
+      decks.add(new LinkedList<>(deck));
+    }
+
+    double[][] best = new double[engines.length][decks.size()];
+    for (double[] row : best) {
+      Arrays.fill(row, Double.MAX_VALUE);
+    }
+    for (int run = 0; run < ROUNDS; run++) {
+      for (int e = 0; e < engines.length; e++) {
+        for (int d = 0; d < decks.size(); d++) {
+          int calls = run == 0 ? WARMUP_CALLS : CALLS;
+          double time = timeStartGame(engines[e], decks.get(d), NUM_PILES[d / 2], calls);
+          if (run > 0) {
+            best[e][d] = Math.min(best[e][d], time);
+          }
+        }
+      }
+    }
+    for (int e = 0; e < engines.length; e++) {
+      for (int i = 0; i < NUM_DECKS.length; i++) {
+        System.out.printf("%-6s %2d decks, %2d piles: %6.1f us ArrayList, %6.1f us LinkedList%n",
+            engines[e], NUM_DECKS[i], NUM_PILES[i], best[e][2 * i], best[e][2 * i + 1]);
+      }
+    }
+  }
+
+  /**
+   * Starts a new basic game on the given engine with the deck the given number of times.
+   * Creating each game is left out of the time.
+   *
+   * @return the best time of a call in microseconds
+   */
+  private static double timeStartGame(KlondikeCreator.Engine engine, List<Card> deck,
+                                      int numPiles, int calls) {
+    long best = Long.MAX_VALUE;
+    for (int call = 0; call < calls; call++) {
+      KlondikeModel<Card> game = KlondikeCreator.create(KlondikeCreator.GameType.BASIC, engine);
+      long start = System.nanoTime();
+      game.startGame(deck, false, numPiles, 3);
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best / 1e3;
+  }
+}
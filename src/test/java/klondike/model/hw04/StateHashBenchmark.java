@@ -0,0 +1,118 @@
+package klondike.model.hw04;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import klondike.model.hw02.Card;
+
+/**
+ * Replays random playouts of Whitehead deals, each move and undo of which updates the state
+ * hash in place, first reading that hash after every step and then recomputing the whole hash
+ * after every step instead, and prints the time per step of each. The difference is what the
+ * incremental hash saves a search over recomputing it. This is not a test: run its main
+ * method by hand.
+ */
+public final class StateHashBenchmark {
+  private static final int NUM_DEALS = 20;
+  private static final int MOVES_PER_PLAYOUT = 200;
+  private static final int ROUNDS = 100;
+
+  private StateHashBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optionally the number of decks in each deal, 1 if left out
+   */
+  public static void main(String[] args) {
+    int numDecks = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+    List<WhiteheadKlondike> games = new ArrayList<>();
+    for (int seed = 0; seed < NUM_DEALS; seed++) {
+      WhiteheadKlondike game = new WhiteheadKlondike();
+      List<Card> deck = new ArrayList<>();
+      for (int copy = 0; copy < numDecks; copy++) {
+        deck.addAll(game.createNewDeck());
+      }
+      Collections.shuffle(deck, new Random(seed));
+      game.startGame(deck, false, 7 + 3 * (numDecks - 1), 3);
+      games.add(game);
+    }
+    List<int[]> playouts = new ArrayList<>();
+    for (int g = 0; g < games.size(); g++) {
+      playouts.add(randomPlayout(games.get(g), new SplittableRandom(g)));
+    }
+    for (int warmUp = 0; warmUp < ROUNDS; warmUp++) {  // warms up the JIT
+      replayAll(games, playouts, false);
+      replayAll(games, playouts, true);
+    }
+
+    for (boolean recompute : new boolean[] {false, true}) {
+      long start = System.nanoTime();
+      long moves = 0;
+      for (int round = 0; round < ROUNDS; round++) {
+        moves += replayAll(games, playouts, recompute);
+      }
+      long elapsed = System.nanoTime() - start;
+      System.out.printf("%-28s %6.1f ns/move%n",
+          recompute ? "move + recomputed hash:" : "move + incremental hash:",
+          (double) elapsed / moves);
+    }
+  }
+
+  /**
+   * Picks random legal moves from a game and then undoes them all, so that the game ends
+   * where it started.
+   *
+   * @return the moves picked
+   */
+  private static int[] randomPlayout(WhiteheadKlondike game, SplittableRandom random) {
+    int[] legalMoves = new int[512];
+    int[] playout = new int[MOVES_PER_PLAYOUT];
+    int made = 0;
+    while (made < MOVES_PER_PLAYOUT) {
+      int numLegal = Math.min(game.getLegalMoves(legalMoves), legalMoves.length);
+      if (numLegal == 0) {
+        break;
+      }
+      playout[made] = legalMoves[random.nextInt(numLegal)];
+      game.applyMove(playout[made++]);
+    }
+    for (int i = 0; i < made; i++) {
+      game.undo();
+    }
+    return Arrays.copyOf(playout, made);
+  }
+
+  /**
+   * Replays the playout of every game and then undoes it, reading the state hash after every
+   * move and undo.
+   *
+   * @param recompute true to recompute the whole state hash instead of reading it
+   * @return the number of moves and undos made
+   */
+  private static long replayAll(List<WhiteheadKlondike> games, List<int[]> playouts,
+                                boolean recompute) {
+    long moves = 0;
+    long sink = 0;
+    for (int g = 0; g < games.size(); g++) {
+      WhiteheadKlondike game = games.get(g);
+      for (int move : playouts.get(g)) {
+        game.applyMove(move);
+        sink += recompute ? game.computeStateHash() : game.stateHash();
+      }
+      for (int i = 0; i < playouts.get(g).length; i++) {
+        game.undo();
+        sink += recompute ? game.computeStateHash() : game.stateHash();
+      }
+      moves += 2L * playouts.get(g).length;
+    }
+    if (sink == 42) {
+      System.out.print("");  // keeps the hashes from being optimized away
+    }
+    return moves;
+  }
+}
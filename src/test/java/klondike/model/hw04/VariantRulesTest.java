@@ -0,0 +1,49 @@
+package klondike.model.hw04;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+import klondike.model.hw02.BasicKlondike;
+import klondike.model.hw02.PlayingCard;
+import org.junit.Test;
+
+/**
+ * Test class for the rule tables of each variant.
+ */
+public class VariantRulesTest {
+
+  /**
+   * Checks that the tables of a variant give the same answers as its rule methods.
+   */
+  private static void assertTablesMatchRules(AbstractKlondike variant) {
+    VariantRules rules = VariantRules.of(variant);
+    for (int bottom = 0; bottom < 52; bottom++) {
+      PlayingCard bottomCard = PlayingCard.of(bottom);
+      assertEquals(variant.canPlaceOnEmptyPile(bottomCard), rules.canPlaceOnEmpty(bottom));
+      for (int top = 0; top < 52; top++) {
+        PlayingCard topCard = PlayingCard.of(top);
+        assertEquals(variant.canStackCards(bottomCard, topCard), rules.canStack(bottom, top));
+        assertEquals(variant.isValidCardSequence(List.of(bottomCard, topCard)),
+            rules.continuesRun(bottom, top));
+      }
+    }
+  }
+
+  @Test
+  public void testTablesMatchBasicRules() {
+    assertTablesMatchRules(new BasicKlondike());
+  }
+
+  @Test
+  public void testTablesMatchWhiteheadRules() {
+    assertTablesMatchRules(new WhiteheadKlondike());
+  }
+
+  @Test
+  public void testTablesAreSharedPerVariant() {
+    assertSame(VariantRules.of(new BasicKlondike()), VariantRules.of(new BasicKlondike()));
+    assertNotSame(VariantRules.of(new BasicKlondike()), VariantRules.of(new WhiteheadKlondike()));
+  }
+}
@@ -2,14 +2,25 @@ package klondike.model.hw04;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import klondike.model.hw02.BasicKlondike;
 import klondike.model.hw02.Card;
+import klondike.model.hw02.KlondikeCard;
 import klondike.model.hw02.KlondikeModel;
 import klondike.model.hw02.PlayingCard;
+import klondike.model.hw02.Suit;
+import klondike.model.hw02.Value;
+import klondike.view.KlondikeTextualView;
 import org.junit.Test;
 
 /**
@@ -95,6 +106,46 @@ public class WhiteheadKlondikeTest {
     game.startGame(deck, false, 10, 1);
   }
 
+  @Test
+  public void testStartGameWithManyDecks() {
+    KlondikeModel<Card> game = new WhiteheadKlondike();
+    List<Card> deck = new LinkedList<>();
+    for (int copy = 0; copy < 16; copy++) {
+      deck.addAll(game.createNewDeck());
+    }
+    List<Card> original = new ArrayList<>(deck);
+    game.startGame(deck, false, 30, 3);
+
+    assertEquals(original, deck);
+    assertEquals(64, game.getNumFoundations());
+    assertEquals(30, game.getNumRows());
+    assertEquals(deck.get(0), game.getCardAt(0, 0));
+    assertEquals(deck.get(464), game.getCardAt(29, 29));
+    assertEquals(deck.subList(465, 468), game.getDrawCards());
+
+    deck.remove(100);
+    assertThrows(IllegalArgumentException.class,
+        () -> new WhiteheadKlondike().startGame(deck, false, 30, 3));
+  }
+
+  @Test
+  public void testDealHookLeavesUndealtCardsInDeck() {
+    List<Integer> undealt = new ArrayList<>();
+    WhiteheadKlondike game = new WhiteheadKlondike() {
+      @Override
+      protected void dealCascadePiles(List<Card> deck, int numPiles) {
+        super.dealCascadePiles(deck, numPiles);
+        undealt.add(deck.size());
+      }
+    };
+    List<Card> deck = game.createNewDeck();
+    game.startGame(deck, false, 7, 3);
+
+    assertEquals(List.of(24), undealt);
+    assertEquals(deck.subList(28, 31), game.getDrawCards());
+    assertEquals(deck.get(27), game.getCardAt(6, 6));
+  }
+
   // VISIBILITY TESTS (UNIQUE TO WHITEHEAD)
 
   @Test
@@ -495,4 +546,527 @@ public class WhiteheadKlondikeTest {
     assertNotNull(drawCards);
     assertTrue(drawCards.size() <= 3);
   }
-}
\ No newline at end of file
+
+  // MOVE GENERATION TESTS
+
+  @Test
+  public void testGetLegalMovesMatchesQueries() {
+    WhiteheadKlondike game = new WhiteheadKlondike();
+    List<Card> deck = game.createNewDeck();
+    Collections.shuffle(deck, new Random(42));
+    game.startGame(deck, false, 7, 3);
+    Random random = new Random(7);
+    int[] moves = new int[256];
+
+    for (int turn = 0; turn < 300; turn++) {
+      int count = game.getLegalMoves(moves);
+      assertEquals(countLegalMoves(game), count);
+      for (int i = 0; i < count; i++) {
+        assertTrue(isLegal(game, moves[i]));
+      }
+      if (count == 0) {
+        break;
+      }
+      game.applyMove(moves[random.nextInt(count)]);
+    }
+  }
+
+  /**
+   * Counts legal moves by asking the model about every possible move.
+   */
+  private static int countLegalMoves(WhiteheadKlondike game) {
+    int count = 0;
+    for (int src = 0; src < game.getNumPiles(); src++) {
+      for (int dest = 0; dest < game.getNumPiles(); dest++) {
+        for (int numCards = 1; numCards <= game.getPileHeight(src); numCards++) {
+          count += game.canMovePile(src, numCards, dest) ? 1 : 0;
+        }
+      }
+      for (int f = 0; f < game.getNumFoundations(); f++) {
+        count += game.canMoveToFoundation(src, f) ? 1 : 0;
+      }
+      count += game.canMoveDraw(src) ? 1 : 0;
+    }
+    for (int f = 0; f < game.getNumFoundations(); f++) {
+      count += game.canMoveDrawToFoundation(f) ? 1 : 0;
+    }
+    return count + (game.getDrawCards().isEmpty() ? 0 : 1);
+  }
+
+  /**
+   * Checks an encoded move against the matching query of the model.
+   */
+  private static boolean isLegal(WhiteheadKlondike game, int move) {
+    switch (KlondikeMove.type(move)) {
+      case KlondikeMove.PILE_TO_PILE:
+        return game.canMovePile(KlondikeMove.source(move), KlondikeMove.numCards(move),
+            KlondikeMove.destination(move));
+      case KlondikeMove.DRAW_TO_PILE:
+        return game.canMoveDraw(KlondikeMove.destination(move));
+      case KlondikeMove.PILE_TO_FOUNDATION:
+        return game.canMoveToFoundation(KlondikeMove.source(move),
+            KlondikeMove.destination(move));
+      case KlondikeMove.DRAW_TO_FOUNDATION:
+        return game.canMoveDrawToFoundation(KlondikeMove.destination(move));
+      default:
+        return !game.getDrawCards().isEmpty();
+    }
+  }
+
+  // UNDO TESTS
+
+  @Test
+  public void testUndoAndRedoRandomGame() {
+    WhiteheadKlondike game = new WhiteheadKlondike();
+    List<Card> deck = game.createNewDeck();
+    Collections.shuffle(deck, new Random(3));
+    game.startGame(deck, false, 7, 3);
+    Random random = new Random(11);
+    int[] moves = new int[256];
+    List<String> states = new ArrayList<>();
+    states.add(describe(game));
+
+    for (int turn = 0; turn < 200; turn++) {
+      int count = game.getLegalMoves(moves);
+      if (count == 0) {
+        break;
+      }
+      game.applyMove(moves[random.nextInt(count)]);
+      states.add(describe(game));
+    }
+    for (int i = states.size() - 2; i >= 0; i--) {
+      game.undo();
+      assertEquals(states.get(i), describe(game));
+    }
+    assertFalse(game.canUndo());
+    for (int i = 1; i < states.size(); i++) {
+      game.redo();
+      assertEquals(states.get(i), describe(game));
+    }
+    assertFalse(game.canRedo());
+  }
+
+  /**
+   * Describes the whole visible state of a game.
+   */
+  private static String describe(KlondikeModel<Card> game) {
+    return new KlondikeTextualView(game).toString() + " " + game.getScore();
+  }
+
+  // GAME OVER TESTS
+
+  @Test
+  public void testIsGameOverMatchesLegalMoves() {
+    for (int seed = 0; seed < 20; seed++) {
+      AbstractKlondike[] games = {new WhiteheadKlondike(), new BasicKlondike()};
+      for (AbstractKlondike game : games) {
+        List<Card> deck = new ArrayList<>();
+        for (Card card : game.createNewDeck()) {
+          if (seed % 2 == 0 || ((KlondikeCard) card).getValue() <= 7) {
+            deck.add(card); // odd seeds deal all 28 cards, leaving the draw pile empty
+          }
+        }
+        Collections.shuffle(deck, new Random(seed));
+        game.startGame(deck, false, 7, 1);
+        Random random = new Random(seed);
+        int[] moves = new int[256];
+
+        for (int turn = 0; turn < 300; turn++) {
+          int count = game.getLegalMoves(moves);
+          assertEquals(count == 0, game.isGameOver());
+          if (count == 0) {
+            break;
+          }
+          if (game.canUndo() && random.nextInt(5) == 0) {
+            game.undo();
+          } else {
+            game.applyMove(moves[random.nextInt(count)]);
+          }
+        }
+      }
+    }
+  }
+
+  // SCORE TESTS
+
+  @Test
+  public void testScoreMatchesFoundations() {
+    WhiteheadKlondike game = new WhiteheadKlondike();
+    List<Card> deck = game.createNewDeck();
+    Collections.shuffle(deck, new Random(8));
+    game.startGame(deck, false, 7, 1);
+    Random random = new Random(8);
+    int[] moves = new int[256];
+
+    for (int turn = 0; turn < 500; turn++) {
+      int expected = 0;
+      for (int f = 0; f < game.getNumFoundations(); f++) {
+        Card top = game.getCardAt(f);
+        expected += top == null ? 0 : ((KlondikeCard) top).getValue();
+      }
+      assertEquals(expected, game.getScore());
+      assertEquals(expected, game.copy().getScore());
+      int count = game.getLegalMoves(moves);
+      if (count == 0) {
+        break;
+      }
+      if (game.canUndo() && random.nextInt(4) == 0) {
+        game.undo();
+      } else {
+        game.applyMove(moves[random.nextInt(count)]);
+      }
+    }
+  }
+
+  // SUIT FOUNDATION TESTS
+
+  @Test
+  public void testMoveToSuitFoundationMatchesFoundationScan() {
+    AbstractKlondike[] games = {new WhiteheadKlondike(), new BasicKlondike()};
+    for (AbstractKlondike game : games) {
+      List<Card> deck = new ArrayList<>();
+      for (int copy = 0; copy < 3; copy++) {
+        deck.addAll(game.createNewDeck());
+      }
+      Collections.shuffle(deck, new Random(6));
+      game.startGame(deck, false, 10, 1);
+      Random random = new Random(6);
+      int[] moves = new int[512];
+
+      for (int turn = 0; turn < 400; turn++) {
+        for (int src = 0; src < game.getNumPiles(); src++) {
+          boolean accepted = false;
+          for (int f = 0; f < game.getNumFoundations(); f++) {
+            accepted |= game.canMoveToFoundation(src, f);
+          }
+          AbstractKlondike copy = game.copy();
+          int pile = src;
+          if (accepted) {
+            copy.moveToSuitFoundation(pile);
+            assertEquals(game.getScore() + 1, copy.getScore());
+          } else {
+            assertThrows(IllegalStateException.class, () -> copy.moveToSuitFoundation(pile));
+          }
+        }
+        int count = game.getLegalMoves(moves);
+        if (count == 0) {
+          break;
+        }
+        if (game.canUndo() && random.nextInt(5) == 0) {
+          game.undo();
+        } else {
+          game.applyMove(moves[random.nextInt(count)]);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMoveDrawToSuitFoundation() {
+    WhiteheadKlondike game = new WhiteheadKlondike();
+    List<Card> deck = game.createNewDeck();
+    Collections.swap(deck, 28, 13);  // puts the Ace of the second suit on top of the draw pile
+    game.startGame(deck, false, 7, 1);
+    game.moveToSuitFoundation(0);
+    game.moveDrawToSuitFoundation();
+    assertEquals(2, game.getScore());
+    assertEquals(deck.get(28), game.getCardAt(1));
+    assertThrows(IllegalStateException.class, () -> game.moveDrawToSuitFoundation());
+    assertThrows(IllegalStateException.class, () -> game.moveToSuitFoundation(1));
+    assertThrows(IllegalArgumentException.class, () -> game.moveToSuitFoundation(7));
+
+    game.undo();
+    assertEquals(deck.get(28), game.getDrawCards().get(0));
+    game.moveDrawToSuitFoundation();
+    assertEquals(deck.get(28), game.getCardAt(1));
+  }
+
+  // CARD LOCATION TESTS
+
+  /**
+   * Finds every copy of a card by looking at every pile of a game, sorted by description.
+   */
+  private static List<String> scanForCard(AbstractKlondike game, Card card) {
+    List<String> found = new ArrayList<>();
+    for (int pile = 0; pile < game.cascadePiles.size(); pile++) {
+      for (int depth = 0; depth < game.cascadePiles.get(pile).size(); depth++) {
+        if (game.cascadePiles.get(pile).getCardAt(depth).equals(card)) {
+          found.add(new CardLocation(CardLocation.Area.CASCADE, pile, depth).toString());
+        }
+      }
+    }
+    for (int f = 0; f < game.foundationPiles.size(); f++) {
+      for (int index = 0; index < game.foundationPiles.get(f).size(); index++) {
+        if (game.foundationPiles.get(f).getCardAt(index).equals(card)) {
+          found.add(new CardLocation(CardLocation.Area.FOUNDATION, f, index).toString());
+        }
+      }
+    }
+    for (int index = 0; index < game.drawPile.size(); index++) {
+      if (game.drawPile.getCardAt(index).equals(card)) {
+        found.add(new CardLocation(CardLocation.Area.DRAW, 0, index).toString());
+      }
+    }
+    Collections.sort(found);
+    return found;
+  }
+
+  /**
+   * Describes the locations of a card reported by a game, sorted by description.
+   */
+  private static List<String> locate(AbstractKlondike game, Card card) {
+    List<String> found = new ArrayList<>();
+    for (CardLocation location : game.locateCard(card)) {
+      found.add(location.toString());
+    }
+    Collections.sort(found);
+    return found;
+  }
+
+  @Test
+  public void testLocateCardMatchesScan() {
+    AbstractKlondike[] games = {new WhiteheadKlondike(), new BasicKlondike()};
+    for (AbstractKlondike game : games) {
+      List<Card> deck = new ArrayList<>();
+      for (int copy = 0; copy < 2; copy++) {
+        deck.addAll(game.createNewDeck());
+      }
+      Collections.shuffle(deck, new Random(4));
+      game.startGame(deck, false, 9, 2);
+      Random random = new Random(4);
+      int[] moves = new int[512];
+
+      for (int turn = 0; turn < 400; turn++) {
+        for (Card card : game.createNewDeck()) {
+          assertEquals(scanForCard(game, card), locate(game, card));
+        }
+        int count = game.getLegalMoves(moves);
+        if (count == 0) {
+          break;
+        }
+        int choice = random.nextInt(6);
+        if (choice == 0 && game.canUndo()) {
+          game.undo();
+        } else if (choice == 1 && game.canRedo()) {
+          game.redo();
+        } else {
+          game.applyMove(moves[random.nextInt(count)]);
+        }
+      }
+      AbstractKlondike copy = game.copy();
+      for (Card card : game.createNewDeck()) {
+        assertEquals(scanForCard(game, card), locate(copy, card));
+      }
+    }
+  }
+
+  @Test
+  public void testLocateCardInDealtGame() {
+    WhiteheadKlondike game = new WhiteheadKlondike();
+    game.startGame(game.createNewDeck(), false, 7, 3);
+    Card first = game.getCardAt(0, 0);
+    assertEquals(List.of(new CardLocation(CardLocation.Area.CASCADE, 0, 0)),
+        game.locateCard(first));
+    Card top = game.getDrawCards().get(0);
+    assertEquals(List.of(new CardLocation(CardLocation.Area.DRAW, 0, 0)),
+        game.locateCard(top));
+    game.discardDraw();
+    assertEquals(List.of(new CardLocation(CardLocation.Area.DRAW, 0, 23)),
+        game.locateCard(top));
+    assertThrows(IllegalArgumentException.class, () -> game.locateCard(null));
+    assertThrows(IllegalStateException.class,
+        () -> new WhiteheadKlondike().locateCard(first));
+  }
+
+  /**
+   * Deals a Basic game, whose piles hide every card but the last, and checks that its unchecked
+   * board only returns the visible cards.
+   */
+  private static <G extends KlondikeModel<Card> & UncheckedBoard<Card>> void
+      assertUncheckedBoardHidesFaceDownCards(G game) {
+    game.startGame(game.createNewDeck(), false, 7, 3);
+    for (int pile = 0; pile < 7; pile++) {
+      assertEquals(pile + 1, game.getPileHeightUnchecked(pile));
+      for (int card = 0; card < pile; card++) {
+        assertNull(game.getCardAtUnchecked(pile, card));
+      }
+      assertEquals(game.getCardAt(pile, pile), game.getCardAtUnchecked(pile, pile));
+    }
+  }
+
+  @Test
+  public void testUncheckedBoardHidesFaceDownCards() {
+    assertUncheckedBoardHidesFaceDownCards(new BasicKlondike());
+    assertUncheckedBoardHidesFaceDownCards(new PackedKlondike(KlondikeCreator.GameType.BASIC));
+  }
+
+  @Test
+  public void testNumRowsMatchesTallestPile() {
+    List<ExtendedKlondikeModel<Card>> games = List.of(new WhiteheadKlondike(),
+        new BasicKlondike(), new PackedKlondike(KlondikeCreator.GameType.BASIC));
+    for (ExtendedKlondikeModel<Card> game : games) {
+      game.startGame(game.createNewDeck(), true, 7, 1);
+      Random random = new Random(19);
+      int[] moves = new int[512];
+
+      for (int turn = 0; turn < 400; turn++) {
+        int tallest = 0;
+        for (int pile = 0; pile < game.getNumPiles(); pile++) {
+          tallest = Math.max(tallest, game.getPileHeight(pile));
+        }
+        assertEquals(tallest, game.getNumRows());
+        int count = game.getLegalMoves(moves);
+        if (count == 0) {
+          break;
+        }
+        int choice = random.nextInt(4);
+        if (choice == 0 && game.canUndo()) {
+          game.undo();
+        } else if (choice == 1 && game.canRedo()) {
+          game.redo();
+        } else {
+          game.applyMove(moves[random.nextInt(count)]);
+        }
+      }
+      assertEquals(game.getNumRows(), game.copy().getNumRows());
+    }
+  }
+
+  // STATE HASH TESTS
+
+  @Test
+  public void testStateHashMatchesRecomputation() {
+    AbstractKlondike[] games = {new WhiteheadKlondike(), new BasicKlondike()};
+    for (AbstractKlondike game : games) {
+      List<Card> deck = game.createNewDeck();
+      Collections.shuffle(deck, new Random(5));
+      game.startGame(deck, false, 7, 3);
+      Random random = new Random(9);
+      int[] moves = new int[256];
+
+      for (int turn = 0; turn < 500; turn++) {
+        assertEquals(game.computeStateHash(), game.stateHash());
+        if (game.canUndo() && random.nextInt(4) == 0) {
+          long before = game.stateHash();
+          game.undo();
+          game.redo();
+          assertEquals(before, game.stateHash());
+          game.undo();
+          continue;
+        }
+        int count = game.getLegalMoves(moves);
+        if (count == 0) {
+          break;
+        }
+        game.applyMove(moves[random.nextInt(count)]);
+      }
+    }
+  }
+
+  @Test
+  public void testStateHashTracksDrawRotation() {
+    WhiteheadKlondike game = new WhiteheadKlondike();
+    game.startGame(game.createNewDeck(), false, 7, 3);
+    long start = game.stateHash();
+    game.discardDraw();
+    assertNotEquals(start, game.stateHash());
+    for (int i = 1; i < 24; i++) { // 24 cards in the draw pile
+      game.discardDraw();
+    }
+    assertEquals(start, game.stateHash());
+  }
+
+  @Test
+  public void testStateHashTellsApartTwoDeckDrawOrders() {
+    Card clubs = PlayingCard.of(Value.ACE, Suit.CLUBS);
+    Card diamonds = PlayingCard.of(Value.ACE, Suit.DIAMONDS);
+    Card hearts = PlayingCard.of(Value.ACE, Suit.HEARTS);
+    Card spades = PlayingCard.of(Value.ACE, Suit.SPADES);
+    // two piles take the first three cards, and the draw piles repeat the same pairs of cards
+    List<Card> first = List.of(hearts, spades, spades, clubs, diamonds, hearts, clubs, diamonds);
+    List<Card> second = List.of(hearts, spades, spades, clubs, diamonds, clubs, diamonds, hearts);
+    long[] objectHashes = new long[2];
+    for (boolean packed : new boolean[] {false, true}) {
+      ExtendedKlondikeModel<Card> one = packed
+          ? new PackedKlondike(KlondikeCreator.GameType.WHITEHEAD) : new WhiteheadKlondike();
+      ExtendedKlondikeModel<Card> other = packed
+          ? new PackedKlondike(KlondikeCreator.GameType.WHITEHEAD) : new WhiteheadKlondike();
+      one.startGame(first, false, 2, 1);
+      other.startGame(second, false, 2, 1);
+      if (packed) {
+        assertEquals(objectHashes[0], one.stateHash());
+        assertEquals(objectHashes[1], other.stateHash());
+      }
+      objectHashes[0] = one.stateHash();
+      objectHashes[1] = other.stateHash();
+      for (int i = 0; i < 5; i++) {
+        assertNotEquals(one.stateHash(), other.stateHash());
+        one.discardDraw();
+        other.discardDraw();
+      }
+      assertEquals(objectHashes[0], one.stateHash());  // a full turn of the draw pile
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testStateHashBeforeStart() {
+    new WhiteheadKlondike().stateHash();
+  }
+
+  // SNAPSHOT TESTS
+
+  @Test
+  public void testRestoreSnapshot() {
+    WhiteheadKlondike game = new WhiteheadKlondike();
+    List<Card> deck = game.createNewDeck();
+    Collections.shuffle(deck, new Random(21));
+    game.startGame(deck, false, 7, 3);
+    Random random = new Random(4);
+    int[] moves = new int[256];
+
+    for (int turn = 0; turn < 100; turn++) {
+      KlondikeSnapshot snapshot = game.snapshot();
+      String state = describe(game);
+      for (int i = 0; i < 5 && game.getLegalMoves(moves) > 0; i++) {
+        game.applyMove(moves[random.nextInt(Math.min(game.getLegalMoves(moves), 256))]);
+      }
+      game.restore(snapshot);
+      assertEquals(state, describe(game));
+      assertEquals(snapshot.getStateHash(), game.stateHash());
+      assertEquals(game.computeStateHash(), game.stateHash());
+      assertFalse(game.canUndo());
+      int count = game.getLegalMoves(moves);
+      if (count == 0) {
+        break;
+      }
+      game.applyMove(moves[random.nextInt(count)]);
+    }
+  }
+
+  @Test
+  public void testCopyIsIndependent() {
+    BasicKlondike game = new BasicKlondike();
+    game.startGame(game.createNewDeck(), false, 7, 3);
+    AbstractKlondike copy = game.copy();
+    assertEquals(describe(game), describe(copy));
+    assertEquals(game.stateHash(), copy.stateHash());
+
+    copy.moveToFoundation(2, 0); // reveals the face-down card above A♢
+    assertEquals("9♣", copy.getCardAt(2, 1).toString());
+    assertFalse(game.isCardVisible(2, 1));
+    assertEquals(0, game.getScore());
+    assertNotEquals(game.stateHash(), copy.stateHash());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRestoreSnapshotFromOtherVariant() {
+    BasicKlondike basic = new BasicKlondike();
+    basic.startGame(basic.createNewDeck(), false, 7, 3);
+    new WhiteheadKlondike().restore(basic.snapshot());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testSnapshotBeforeStart() {
+    new WhiteheadKlondike().snapshot();
+  }
+}
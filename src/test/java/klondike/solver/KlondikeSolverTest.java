@@ -0,0 +1,231 @@
+package klondike.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import klondike.model.hw02.BasicKlondike;
+import klondike.model.hw02.Card;
+import klondike.model.hw02.PlayingCard;
+import klondike.model.hw02.Suit;
+import klondike.model.hw02.Value;
+import klondike.model.hw04.ExtendedKlondikeModel;
+import klondike.model.hw04.KlondikeCreator;
+import klondike.model.hw04.WhiteheadKlondike;
+import org.junit.Test;
+
+/**
+ * Test class for KlondikeSolver, which replays every winning line the solver finds on a fresh
+ * game to check that it really wins.
+ */
+public class KlondikeSolverTest {
+
+  /**
+   * Applies every move of a winning line to a game and checks that it ends with every card on
+   * a foundation.
+   */
+  private static void assertWins(ExtendedKlondikeModel<Card> game, SolverResult result) {
+    assertEquals(SolverResult.Status.SOLVABLE, result.getStatus());
+    for (int move : result.getMoves()) {
+      game.applyMove(move);
+    }
+    assertTrue(game.getDrawCards().isEmpty());
+    assertEquals(0, game.getNumRows());
+  }
+
+  @Test
+  public void testSolvesOrderedDeck() {
+    WhiteheadKlondike game = new WhiteheadKlondike();
+    game.startGame(game.createNewDeck(), false, 7, 3);
+    long before = game.stateHash();
+    SolverResult result = new KlondikeSolver().solve(game);
+
+    assertEquals(before, game.stateHash());
+    assertWins(game, result);
+  }
+
+  @Test
+  public void testSolvesShuffledDeals() {
+    List<Card> ordered = new WhiteheadKlondike().createNewDeck();
+    int solved = 0;
+    for (int seed = 0; seed < 6; seed++) {
+      List<Card> deck = new ArrayList<>(ordered);
+      Collections.shuffle(deck, new Random(seed));
+      SolverResult result = new KlondikeSolver(100_000).solve(deck, 7, 3);
+      if (result.getStatus() == SolverResult.Status.SOLVABLE) {
+        WhiteheadKlondike game = new WhiteheadKlondike();
+        game.startGame(deck, false, 7, 3);
+        assertWins(game, result);
+        solved++;
+      }
+    }
+    assertTrue(solved > 0);
+  }
+
+  @Test
+  public void testSolvesBasicDealsThoughtfully() {
+    List<Card> ordered = new BasicKlondike().createNewDeck();
+    for (int seed : new int[] {1, 2, 4}) {
+      List<Card> deck = new ArrayList<>(ordered);
+      Collections.shuffle(deck, new Random(seed));
+      SolverResult result = new KlondikeSolver(100_000)
+          .solve(KlondikeCreator.GameType.BASIC, deck, 7, 3);
+      assertTrue(result.getStatesVisited() > 1);
+      assertTrue(result.getElapsedNanos() > 0);
+
+      // the object engine checks every move of the line against the Basic rules again
+      BasicKlondike game = new BasicKlondike();
+      game.startGame(deck, false, 7, 3);
+      assertWins(game, result);
+    }
+  }
+
+  @Test
+  public void testProvesDealUnsolvable() {
+    // the Aces in the draw pile go up, and then every pile ends in a Three with no Four left
+    List<Card> deck = List.of(
+        PlayingCard.of(Value.THREE, Suit.HEARTS), PlayingCard.of(Value.ACE, Suit.HEARTS),
+        PlayingCard.of(Value.TWO, Suit.HEARTS), PlayingCard.of(Value.TWO, Suit.SPADES),
+        PlayingCard.of(Value.THREE, Suit.DIAMONDS), PlayingCard.of(Value.TWO, Suit.DIAMONDS),
+        PlayingCard.of(Value.TWO, Suit.CLUBS), PlayingCard.of(Value.THREE, Suit.SPADES),
+        PlayingCard.of(Value.ACE, Suit.DIAMONDS), PlayingCard.of(Value.THREE, Suit.CLUBS),
+        PlayingCard.of(Value.ACE, Suit.CLUBS), PlayingCard.of(Value.ACE, Suit.SPADES));
+    SolverResult result = new KlondikeSolver().solve(deck, 4, 1);
+
+    assertEquals(SolverResult.Status.UNSOLVABLE, result.getStatus());
+    assertEquals(0, result.getMoves().length);
+    assertEquals(3, result.getStatesVisited());
+    assertEquals(SolverResult.Status.UNSOLVABLE,
+        new KlondikeSolver(1_000_000, 4).solve(deck, 4, 1).getStatus());
+  }
+
+  @Test
+  public void testParallelSearchAgreesWithSingleThread() {
+    List<Card> ordered = new WhiteheadKlondike().createNewDeck();
+    for (int seed = 0; seed < 6; seed++) {
+      List<Card> deck = new ArrayList<>(ordered);
+      Collections.shuffle(deck, new Random(seed));
+      SolverResult single = new KlondikeSolver(100_000).solve(deck, 7, 3);
+      if (single.getStatus() == SolverResult.Status.UNKNOWN) {
+        continue;
+      }
+      SolverResult parallel = new KlondikeSolver(1_000_000, 4).solve(deck, 7, 3);
+      assertEquals(single.getStatus(), parallel.getStatus());
+      if (parallel.getStatus() == SolverResult.Status.SOLVABLE) {
+        WhiteheadKlondike game = new WhiteheadKlondike();
+        game.startGame(deck, false, 7, 3);
+        assertWins(game, parallel);
+      }
+    }
+    SolverResult limited = new KlondikeSolver(50, 4).solve(ordered, 7, 3);
+    assertEquals(SolverResult.Status.UNKNOWN, limited.getStatus());
+  }
+
+  @Test
+  public void testResumesSearchFromTableFile() throws IOException {
+    List<Card> deck = new ArrayList<>(new WhiteheadKlondike().createNewDeck());
+    Collections.shuffle(deck, new Random(0));
+    WhiteheadKlondike game = new WhiteheadKlondike();
+    game.startGame(deck, false, 7, 3);
+    SolverResult fresh = new KlondikeSolver(100_000).solve(game);
+    assertEquals(SolverResult.Status.SOLVABLE, fresh.getStatus());
+
+    Path file = Files.createTempDirectory("klondike").resolve("states.tt");
+    try {
+      long searched;
+      try (MappedTranspositionTable table = MappedTranspositionTable.create(file, 1 << 20)) {
+        SolverResult first = new KlondikeSolver(fresh.getStatesVisited() / 2).solve(game, table);
+        assertEquals(SolverResult.Status.UNKNOWN, first.getStatus());
+        searched = table.size();
+        assertTrue(searched > 0 && searched < first.getStatesVisited());
+      }
+      try (MappedTranspositionTable table = MappedTranspositionTable.open(file)) {
+        assertEquals(searched, table.size());
+        SolverResult resumed = new KlondikeSolver(100_000).solve(game, table);
+        assertTrue(resumed.getStatesVisited() < fresh.getStatesVisited());
+        WhiteheadKlondike replay = new WhiteheadKlondike();
+        replay.startGame(deck, false, 7, 3);
+        assertWins(replay, resumed);
+      }
+    } finally {
+      Files.delete(file);
+      Files.delete(file.getParent());
+    }
+  }
+
+  @Test
+  public void testRefusesTableFromLaterStateOfSameDeal() {
+    List<Card> deck = new ArrayList<>(new WhiteheadKlondike().createNewDeck());
+    Collections.shuffle(deck, new Random(0));
+    WhiteheadKlondike game = new WhiteheadKlondike();
+    game.startGame(deck, false, 7, 3);
+    SolverResult fresh = new KlondikeSolver(100_000).solve(game);
+    TranspositionTable table = new HeapTranspositionTable();
+    SolverResult first = new KlondikeSolver(fresh.getStatesVisited() / 2).solve(game, table);
+    assertEquals(SolverResult.Status.UNKNOWN, first.getStatus());
+    long searched = table.size();
+
+    game.applyMove(fresh.getMoves()[0]);
+    assertThrows(IllegalArgumentException.class,
+        () -> new KlondikeSolver(100_000).solve(game, table));
+    assertEquals(searched, table.size());
+    game.undo();
+    assertEquals(SolverResult.Status.SOLVABLE,
+        new KlondikeSolver(100_000).solve(game, table).getStatus());
+  }
+
+  @Test
+  public void testProvesUnsolvableAgainFromFullySearchedTable() {
+    List<Card> deck = List.of(
+        PlayingCard.of(Value.THREE, Suit.HEARTS), PlayingCard.of(Value.ACE, Suit.HEARTS),
+        PlayingCard.of(Value.TWO, Suit.HEARTS), PlayingCard.of(Value.TWO, Suit.SPADES),
+        PlayingCard.of(Value.THREE, Suit.DIAMONDS), PlayingCard.of(Value.TWO, Suit.DIAMONDS),
+        PlayingCard.of(Value.TWO, Suit.CLUBS), PlayingCard.of(Value.THREE, Suit.SPADES),
+        PlayingCard.of(Value.ACE, Suit.DIAMONDS), PlayingCard.of(Value.THREE, Suit.CLUBS),
+        PlayingCard.of(Value.ACE, Suit.CLUBS), PlayingCard.of(Value.ACE, Suit.SPADES));
+    WhiteheadKlondike game = new WhiteheadKlondike();
+    game.startGame(deck, false, 4, 1);
+    TranspositionTable table = new HeapTranspositionTable();
+    KlondikeSolver solver = new KlondikeSolver();
+
+    assertEquals(3, solver.solve(game, table).getStatesVisited());
+    assertEquals(3, table.size());
+    SolverResult again = solver.solve(game, table);
+    assertEquals(SolverResult.Status.UNSOLVABLE, again.getStatus());
+    assertEquals(1, again.getStatesVisited());
+  }
+
+  @Test
+  public void testGivesUpAtStateLimit() {
+    WhiteheadKlondike game = new WhiteheadKlondike();
+    game.startGame(game.createNewDeck(), false, 7, 3);
+    SolverResult result = new KlondikeSolver(5).solve(game);
+
+    assertEquals(SolverResult.Status.UNKNOWN, result.getStatus());
+    assertEquals(5, result.getStatesVisited());
+    assertEquals(0, result.getMoves().length);
+  }
+
+  @Test
+  public void testSolveValidation() {
+    KlondikeSolver solver = new KlondikeSolver();
+    assertThrows(IllegalArgumentException.class, () -> new KlondikeSolver(0));
+    assertThrows(IllegalArgumentException.class, () -> new KlondikeSolver(10, 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> solver.solve((ExtendedKlondikeModel<?>) null));
+    assertThrows(IllegalStateException.class, () -> solver.solve(new WhiteheadKlondike()));
+    assertThrows(IllegalArgumentException.class,
+        () -> solver.solve(new WhiteheadKlondike().createNewDeck(), 10, 1));
+    assertThrows(IllegalArgumentException.class,
+        () -> solver.solve(null, new WhiteheadKlondike().createNewDeck(), 7, 1));
+    assertThrows(IllegalArgumentException.class,
+        () -> solver.solve(new WhiteheadKlondike(), null));
+  }
+}
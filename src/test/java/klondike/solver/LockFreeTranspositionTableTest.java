@@ -0,0 +1,92 @@
+package klondike.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Test class for LockFreeTranspositionTable.
+ */
+public class LockFreeTranspositionTableTest {
+
+  @Test
+  public void testStoresAndFindsStates() {
+    LockFreeTranspositionTable table = new LockFreeTranspositionTable(64,
+        LockFreeTranspositionTable.ReplacementPolicy.KEEP_EXISTING);
+    assertEquals(LockFreeTranspositionTable.STORED, table.insert(42));
+    assertEquals(LockFreeTranspositionTable.STORED, table.insert(0));
+    assertEquals(LockFreeTranspositionTable.FOUND, table.insert(42));
+    assertEquals(LockFreeTranspositionTable.FOUND, table.insert(0));
+    assertEquals(2, table.size());
+    assertEquals(2, table.hits());
+    assertEquals(2, table.misses());
+  }
+
+  @Test
+  public void testReplacementPolicies() {
+    // with 16 slots every state has the whole table as its probe window
+    LockFreeTranspositionTable keeping = new LockFreeTranspositionTable(16,
+        LockFreeTranspositionTable.ReplacementPolicy.KEEP_EXISTING);
+    LockFreeTranspositionTable replacing = new LockFreeTranspositionTable(16,
+        LockFreeTranspositionTable.ReplacementPolicy.REPLACE_HOME);
+    for (long state = 1; state <= 16; state++) {
+      assertEquals(LockFreeTranspositionTable.STORED, keeping.insert(state));
+      assertEquals(LockFreeTranspositionTable.STORED, replacing.insert(state));
+    }
+    assertEquals(LockFreeTranspositionTable.FULL, keeping.insert(17));
+    assertEquals(LockFreeTranspositionTable.FULL, keeping.insert(17));
+    assertEquals(LockFreeTranspositionTable.REPLACED, replacing.insert(17));
+    assertEquals(LockFreeTranspositionTable.FOUND, replacing.insert(17));
+    assertEquals(16, keeping.size());
+    assertTrue(keeping.collisions() >= 2 * 16);  // both probes for 17 skip every slot
+
+    int forgotten = 0;
+    for (long state = 1; state <= 16; state++) {
+      if (replacing.insert(state) != LockFreeTranspositionTable.FOUND) {
+        forgotten++;
+      }
+    }
+    assertEquals(1, forgotten);
+  }
+
+  @Test
+  public void testEachStateStoredOnceAcrossThreads() throws InterruptedException {
+    LockFreeTranspositionTable table = new LockFreeTranspositionTable(1 << 16,
+        LockFreeTranspositionTable.ReplacementPolicy.KEEP_EXISTING);
+    AtomicInteger stored = new AtomicInteger();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      threads.add(new Thread(() -> {
+        for (long state = 1; state <= 20_000; state++) {
+          if (table.insert(state * 0x9E3779B97F4A7C15L) == LockFreeTranspositionTable.STORED) {
+            stored.incrementAndGet();
+          }
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(20_000, stored.get());
+    assertEquals(20_000, table.size());
+    assertEquals(3 * 20_000, table.hits());
+  }
+
+  @Test
+  public void testCapacityValidation() {
+    assertThrows(IllegalArgumentException.class, () -> new LockFreeTranspositionTable(100,
+        LockFreeTranspositionTable.ReplacementPolicy.KEEP_EXISTING));
+    assertThrows(IllegalArgumentException.class, () -> new LockFreeTranspositionTable(8,
+        LockFreeTranspositionTable.ReplacementPolicy.KEEP_EXISTING));
+    assertThrows(IllegalArgumentException.class,
+        () -> new LockFreeTranspositionTable(64, null));
+  }
+}
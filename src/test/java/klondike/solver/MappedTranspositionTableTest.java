@@ -0,0 +1,134 @@
+package klondike.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+/**
+ * Test class for MappedTranspositionTable, and for removing states from the table on the heap,
+ * which stores states the same way.
+ */
+public class MappedTranspositionTableTest {
+
+  /**
+   * Deletes a table file and the directory it was made in.
+   */
+  private static void delete(Path file) throws IOException {
+    Files.deleteIfExists(file);
+    Files.delete(file.getParent());
+  }
+
+  /**
+   * Adds and removes random states, a few of them many times over so that runs of full slots
+   * form and break up, and checks that the table agrees with a set every step of the way.
+   */
+  private static void assertActsLikeSet(TranspositionTable table) {
+    Set<Long> expected = new HashSet<>();
+    Random random = new Random(7);
+    for (int i = 0; i < 20_000; i++) {
+      long state = (random.nextInt(600) + 1) * 0x9E3779B97F4A7C15L;
+      if (random.nextBoolean()) {
+        assertEquals(expected.add(state), table.add(state));
+      } else {
+        expected.remove(state);
+        table.remove(state);
+      }
+      assertEquals(expected.size(), table.size());
+    }
+    for (long state : expected) {
+      assertFalse(table.add(state));
+    }
+  }
+
+  @Test
+  public void testRemovesStates() throws IOException {
+    assertActsLikeSet(new HeapTranspositionTable());
+    Path file = Files.createTempDirectory("klondike").resolve("states.tt");
+    try (MappedTranspositionTable table = MappedTranspositionTable.create(file, 1024)) {
+      assertActsLikeSet(table);
+    } finally {
+      delete(file);
+    }
+  }
+
+  @Test
+  public void testKeepsStatesInFile() throws IOException {
+    Path file = Files.createTempDirectory("klondike").resolve("states.tt");
+    try {
+      try (MappedTranspositionTable table = MappedTranspositionTable.create(file, 64)) {
+        assertTrue(table.add(42));
+        assertTrue(table.add(0));
+        assertTrue(table.add(7));
+        table.remove(7);
+        table.claim(99);
+        assertEquals(64, table.capacity());
+        assertEquals(2, table.size());
+      }
+      try (MappedTranspositionTable table = MappedTranspositionTable.open(file)) {
+        assertEquals(64, table.capacity());
+        assertEquals(2, table.size());
+        assertThrows(IllegalArgumentException.class, () -> table.claim(98));
+        table.claim(99);
+        assertFalse(table.add(42));
+        assertFalse(table.add(0));
+        assertTrue(table.add(7));
+      }
+    } finally {
+      delete(file);
+    }
+  }
+
+  @Test
+  public void testFillsUp() throws IOException {
+    Path file = Files.createTempDirectory("klondike").resolve("states.tt");
+    MappedTranspositionTable table = MappedTranspositionTable.create(file, 16);
+    try {
+      for (long state = 1; state <= 12; state++) {
+        assertFalse(table.isFull());
+        assertTrue(table.add(state));
+      }
+      assertTrue(table.isFull());
+      assertFalse(table.add(5));
+      assertThrows(IllegalStateException.class, () -> table.add(13));
+      table.remove(5);
+      assertFalse(table.isFull());
+      table.close();
+      assertThrows(IllegalStateException.class, () -> table.add(5));
+    } finally {
+      table.close();
+      delete(file);
+    }
+  }
+
+  @Test
+  public void testFileValidation() throws IOException {
+    Path file = Files.createTempDirectory("klondike").resolve("states.tt");
+    try {
+      assertThrows(IllegalArgumentException.class,
+          () -> MappedTranspositionTable.create(file, 100));
+      assertThrows(IllegalArgumentException.class,
+          () -> MappedTranspositionTable.create(file, 8));
+      assertThrows(IllegalArgumentException.class,
+          () -> MappedTranspositionTable.create(null, 64));
+      assertThrows(IllegalArgumentException.class, () -> MappedTranspositionTable.open(null));
+      assertThrows(IOException.class, () -> MappedTranspositionTable.open(file));
+
+      Files.writeString(file, "not a table, but long enough to hold a header");
+      assertThrows(IOException.class, () -> MappedTranspositionTable.open(file));
+      assertThrows(FileAlreadyExistsException.class,
+          () -> MappedTranspositionTable.create(file, 64));
+    } finally {
+      delete(file);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package klondike.solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import klondike.model.hw02.Card;
+import klondike.model.hw04.WhiteheadKlondike;
+
+/**
+ * Times the solver on the same Whitehead deals with 1, 2, 4 and so on up to 32 workers, and
+ * prints the total time for each number of workers and its speedup over a single thread. This
+ * is not a test: run its main method by hand, on a machine with as many cores as the workers
+ * to compare, since workers beyond the number of cores only share them.
+ */
+public final class ParallelSearchBenchmark {
+  private static final int NUM_DEALS = 30;
+  private static final long MAX_STATES = 200_000;
+
+  private ParallelSearchBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optionally the largest number of workers to time, 32 if left out
+   */
+  public static void main(String[] args) {
+    int maxWorkers = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+    List<List<Card>> deals = new ArrayList<>();
+    List<Card> ordered = new WhiteheadKlondike().createNewDeck();
+    for (int seed = 0; seed < NUM_DEALS; seed++) {
+      List<Card> deck = new ArrayList<>(ordered);
+      Collections.shuffle(deck, new Random(seed));
+      deals.add(deck);
+    }
+    System.out.println("cores: " + Runtime.getRuntime().availableProcessors());
+    solveAll(deals, 1);  // warms up the JIT before anything is timed
+
+    long singleThread = 0;
+    for (int workers = 1; workers <= maxWorkers; workers *= 2) {
+      long start = System.nanoTime();
+      int solved = solveAll(deals, workers);
+      long elapsed = System.nanoTime() - start;
+      if (workers == 1) {
+        singleThread = elapsed;
+      }
+      System.out.printf("%2d workers: %6d ms, %.2fx, %d of %d solved%n", workers,
+          elapsed / 1_000_000, (double) singleThread / elapsed, solved, deals.size());
+    }
+  }
+
+  /**
+   * Solves every deal with the given number of workers.
+   *
+   * @return the number of deals found solvable
+   */
+  private static int solveAll(List<List<Card>> deals, int workers) {
+    KlondikeSolver solver = new KlondikeSolver(MAX_STATES, workers);
+    int solved = 0;
+    for (List<Card> deck : deals) {
+      if (solver.solve(deck, 7, 3).getStatus() == SolverResult.Status.SOLVABLE) {
+        solved++;
+      }
+    }
+    return solved;
+  }
+}
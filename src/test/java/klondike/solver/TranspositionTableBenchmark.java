@@ -0,0 +1,69 @@
+package klondike.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Measures how many probes per second the lock-free transposition table takes from 1, 2, 4 and
+ * so on up to 32 threads at once. Every thread probes random states drawn from the same range,
+ * so the threads race to store the same states and mostly find the ones stored by the others,
+ * as the workers of a parallel search do. This is not a test: run its main method by hand, on a
+ * machine with as many cores as the threads to compare.
+ */
+public final class TranspositionTableBenchmark {
+  private static final int CAPACITY = 1 << 22;
+  private static final int NUM_STATES = 1 << 21;  // fills the table to one half at most
+  private static final int PROBES_PER_THREAD = 4_000_000;
+
+  private TranspositionTableBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optionally the largest number of threads to time, 32 if left out
+   * @throws InterruptedException if the main thread is interrupted while waiting
+   */
+  public static void main(String[] args) throws InterruptedException {
+    int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+    System.out.println("cores: " + Runtime.getRuntime().availableProcessors());
+    probeConcurrently(1);  // warms up the JIT before anything is timed
+
+    for (int threads = 1; threads <= maxThreads; threads *= 2) {
+      long start = System.nanoTime();
+      LockFreeTranspositionTable table = probeConcurrently(threads);
+      long elapsed = System.nanoTime() - start;
+      double probesPerSecond = (double) threads * PROBES_PER_THREAD * 1e9 / elapsed;
+      System.out.printf("%2d threads: %5.1fM probes/s, %d stored, %d hits, %d collisions%n",
+          threads, probesPerSecond / 1e6, table.size(), table.hits(), table.collisions());
+    }
+  }
+
+  /**
+   * Probes a new table from the given number of threads at once and waits for them all.
+   *
+   * @return the table
+   */
+  private static LockFreeTranspositionTable probeConcurrently(int threads)
+      throws InterruptedException {
+    LockFreeTranspositionTable table = new LockFreeTranspositionTable(CAPACITY,
+        LockFreeTranspositionTable.ReplacementPolicy.KEEP_EXISTING);
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      SplittableRandom random = new SplittableRandom(t);
+      workers.add(new Thread(() -> {
+        for (int i = 0; i < PROBES_PER_THREAD; i++) {
+          table.insert((random.nextInt(NUM_STATES) + 1) * 0x9E3779B97F4A7C15L);
+        }
+      }));
+    }
+    for (Thread worker : workers) {
+      worker.start();
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    return table;
+  }
+}